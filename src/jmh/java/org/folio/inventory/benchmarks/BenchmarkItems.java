@@ -0,0 +1,70 @@
+package org.folio.inventory.benchmarks;
+
+import org.folio.inventory.domain.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Items with a realistic spread of values, generated the same way for
+ * every run so that results can be compared
+ */
+class BenchmarkItems {
+  static final String[] MATERIAL_TYPE_IDS = ids(5);
+  static final String[] LOAN_TYPE_IDS = ids(3);
+
+  private static final String[] STATUSES = {
+    "Available", "Checked out", "In transit", "Missing" };
+
+  private static final String[] TITLE_WORDS = {
+    "California", "gold", "inhabitants", "Africa", "coast", "history",
+    "letters", "journey", "science", "poems", "river", "empire" };
+
+  private BenchmarkItems() { }
+
+  static List<Item> generate(int count) {
+    List<Item> items = new ArrayList<>(count);
+
+    for(int index = 0; index < count; index++) {
+      items.add(item(index));
+    }
+
+    return items;
+  }
+
+  static Item item(int index) {
+    return new Item(
+      new UUID(0, index).toString(),
+      title(index),
+      barcode(index),
+      new UUID(1, index / 3).toString(),
+      STATUSES[index % STATUSES.length],
+      MATERIAL_TYPE_IDS[index % MATERIAL_TYPE_IDS.length],
+      "Reading Room " + (index % 20),
+      LOAN_TYPE_IDS[index % LOAN_TYPE_IDS.length],
+      index % 7 == 0 ? LOAN_TYPE_IDS[(index + 1) % LOAN_TYPE_IDS.length] : null);
+  }
+
+  static String barcode(int index) {
+    return String.format("%08d", index);
+  }
+
+  private static String title(int index) {
+    return String.format("%s and the %s of %s, volume %s",
+      TITLE_WORDS[index % TITLE_WORDS.length],
+      TITLE_WORDS[(index / 7) % TITLE_WORDS.length],
+      TITLE_WORDS[(index / 13) % TITLE_WORDS.length],
+      index % 100);
+  }
+
+  private static String[] ids(int count) {
+    String[] ids = new String[count];
+
+    for(int index = 0; index < count; index++) {
+      ids[index] = new UUID(2, index).toString();
+    }
+
+    return ids;
+  }
+}
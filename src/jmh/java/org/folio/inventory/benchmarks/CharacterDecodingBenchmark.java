@@ -0,0 +1,49 @@
+package org.folio.inventory.benchmarks;
+
+import org.folio.inventory.parsing.CharacterEncoding;
+import org.folio.inventory.parsing.EscapedUTF8CharacterEncoding;
+import org.folio.inventory.parsing.UTF8LiteralCharacterEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decoding titles with no escaped characters (the common case) and with
+ * several escaped UTF-8 sequences, using the general single pass decoder
+ * and the original replacement of specific sequences
+ */
+@State(Scope.Benchmark)
+public class CharacterDecodingBenchmark {
+  private static final String PLAIN =
+    "California: its gold and its inhabitants, by the author of " +
+      "'Seven years on the Slave coast of Africa'.";
+
+  private static final String ESCAPED =
+    "Les mise\\xCC\\x81rables : the author\\xE2\\x80\\x99s edition, " +
+      "pre\\xC3\\xA9dite\\xC3\\xA9 by the author of \\xE2\\x80\\x99Seven years\\xE2\\x80\\x99";
+
+  @Param({"plain", "escaped"})
+  public String title;
+
+  @Param({"escaped-utf8", "literal"})
+  public String decoder;
+
+  private CharacterEncoding encoding;
+  private String input;
+
+  @Setup
+  public void chooseTitle() {
+    input = title.equals("escaped") ? ESCAPED : PLAIN;
+
+    encoding = decoder.equals("literal")
+      ? new UTF8LiteralCharacterEncoding()
+      : new EscapedUTF8CharacterEncoding();
+  }
+
+  @Benchmark
+  public String decode() {
+    return encoding.decode(input);
+  }
+}
@@ -0,0 +1,122 @@
+package org.folio.inventory.benchmarks;
+
+import org.folio.inventory.common.cql.CompiledCqlQuery;
+import org.folio.inventory.common.cql.CqlFilter;
+import org.folio.inventory.common.cql.CqlNode;
+import org.folio.inventory.common.cql.CqlParser;
+import org.folio.inventory.domain.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Parsing and compiling queries, and filtering (and sorting) lists of
+ * items with compiled queries, using accessors or reading properties
+ * through the meta class when there is no accessor
+ */
+@State(Scope.Benchmark)
+public class CqlBenchmark {
+  private static final String COMPOUND_QUERY =
+    "title=\"gold inhabitants\" and (status==\"Checked out\" or barcode==00001234)" +
+      " not location==\"Reading Room 3\"";
+
+  @Param({"10000", "100000"})
+  public int records;
+
+  private List<Item> items;
+  private CqlFilter<Item> filter;
+
+  private CompiledCqlQuery<Item> equality;
+  private CompiledCqlQuery<Item> wildcard;
+  private CompiledCqlQuery<Item> allWords;
+  private CompiledCqlQuery<Item> compound;
+  private CompiledCqlQuery<Item> sorted;
+  private CompiledCqlQuery<Item> withoutAccessors;
+
+  @Setup
+  public void createItems() {
+    items = BenchmarkItems.generate(records);
+    filter = new CqlFilter<>(accessors());
+
+    equality = filter.compile("status==\"Checked out\"");
+    wildcard = filter.compile("title=\"gold*\"");
+    allWords = filter.compile("title=\"coast history\"");
+    compound = filter.compile(COMPOUND_QUERY);
+    sorted = filter.compile("location==\"Reading Room 7\" sortBy title/sort.descending");
+
+    withoutAccessors = new CqlFilter<Item>().compile("status==\"Checked out\"");
+  }
+
+  @Benchmark
+  public CqlNode parse() {
+    return new CqlParser().parse(COMPOUND_QUERY);
+  }
+
+  @Benchmark
+  public CompiledCqlQuery<Item> compileUncached() {
+    return new CqlFilter<>(accessors()).compile(COMPOUND_QUERY);
+  }
+
+  @Benchmark
+  public CompiledCqlQuery<Item> compileCached() {
+    return filter.compile(COMPOUND_QUERY);
+  }
+
+  @Benchmark
+  public long filterEquality() {
+    return count(equality);
+  }
+
+  @Benchmark
+  public long filterEqualityWithoutAccessors() {
+    return count(withoutAccessors);
+  }
+
+  @Benchmark
+  public long filterWildcard() {
+    return count(wildcard);
+  }
+
+  @Benchmark
+  public long filterAllWords() {
+    return count(allWords);
+  }
+
+  @Benchmark
+  public long filterCompound() {
+    return count(compound);
+  }
+
+  @Benchmark
+  public List<Item> filterAndSort() {
+    return items.stream()
+      .filter(sorted.getPredicate())
+      .sorted(sorted.getComparator())
+      .collect(Collectors.toList());
+  }
+
+  private long count(CompiledCqlQuery<Item> query) {
+    return items.stream().filter(query.getPredicate()).count();
+  }
+
+  private static Map<String, Function<Item, Object>> accessors() {
+    Map<String, Function<Item, Object>> accessors = new HashMap<>();
+
+    accessors.put("id", Item::getId);
+    accessors.put("title", Item::getTitle);
+    accessors.put("barcode", Item::getBarcode);
+    accessors.put("instanceId", Item::getInstanceId);
+    accessors.put("status", Item::getStatus);
+    accessors.put("location", Item::getLocation);
+
+    return accessors;
+  }
+}
@@ -0,0 +1,79 @@
+package org.folio.inventory.benchmarks;
+
+import org.folio.inventory.common.api.request.PagingParameters;
+import org.folio.inventory.domain.Item;
+import org.folio.inventory.storage.memory.InMemoryItemCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Finding, replacing and removing items in in-memory storage holding
+ * between ten thousand and a million items. Removed items are added back,
+ * so that the number of items stays the same.
+ */
+@State(Scope.Benchmark)
+public class InMemoryCollectionBenchmark {
+  private static final PagingParameters FIRST_PAGE = new PagingParameters(10, 0);
+
+  @Param({"10000", "100000", "1000000"})
+  public int records;
+
+  private InMemoryItemCollection collection;
+
+  @Setup
+  public void addItems() {
+    collection = new InMemoryItemCollection();
+
+    collection.addAll(BenchmarkItems.generate(records),
+      added -> { },
+      failure -> { throw new IllegalStateException(failure.getReason()); });
+  }
+
+  @Benchmark
+  public void findById(Blackhole blackhole) {
+    collection.findById(BenchmarkItems.item(randomIndex()).getId(),
+      blackhole::consume, blackhole::consume);
+  }
+
+  @Benchmark
+  public void findByIndexedProperty(Blackhole blackhole) {
+    collection.findByCql(
+      String.format("barcode==%s", BenchmarkItems.barcode(randomIndex())),
+      FIRST_PAGE, blackhole::consume, blackhole::consume);
+  }
+
+  @Benchmark
+  public void findByScanning(Blackhole blackhole) {
+    collection.findByCql("location==\"Reading Room 7\" and status==Missing",
+      FIRST_PAGE, blackhole::consume, blackhole::consume);
+  }
+
+  @Benchmark
+  public void findAllFirstPage(Blackhole blackhole) {
+    collection.findAll(FIRST_PAGE, blackhole::consume, blackhole::consume);
+  }
+
+  @Benchmark
+  public void replace(Blackhole blackhole) {
+    collection.update(BenchmarkItems.item(randomIndex()),
+      blackhole::consume, blackhole::consume);
+  }
+
+  @Benchmark
+  public void removeAndAddBack(Blackhole blackhole) {
+    Item item = BenchmarkItems.item(randomIndex());
+
+    collection.delete(item.getId(), blackhole::consume, blackhole::consume);
+    collection.add(item, blackhole::consume, blackhole::consume);
+  }
+
+  private int randomIndex() {
+    return ThreadLocalRandom.current().nextInt(records);
+  }
+}
@@ -0,0 +1,94 @@
+package org.folio.inventory.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.apache.commons.io.output.NullOutputStream;
+import org.folio.inventory.common.WebContext;
+import org.folio.inventory.resources.ItemRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Representing pages of items (with their material and loan types),
+ * both by building a JSON object and by writing directly to a generator
+ */
+@State(Scope.Benchmark)
+public class ItemRepresentationBenchmark {
+  @Param({"100", "1000"})
+  public int pageSize;
+
+  private final ItemRepresentation representation =
+    new ItemRepresentation("/inventory/items");
+
+  private final WebContext context = new WebContext(null) {
+    @Override
+    public URL absoluteUrl(String path) {
+      try {
+        return new URL("http", "localhost", 9403, path);
+      }
+      catch(MalformedURLException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  };
+
+  private final Map<String, JsonObject> materialTypes = new HashMap<>();
+  private final Map<String, JsonObject> loanTypes = new HashMap<>();
+
+  private Map<String, Object> wrappedItems;
+
+  @Setup
+  public void createPage() {
+    wrappedItems = new HashMap<>();
+
+    wrappedItems.put("items", BenchmarkItems.generate(pageSize));
+    wrappedItems.put("totalRecords", pageSize * 10);
+
+    referenceRecords(materialTypes, BenchmarkItems.MATERIAL_TYPE_IDS, "Book");
+    referenceRecords(loanTypes, BenchmarkItems.LOAN_TYPE_IDS, "Can Circulate");
+  }
+
+  @Benchmark
+  public JsonObject toJson() {
+    return representation.toJson(wrappedItems, materialTypes, loanTypes,
+      context);
+  }
+
+  @Benchmark
+  public String toJsonEncoded() {
+    return toJson().encode();
+  }
+
+  @Benchmark
+  public void write() throws IOException {
+    JsonGenerator generator = Json.mapper.getFactory()
+      .createGenerator(new NullOutputStream());
+
+    representation.write(generator, wrappedItems, materialTypes, loanTypes,
+      context);
+
+    generator.close();
+  }
+
+  private static void referenceRecords(
+    Map<String, JsonObject> records,
+    String[] ids,
+    String name) {
+
+    for(int index = 0; index < ids.length; index++) {
+      records.put(ids[index], new JsonObject()
+        .put("id", ids[index])
+        .put("name", name + " " + index));
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package org.folio.inventory.benchmarks;
+
+import org.apache.commons.io.IOUtils;
+import org.folio.inventory.parsing.EscapedUTF8CharacterEncoding;
+import org.folio.inventory.parsing.ModsParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsing the example MODS document (small) and the records in it
+ * repeated many times (large), both from a string and streamed
+ */
+@State(Scope.Benchmark)
+public class ModsParsingBenchmark {
+  private static final String EXAMPLE_RECORDS =
+    "/mods/multiple-example-mods-records.xml";
+
+  private static final String RECORDS_ELEMENT = "mods_records";
+  private static final int LARGE_DOCUMENT_REPETITIONS = 50;
+
+  @Param({"small", "large"})
+  public String document;
+
+  private final ModsParser parser =
+    new ModsParser(new EscapedUTF8CharacterEncoding());
+
+  private String xml;
+  private byte[] xmlBytes;
+
+  @Setup
+  public void readDocument() throws IOException {
+    String example;
+
+    try (InputStream input = getClass().getResourceAsStream(EXAMPLE_RECORDS)) {
+      example = IOUtils.toString(input, StandardCharsets.UTF_8.name());
+    }
+
+    xml = document.equals("large")
+      ? repeatRecords(example, LARGE_DOCUMENT_REPETITIONS)
+      : example;
+
+    xmlBytes = xml.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public List<Map<String, Object>> parseString() {
+    return parser.parseRecords(xml);
+  }
+
+  @Benchmark
+  public void parseStream(Blackhole blackhole) {
+    parser.parseRecords(new ByteArrayInputStream(xmlBytes), blackhole::consume);
+  }
+
+  private static String repeatRecords(String example, int repetitions) {
+    String opening = "<" + RECORDS_ELEMENT + ">";
+    String closing = "</" + RECORDS_ELEMENT + ">";
+
+    int recordsStart = example.indexOf(opening) + opening.length();
+    int recordsEnd = example.lastIndexOf(closing);
+
+    String records = example.substring(recordsStart, recordsEnd);
+
+    StringBuilder repeated = new StringBuilder(example.substring(0, recordsStart));
+
+    for(int repetition = 0; repetition < repetitions; repetition++) {
+      repeated.append(records);
+    }
+
+    return repeated.append(example.substring(recordsEnd)).toString();
+  }
+}
@@ -2,39 +2,73 @@ package org.folio.inventory
 
 import io.vertx.core.AbstractVerticle
 import io.vertx.core.Future
+import io.vertx.core.WorkerExecutor
 import io.vertx.core.http.HttpServer
 import io.vertx.ext.web.Router
 import org.folio.inventory.common.WebRequestDiagnostics
+import org.folio.inventory.common.WebRequestMetrics
 import org.folio.inventory.domain.ingest.IngestMessageProcessor
+import org.folio.inventory.domain.ingest.IngestProgressRegistry
+import org.folio.inventory.resources.Administration
 import org.folio.inventory.resources.Instances
 import org.folio.inventory.resources.Items
 import org.folio.inventory.resources.ingest.ModsIngestion
 import org.folio.inventory.storage.Storage
+import org.folio.inventory.support.diagnostics.Diagnostics
+import org.folio.inventory.support.cache.ReferenceDataCache
+import org.folio.inventory.support.http.client.PooledHttpClient
+import org.folio.inventory.support.http.server.ResponseCompression
 
+/**
+ * Many instances can be deployed (on different event loops), state shared
+ * by them (e.g. caches and ingest jobs) is for the whole process
+ */
 class InventoryVerticle extends AbstractVerticle {
+  public static final String INGEST_WORKER_POOL_NAME = "inventory-ingest"
 
   private HttpServer server
+  private PooledHttpClient client
+  private WorkerExecutor ingestWorkers
 
   @Override
   void start(Future started) {
     def router = Router.router(vertx)
 
+    Map<String, Object> config = vertx.getOrCreateContext().config().map
+
     server = vertx.createHttpServer()
 
-    Map<String, Object> config = vertx.getOrCreateContext().config().map
+    //Each response is compressed when the client accepts it, unless small
+    ResponseCompression.setEnabled(compressionSupported(config))
+
+    Diagnostics.global().configure(config)
+
+    Diagnostics.global().info("Received Config: ${config}")
 
-    println("Received Config")
-    config.each { println("${it.key}:${it.value}") }
+    client = PooledHttpClient.fromConfig(vertx, config)
 
-    def storage = Storage.basedUpon(vertx, config)
+    def storage = Storage.basedUpon(vertx, config, client)
 
-    new IngestMessageProcessor(storage).register(vertx.eventBus())
+    def referenceDataCache = ReferenceDataCache.shared(config)
 
+    def ingestProgress = IngestProgressRegistry.global()
+
+    //Shared by name, so there is only one pool for all instances
+    ingestWorkers = vertx.createSharedWorkerExecutor(INGEST_WORKER_POOL_NAME,
+      ingestWorkerPoolSize(config))
+
+    IngestMessageProcessor.fromConfig(storage, ingestProgress, config)
+      .register(vertx.eventBus())
+
+    router.route().handler(WebRequestMetrics.&measure)
     router.route().handler(WebRequestDiagnostics.&outputDiagnostics)
 
-    new ModsIngestion(storage).register(router)
-    new Items(storage).register(router)
+    new ModsIngestion(storage, client, referenceDataCache, ingestProgress,
+      ingestWorkers, config)
+      .register(router)
+    new Items(storage, client, referenceDataCache).register(router)
     new Instances(storage).register(router)
+    new Administration(client, referenceDataCache).register(router)
 
     def onHttpServerStart = { result ->
       if (result.succeeded()) {
@@ -51,6 +85,15 @@ class InventoryVerticle extends AbstractVerticle {
   @Override
   void stop(Future stopped) {
     println "Stopping inventory module"
+
+    if(client != null) {
+      client.close()
+    }
+
+    if(ingestWorkers != null) {
+      ingestWorkers.close()
+    }
+
     server.close({ result ->
       if (result.succeeded()) {
         println "Stopped listening on ${server.actualPort()}"
@@ -60,4 +103,18 @@ class InventoryVerticle extends AbstractVerticle {
       }
     })
   }
+
+  private static boolean compressionSupported(Map<String, Object> config) {
+    def compression = config.get("http.server.compression")
+
+    compression == null || Boolean.parseBoolean(compression.toString())
+  }
+
+  private static int ingestWorkerPoolSize(Map<String, Object> config) {
+    def size = config.get("ingest.worker.pool.size")
+
+    size == null
+      ? Runtime.runtime.availableProcessors()
+      : Integer.parseInt(size.toString())
+  }
 }
@@ -27,9 +27,131 @@ public class Launcher {
     def storageLocation = System.getProperty(
       "org.folio.metadata.inventory.storage.location", null)
 
+    def coalesceReads = System.getProperty(
+      "org.folio.metadata.inventory.storage.coalesce.reads", null)
+
+    def recordCacheEnabled = System.getProperty(
+      "org.folio.metadata.inventory.storage.record.cache.enabled", null)
+
+    def recordCacheSize = Long.getLong(
+      "org.folio.metadata.inventory.storage.record.cache.maximum.size")
+
+    def recordCacheFresh = Long.getLong(
+      "org.folio.metadata.inventory.storage.record.cache.fresh.milliseconds")
+
+    def maxPoolSize = Integer.getInteger(
+      "org.folio.metadata.inventory.http.client.max.pool.size")
+
+    def maxWaitQueueSize = Integer.getInteger(
+      "org.folio.metadata.inventory.http.client.max.wait.queue.size")
+
+    def compression = System.getProperty(
+      "org.folio.metadata.inventory.http.server.compression", null)
+
+    def keepAlive = System.getProperty(
+      "org.folio.metadata.inventory.http.client.keep.alive", null)
+
+    def pipelining = System.getProperty(
+      "org.folio.metadata.inventory.http.client.pipelining", null)
+
+    def deadline = Long.getLong(
+      "org.folio.metadata.inventory.http.client.deadline.milliseconds")
+
+    def tenantMaxInFlight = Integer.getInteger(
+      "org.folio.metadata.inventory.http.client.tenant.max.in.flight")
+
+    def tenantMaxWaiting = Integer.getInteger(
+      "org.folio.metadata.inventory.http.client.tenant.max.waiting")
+
+    def circuitFailureThreshold = Integer.getInteger(
+      "org.folio.metadata.inventory.http.client.circuit.failure.threshold")
+
+    def circuitOpen = Long.getLong(
+      "org.folio.metadata.inventory.http.client.circuit.open.milliseconds")
+
+    def retryMaxAttempts = Integer.getInteger(
+      "org.folio.metadata.inventory.http.client.retry.max.attempts")
+
+    def referenceDataCacheSize = Long.getLong(
+      "org.folio.metadata.inventory.reference.data.cache.maximum.size")
+
+    def referenceDataCacheTtl = Long.getLong(
+      "org.folio.metadata.inventory.reference.data.cache.ttl.seconds")
+
+    def ingestBatchSize = Integer.getInteger(
+      "org.folio.metadata.inventory.ingest.batch.size")
+
+    def ingestMaxOutstandingBatches = Integer.getInteger(
+      "org.folio.metadata.inventory.ingest.max.outstanding.batches")
+
+    def ingestMaxStorageRequestsInFlight = Integer.getInteger(
+      "org.folio.metadata.inventory.ingest.max.storage.requests.in.flight")
+
+    def ingestJobsDirectory = System.getProperty(
+      "org.folio.metadata.inventory.ingest.jobs.directory")
+
+    def verticleInstances = Integer.getInteger(
+      "org.folio.metadata.inventory.verticle.instances")
+
+    def ingestWorkerPoolSize = Integer.getInteger(
+      "org.folio.metadata.inventory.ingest.worker.pool.size")
+
+    def diagnosticsLevel = System.getProperty(
+      "org.folio.metadata.inventory.diagnostics.level", null)
+
+    def diagnosticsSampleRate = System.getProperty(
+      "org.folio.metadata.inventory.diagnostics.sample.rate", null)
+
+    def diagnosticsTraceTenants = System.getProperty(
+      "org.folio.metadata.inventory.diagnostics.trace.tenants", null)
+
     putNonNullConfig("storage.type", storageType, config)
     putNonNullConfig("storage.location", storageLocation, config)
+    putNonNullConfig("storage.coalesce.reads", coalesceReads, config)
+    putNonNullConfig("storage.record.cache.enabled", recordCacheEnabled, config)
+    putNonNullConfig("storage.record.cache.maximum.size", recordCacheSize,
+      config)
+    putNonNullConfig("storage.record.cache.fresh.milliseconds",
+      recordCacheFresh, config)
     putNonNullConfig("port", port, config)
+    putNonNullConfig("http.client.max.pool.size", maxPoolSize, config)
+    putNonNullConfig("http.client.max.wait.queue.size", maxWaitQueueSize, config)
+    putNonNullConfig("http.client.keep.alive", keepAlive, config)
+    putNonNullConfig("http.server.compression", compression, config)
+    putNonNullConfig("http.client.pipelining", pipelining, config)
+    putNonNullConfig("http.client.deadline.milliseconds", deadline, config)
+    putNonNullConfig("http.client.tenant.max.in.flight", tenantMaxInFlight,
+      config)
+    putNonNullConfig("http.client.tenant.max.waiting", tenantMaxWaiting,
+      config)
+    putNonNullConfig("http.client.circuit.failure.threshold",
+      circuitFailureThreshold, config)
+    putNonNullConfig("http.client.circuit.open.milliseconds", circuitOpen,
+      config)
+    putNonNullConfig("http.client.retry.max.attempts", retryMaxAttempts,
+      config)
+
+    //Deadlines for individual operations, e.g. findByCql
+    System.properties.stringPropertyNames()
+      .findAll { it.startsWith("org.folio.metadata.inventory.http.client.deadline.") }
+      .each { putNonNullConfig(it - "org.folio.metadata.inventory.",
+        System.getProperty(it), config) }
+    putNonNullConfig("reference.data.cache.maximum.size",
+      referenceDataCacheSize, config)
+    putNonNullConfig("reference.data.cache.ttl.seconds",
+      referenceDataCacheTtl, config)
+    putNonNullConfig("ingest.batch.size", ingestBatchSize, config)
+    putNonNullConfig("ingest.max.outstanding.batches",
+      ingestMaxOutstandingBatches, config)
+    putNonNullConfig("ingest.max.storage.requests.in.flight",
+      ingestMaxStorageRequestsInFlight, config)
+    putNonNullConfig("ingest.jobs.directory", ingestJobsDirectory, config)
+    putNonNullConfig("verticle.instances", verticleInstances, config)
+    putNonNullConfig("ingest.worker.pool.size", ingestWorkerPoolSize, config)
+    putNonNullConfig("diagnostics.level", diagnosticsLevel, config)
+    putNonNullConfig("diagnostics.sample.rate", diagnosticsSampleRate, config)
+    putNonNullConfig("diagnostics.trace.tenants", diagnosticsTraceTenants,
+      config)
 
     start(config)
   }
@@ -41,8 +163,12 @@ public class Launcher {
 
     def deployed = new CompletableFuture()
 
+    //Defaults to an instance for each core, so that every event loop is used
+    def instances = config.get("verticle.instances",
+      Runtime.runtime.availableProcessors())
+
     vertxAssistant.deployGroovyVerticle(InventoryVerticle.class.name,
-      config, deployed)
+      config, Integer.parseInt(instances.toString()), deployed)
 
     deployed.thenAccept({ println "Server Started" })
 
@@ -72,6 +72,35 @@ class VertxAssistant {
       });
   }
 
+  /**
+   * Deploys many instances of the verticle on event loops (rather than a
+   * single worker instance)
+   */
+  void deployGroovyVerticle(String verticleClass,
+                            Map<String, Object> config,
+                            int instances,
+                            CompletableFuture<String> deployed) {
+
+    def startTime = System.currentTimeMillis()
+
+    def options = new DeploymentOptions()
+
+    options.config = new JsonObject(config)
+    options.instances = instances
+
+    vertx.deployVerticle("groovy:" + verticleClass,
+      options,
+      { res ->
+        if (res.succeeded()) {
+          def elapsedTime = System.currentTimeMillis() - startTime
+          println("${instances} instances of ${verticleClass} deployed in ${elapsedTime} milliseconds")
+          deployed.complete(res.result());
+        } else {
+          deployed.completeExceptionally(res.cause());
+        }
+      });
+  }
+
   void deployVerticle(String verticleClass,
                             Map<String, Object> config,
                             CompletableFuture<String> deployed) {
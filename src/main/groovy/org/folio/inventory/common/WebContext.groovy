@@ -5,6 +5,9 @@ import io.vertx.ext.web.RoutingContext
 class WebContext implements Context {
   private final RoutingContext routingContext
 
+  //Parsed once, as links are generated for every record in a response
+  private URL requestUrl
+
   WebContext(RoutingContext routingContext) {
     this.routingContext = routingContext
   }
@@ -40,7 +43,11 @@ class WebContext implements Context {
   }
 
   def URL absoluteUrl(String path) {
-    def currentRequestUrl = new URL(routingContext.request().absoluteURI())
+    if(requestUrl == null) {
+      requestUrl = new URL(routingContext.request().absoluteURI())
+    }
+
+    def currentRequestUrl = requestUrl
 
     //It would seem Okapi preserves headers from the original request,
     // so there is no need to use X-Okapi-Url for this?
@@ -1,27 +1,49 @@
 package org.folio.inventory.common
 
 import io.vertx.ext.web.RoutingContext
+import org.folio.inventory.support.diagnostics.DiagnosticLevel
+import org.folio.inventory.support.diagnostics.Diagnostics
 
 class WebRequestDiagnostics {
+  private static final String TENANT_HEADER = "X-Okapi-Tenant"
+  private static final String TOKEN_HEADER = "X-Okapi-Token"
 
   static void outputDiagnostics(RoutingContext routingContext) {
-
-    printf "Handling %s\n", routingContext.normalisedPath()
-    printf "Method: %s\n", routingContext.request().rawMethod()
-
-    outputHeaders routingContext
+    def diagnostics = Diagnostics.global()
+    def request = routingContext.request()
+    def tenantId = request.getHeader(TENANT_HEADER)
+
+    if((diagnostics.isTracing(tenantId)
+      || diagnostics.isEnabled(DiagnosticLevel.DEBUG))
+      && diagnostics.sampled(tenantId, routingContext.normalisedPath())) {
+
+      diagnostics.request(tenantId, {
+        diagnostics.includeDetail(tenantId)
+          ? describeWithHeaders(routingContext)
+          : describe(routingContext)
+      })
+    }
 
     routingContext.next()
   }
 
-  private static void outputHeaders(RoutingContext routingContext) {
-    println "Headers"
+  private static String describe(RoutingContext routingContext) {
+    "${routingContext.request().rawMethod()} ${routingContext.normalisedPath()}" +
+      " (tenant: ${routingContext.request().getHeader(TENANT_HEADER)})"
+  }
+
+  private static String describeWithHeaders(RoutingContext routingContext) {
+    def description = new StringBuilder(describe(routingContext))
+
+    def headers = routingContext.request().headers()
 
-    for (def name : routingContext.request().headers().names()) {
-      for (def entry : routingContext.request().headers().getAll(name))
-        printf "%s : %s\n", name, entry
+    for (def name : headers.names()) {
+      for (def value : headers.getAll(name)) {
+        description.append(" ${name}: ")
+          .append(name.equalsIgnoreCase(TOKEN_HEADER) ? "(redacted)" : value)
+      }
     }
 
-    println()
+    description.toString()
   }
 }
@@ -0,0 +1,34 @@
+package org.folio.inventory.common
+
+import io.vertx.ext.web.RoutingContext
+import org.folio.inventory.support.metrics.Metrics
+
+class WebRequestMetrics {
+  private static final String UNMATCHED_ROUTE = "unmatched"
+
+  /**
+   * Times each request until its response has been written, labelled by the
+   * route (rather than the path, so that IDs do not become labels) which
+   * responded. Methods which are not known are labelled OTHER, and the
+   * number of tenants is limited by Metrics, so that clients cannot create
+   * an unbounded number of histograms.
+   */
+  static void measure(RoutingContext routingContext) {
+    def startedAt = System.nanoTime()
+
+    routingContext.addBodyEndHandler({
+      def route = routingContext.currentRoute()?.path ?: UNMATCHED_ROUTE
+
+      Metrics.global().record(Metrics.HTTP_REQUESTS,
+        [
+          "route", route,
+          "method", routingContext.request().method().name(),
+          Metrics.TENANT_LABEL, routingContext.request().getHeader("X-Okapi-Tenant")
+        ] as String[],
+        Integer.toString(routingContext.response().statusCode),
+        System.nanoTime() - startedAt)
+    })
+
+    routingContext.next()
+  }
+}
@@ -2,10 +2,17 @@ package org.folio.inventory.common.api.request
 
 import io.vertx.core.json.JsonObject
 import io.vertx.ext.web.RoutingContext
+import org.folio.inventory.support.diagnostics.Diagnostics
 
 class VertxBodyParser {
   Map toMap(RoutingContext routingContext) {
-    println("Received Body: ${routingContext.bodyAsString}")
+    def tenantId = routingContext.request().getHeader("X-Okapi-Tenant")
+    def diagnostics = Diagnostics.global()
+
+    if(diagnostics.includeDetail(tenantId)) {
+      diagnostics.request(tenantId,
+        { "Received Body: ${routingContext.bodyAsString}".toString() })
+    }
 
     if (hasBody(routingContext)) {
       routingContext.getBodyAsJson().map
@@ -2,13 +2,32 @@ package org.folio.inventory.common.api.response
 
 import io.vertx.core.json.Json
 import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpServerRequest
 import io.vertx.core.http.HttpServerResponse
+import org.folio.inventory.support.http.server.EntityTags
+import org.folio.inventory.support.http.server.ResponseCompression
 
 class JsonResponse {
   static success(HttpServerResponse response, body) {
     jsonResponse(response, body, 200)
   }
 
+  /**
+   * With an entity tag, or 304 Not Modified when the request already has it
+   */
+  static success(
+    HttpServerRequest request,
+    HttpServerResponse response,
+    body) {
+
+    def buffer = Buffer.buffer(Json.encode(body), "UTF-8")
+
+    response.statusCode = 200
+    response.putHeader "content-type", "application/json; charset=utf-8"
+
+    EntityTags.end(request, response, buffer)
+  }
+
   static created(HttpServerResponse response, body) {
     jsonResponse(response, body, 201)
   }
@@ -16,16 +35,13 @@ class JsonResponse {
   private static void jsonResponse(
     HttpServerResponse response, body, Integer status) {
 
-    def json = Json.encodePrettily(body)
+    def json = Json.encode(body)
     def buffer = Buffer.buffer(json, "UTF-8")
 
     response.statusCode = status
     response.putHeader "content-type", "application/json; charset=utf-8"
-    response.putHeader "content-length", Integer.toString(buffer.length())
-
-    println("JSON Success: ${json}")
 
-    response.write(buffer)
-    response.end()
+    //Not compressed, as there is no request to negotiate a coding with
+    ResponseCompression.end(null, response, buffer)
   }
 }
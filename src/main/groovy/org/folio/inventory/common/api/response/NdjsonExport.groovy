@@ -0,0 +1,228 @@
+package org.folio.inventory.common.api.response
+
+import com.fasterxml.jackson.core.JsonGenerator
+import io.vertx.core.Vertx
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpServerRequest
+import io.vertx.core.http.HttpServerResponse
+import io.vertx.core.json.Json
+
+import java.util.concurrent.CompletableFuture
+import java.util.function.Consumer
+import java.util.function.Function
+import org.folio.inventory.support.diagnostics.Diagnostics
+import org.folio.inventory.support.http.server.ResponseCompression
+
+/**
+ * Writes every record of a collection to the response as newline delimited
+ * JSON, fetching a page at a time.
+ *
+ * The next page is fetched whilst the current one is being written, and
+ * writing pauses whilst the response's write queue is full, so that records
+ * are only fetched as quickly as the client reads them.
+ *
+ * Pages are requested by the ID of the last record in the previous page
+ * (see pageAfterQuery), so that each page is as quick to fetch as the first.
+ *
+ * The records are compressed when the client accepts it.
+ */
+class NdjsonExport {
+  public static final int DEFAULT_PAGE_SIZE = 1000
+
+  private static final int CHUNK_SIZE = 16 * 1024
+
+  private final Vertx vertx
+  private final HttpServerRequest request
+  private final HttpServerResponse response
+  private final Function<String, CompletableFuture<Page>> pageAfter
+
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream()
+  private OutputStream encoded
+  private JsonGenerator generator
+
+  private boolean started = false
+  private volatile boolean closed = false
+
+  /**
+   * @param pageAfter fetches the page following the record with the given ID
+   * (or the first page, when the ID is null)
+   */
+  NdjsonExport(
+    Vertx vertx,
+    HttpServerRequest request,
+    HttpServerResponse response,
+    Function<String, CompletableFuture<Page>> pageAfter) {
+
+    this.vertx = vertx
+    this.request = request
+    this.response = response
+    this.pageAfter = pageAfter
+  }
+
+  /**
+   * A query for all of the records in a collection in ID order,
+   * following the record with the given ID (when not null)
+   */
+  static String pageAfterQuery(String lastId) {
+    lastId == null
+      ? "cql.allRecords=1 sortBy id"
+      : "id>\"${lastId}\" sortBy id"
+  }
+
+  void start() {
+    response.closeHandler({ closed = true })
+
+    fetched(fetch(null))
+  }
+
+  /**
+   * Failures (including those thrown whilst starting to fetch the page) are
+   * passed on via the page, so that the export always ends
+   */
+  private CompletableFuture<Page> fetch(String lastId) {
+    try {
+      pageAfter.apply(lastId)
+    }
+    catch (Exception e) {
+      def failed = new CompletableFuture<Page>()
+      failed.completeExceptionally(e)
+      failed
+    }
+  }
+
+  private void fetched(CompletableFuture<Page> fetch) {
+    fetch.whenComplete({ Page page, Throwable error ->
+      //Writing is always continued on the context (rather than the thread
+      //completing the page) to avoid recursing through synchronous pages
+      vertx.runOnContext({
+        if(error != null) {
+          failed(error)
+        }
+        else {
+          if(!started) {
+            started = true
+
+            response.statusCode = 200
+            response.putHeader("content-type", "application/x-ndjson; charset=utf-8")
+            response.setChunked(true)
+
+            //Records are written to pending (once compressed, if they are),
+            //flushing would end a compressed block for every record
+            encoded = ResponseCompression.streamed(request, response, pending)
+
+            generator = Json.mapper.factory.createGenerator(encoded)
+            generator.setRootValueSeparator(null)
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+          }
+
+          def next = page.lastId == null || closed
+            ? null
+            : fetch(page.lastId)
+
+          writeRecords(page, 0, next)
+        }
+      })
+    })
+  }
+
+  private void writeRecords(
+    Page page,
+    int from,
+    CompletableFuture<Page> next) {
+
+    if(closed) {
+      return
+    }
+
+    try {
+      for(int index = from; index < page.records.size(); index++) {
+        page.records.get(index).accept(generator)
+        generator.writeRaw('\n' as char)
+        generator.flush()
+
+        if(pending.size() >= CHUNK_SIZE) {
+          writePending()
+
+          if(response.writeQueueFull()) {
+            def resumeFrom = index + 1
+
+            response.drainHandler({ writeRecords(page, resumeFrom, next) })
+            return
+          }
+        }
+      }
+    }
+    catch (Exception e) {
+      failed(e)
+      return
+    }
+
+    if(next == null) {
+      try {
+        generator.close()
+        encoded.close()
+      }
+      catch (Exception e) {
+        failed(e)
+        return
+      }
+
+      writePending()
+      response.end()
+    }
+    else {
+      fetched(next)
+    }
+  }
+
+  private void writePending() {
+    if(pending.size() > 0) {
+      response.write(Buffer.buffer(pending.toByteArray()))
+      pending.reset()
+    }
+  }
+
+  private void failed(Throwable error) {
+    Diagnostics.global().error(
+      "Export failed: ${error.cause?.message ?: error.message}")
+
+    if(!started) {
+      started = true
+
+      ServerErrorResponse.internalError(response,
+        error.cause?.message ?: error.message)
+    }
+    else if(!closed) {
+      //Too late to respond with an error, so the client does not mistake
+      //what has been written for the whole collection
+      response.close()
+    }
+  }
+
+  static class Page {
+    final List<Consumer<JsonGenerator>> records
+
+    /**
+     * null when this is the last page
+     */
+    final String lastId
+
+    Page(List<Consumer<JsonGenerator>> records, String lastId) {
+      this.records = records
+      this.lastId = lastId
+    }
+
+    /**
+     * @param ids in the same order as the records
+     */
+    static Page of(
+      List<Consumer<JsonGenerator>> records,
+      List<String> ids,
+      int pageSize) {
+
+      new Page(records, ids.size() < pageSize || ids.isEmpty()
+        ? null
+        : ids.last())
+    }
+  }
+}
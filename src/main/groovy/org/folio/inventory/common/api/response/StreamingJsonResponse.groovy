@@ -0,0 +1,70 @@
+package org.folio.inventory.common.api.response
+
+import com.fasterxml.jackson.core.JsonGenerator
+import io.vertx.core.http.HttpServerRequest
+import io.vertx.core.http.HttpServerResponse
+import io.vertx.core.json.Json
+import org.folio.inventory.support.http.server.EntityTags
+import org.folio.inventory.support.http.server.ResponseOutputStream
+
+import java.util.function.Consumer
+
+/**
+ * Writes the body as it is generated, in chunks, rather than building and
+ * encoding it all before responding. The body is formatted in the same way
+ * as by JsonResponse.
+ *
+ * When given the request, bodies up to EntityTags.MAXIMUM_TAGGED_BYTES
+ * are held back until complete, so they can be given an entity tag (and
+ * not sent to a client which already has them), and bodies are compressed
+ * when the client accepts it.
+ */
+class StreamingJsonResponse {
+  static success(HttpServerResponse response, Consumer<JsonGenerator> writeBody) {
+    success(null, response, writeBody)
+  }
+
+  static success(
+    HttpServerRequest request,
+    HttpServerResponse response,
+    Consumer<JsonGenerator> writeBody) {
+
+    def output = new ResponseOutputStream(request, response,
+      request == null ? 0 : EntityTags.MAXIMUM_TAGGED_BYTES)
+
+    response.statusCode = 200
+    response.putHeader "content-type", "application/json; charset=utf-8"
+
+    try {
+      def generator = Json.mapper.factory.createGenerator(output)
+
+      writeBody.accept(generator)
+
+      //Only closed when the body is complete, as closing also completes
+      //any unfinished objects and arrays
+      generator.close()
+      output.close()
+    }
+    catch (Exception e) {
+      if (output.hasWritten()) {
+        //Too late to respond with an error, so the client does not mistake
+        //what has been written for the whole response
+        response.close()
+      }
+      else {
+        ServerErrorResponse.internalError(response, e.toString())
+      }
+
+      return
+    }
+
+    def body = output.heldBack()
+
+    if(body != null) {
+      EntityTags.end(request, response, body)
+    }
+    else {
+      response.end()
+    }
+  }
+}
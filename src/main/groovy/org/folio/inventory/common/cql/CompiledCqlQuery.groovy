@@ -0,0 +1,78 @@
+package org.folio.inventory.common.cql
+
+import groovy.transform.CompileStatic
+
+import java.util.function.Predicate
+
+@CompileStatic
+class CompiledCqlQuery<T> {
+  final CqlNode query
+  final Predicate<T> predicate
+  final List<CqlSortKey> sortKeys
+
+  /**
+   * null when the query has no sort keys
+   */
+  final Comparator<T> comparator
+
+  CompiledCqlQuery(CqlNode query, Predicate<T> predicate) {
+    this(query, predicate, [], null)
+  }
+
+  CompiledCqlQuery(
+    CqlNode query,
+    Predicate<T> predicate,
+    List<CqlSortKey> sortKeys,
+    Comparator<T> comparator) {
+
+    this.query = query
+    this.predicate = predicate
+    this.sortKeys = sortKeys
+    this.comparator = comparator
+  }
+
+  /**
+   * An exact match on one of the properties which every record matching
+   * the query must satisfy, which can be used to narrow down the records
+   * to be tested
+   *
+   * @return index and term, or null if there is no such match
+   */
+  Tuple2<String, String> requiredEqualityOn(Collection<String> properties) {
+    requiredEqualityIn(query, properties)
+  }
+
+  private static Tuple2<String, String> requiredEqualityIn(
+    CqlNode node,
+    Collection<String> properties) {
+
+    if(node instanceof CqlComparison) {
+      def comparison = (CqlComparison)node
+
+      comparison.relation == "==" &&
+        properties.contains(comparison.index) &&
+        !CqlFilter.hasWildcards(comparison.term)
+        ? new Tuple2<String, String>(comparison.index,
+            CqlFilter.unescape(comparison.term))
+        : null
+    }
+    else if(node instanceof CqlBoolean) {
+      def booleanNode = (CqlBoolean)node
+
+      switch(booleanNode.operator) {
+        case "and":
+          return requiredEqualityIn(booleanNode.left, properties) ?:
+            requiredEqualityIn(booleanNode.right, properties)
+
+        case "not":
+          return requiredEqualityIn(booleanNode.left, properties)
+
+        default:
+          return null
+      }
+    }
+    else {
+      null
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package org.folio.inventory.common.cql
+
+class CqlBoolean implements CqlNode {
+  final String operator
+  final CqlNode left
+  final CqlNode right
+
+  CqlBoolean(String operator, CqlNode left, CqlNode right) {
+    this.operator = operator
+    this.left = left
+    this.right = right
+  }
+
+  @Override
+  String toString() {
+    "(${left} ${operator} ${right})"
+  }
+}
@@ -0,0 +1,18 @@
+package org.folio.inventory.common.cql
+
+class CqlComparison implements CqlNode {
+  final String index
+  final String relation
+  final String term
+
+  CqlComparison(String index, String relation, String term) {
+    this.index = index
+    this.relation = relation
+    this.term = term
+  }
+
+  @Override
+  String toString() {
+    "${index}${relation}\"${term}\""
+  }
+}
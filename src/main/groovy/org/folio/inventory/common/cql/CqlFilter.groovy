@@ -1,13 +1,344 @@
 package org.folio.inventory.common.cql
 
-class CqlFilter {
-  Closure filterBy(field, searchTerm) {
-    return {
-      if (searchTerm == null) {
-        true
-      } else {
-        it."${field}".contains(searchTerm)
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import groovy.transform.CompileStatic
+
+import java.util.function.Function
+import java.util.function.Predicate
+import java.util.regex.Pattern
+
+/**
+ * Compiles CQL queries into predicates over records, reading each property
+ * through an accessor looked up once per query rather than once per record.
+ *
+ * Compiled queries are cached by query string.
+ *
+ * == is an exact match (wildcards are allowed), <> is not an exact match
+ * and = matches every word in the term, ignoring case, or with wildcards
+ * matches the whole value, ignoring case. <, >, <= and >= compare the value
+ * with the term as strings.
+ *
+ * Records are sorted by the sortBy keys, with missing values last.
+ *
+ * Statically compiled, as predicates are applied to every record.
+ */
+@CompileStatic
+class CqlFilter<T> {
+  public static final int DEFAULT_MAXIMUM_COMPILED_QUERIES = 1000
+
+  private static final Pattern wordSeparator = Pattern.compile('[^\\p{L}\\p{N}]+')
+
+  private final Map<String, Function<T, Object>> accessors
+  private final Cache<String, CompiledCqlQuery<T>> compiledQueries
+
+  CqlFilter() {
+    this([:])
+  }
+
+  /**
+   * @param accessors for each property which can be queried, by index name,
+   * properties without an accessor are read dynamically
+   */
+  CqlFilter(Map<String, Function<T, Object>> accessors) {
+    this.accessors = accessors
+
+    compiledQueries = CacheBuilder.newBuilder()
+      .maximumSize(DEFAULT_MAXIMUM_COMPILED_QUERIES)
+      .build()
+  }
+
+  /**
+   * @throws IllegalArgumentException when the query cannot be parsed
+   */
+  CompiledCqlQuery<T> compile(String cqlQuery) {
+    def compiled = compiledQueries.getIfPresent(cqlQuery)
+
+    if(compiled == null) {
+      def parsed = new CqlParser().parseWithSortKeys(cqlQuery)
+
+      compiled = new CompiledCqlQuery<T>(parsed.first, toPredicate(parsed.first),
+        parsed.second, toComparator(parsed.second))
+
+      compiledQueries.put(cqlQuery, compiled)
+    }
+
+    compiled
+  }
+
+  static boolean hasWildcards(String term) {
+    for(int index = 0; index < term.length(); index++) {
+      char character = term.charAt(index)
+
+      if(character == '\\' as char) {
+        index++
+      }
+      else if(character == '*' as char || character == '?' as char) {
+        return true
+      }
+    }
+
+    false
+  }
+
+  static String unescape(String term) {
+    term.replaceAll('\\\\(.)', '$1')
+  }
+
+  private Predicate<T> toPredicate(CqlNode node) {
+    if(node instanceof CqlBoolean) {
+      def booleanNode = (CqlBoolean)node
+
+      def left = toPredicate(booleanNode.left)
+      def right = toPredicate(booleanNode.right)
+
+      switch(booleanNode.operator) {
+        case "and":
+          return left.and(right)
+        case "or":
+          return left.or(right)
+        default:
+          return left.and(right.negate())
+      }
+    }
+
+    def comparison = (CqlComparison)node
+
+    if(comparison.index.equalsIgnoreCase("cql.allRecords")) {
+      return new AllRecords<T>()
+    }
+
+    new PropertyMatches<T>(accessorFor(comparison.index),
+      matcherFor(comparison.relation, comparison.term))
+  }
+
+  /**
+   * @return null when there are no sort keys
+   */
+  private Comparator<T> toComparator(List<CqlSortKey> sortKeys) {
+    Comparator<T> combined = null
+
+    for(CqlSortKey key : sortKeys) {
+      Comparator<T> comparator = new PropertyOrder<T>(accessorFor(key.index))
+
+      if(key.descending) {
+        comparator = comparator.reversed()
+      }
+
+      combined = combined == null ? comparator : combined.thenComparing(comparator)
+    }
+
+    combined
+  }
+
+  private Function<T, Object> accessorFor(String index) {
+    def accessor = accessors.get(index)
+
+    accessor != null ? accessor : new DynamicProperty<T>(index)
+  }
+
+  private static Predicate<String> matcherFor(String relation, String term) {
+    switch(relation) {
+      case "==":
+        return equalityMatcher(term)
+
+      case "<>":
+        return equalityMatcher(term).negate()
+
+      case "<":
+      case ">":
+      case "<=":
+      case ">=":
+        return new OrderMatcher(unescape(term), relation)
+
+      default:
+        return hasWildcards(term)
+          ? patternMatcher(term, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+          : new AllWordsMatcher(unescape(term))
+    }
+  }
+
+  private static Predicate<String> equalityMatcher(String term) {
+    hasWildcards(term)
+      ? patternMatcher(term, 0)
+      : new EqualityMatcher(unescape(term))
+  }
+
+  private static Predicate<String> patternMatcher(String term, int flags) {
+    def regex = new StringBuilder()
+
+    for(int index = 0; index < term.length(); index++) {
+      char character = term.charAt(index)
+
+      if(character == '\\' as char && index + 1 < term.length()) {
+        regex.append(Pattern.quote(String.valueOf(term.charAt(++index))))
+      }
+      else if(character == '*' as char) {
+        regex.append(".*")
+      }
+      else if(character == '?' as char) {
+        regex.append(".")
+      }
+      else {
+        regex.append(Pattern.quote(String.valueOf(character)))
       }
     }
+
+    new PatternMatcher(Pattern.compile(regex.toString(), flags | Pattern.DOTALL))
+  }
+
+  private static Set<String> words(String text) {
+    def words = new HashSet<String>()
+
+    for(String word : wordSeparator.split(text.toLowerCase())) {
+      if(!word.isEmpty()) {
+        words.add(word)
+      }
+    }
+
+    words
+  }
+
+  //Predicates, comparators and accessors are classes, rather than closures
+  //coerced to interfaces, so that calls to them are not made via a proxy
+
+  private static class AllRecords<T> implements Predicate<T> {
+    @Override
+    boolean test(T record) {
+      true
+    }
+  }
+
+  private static class PropertyMatches<T> implements Predicate<T> {
+    private final Function<T, Object> accessor
+    private final Predicate<String> matcher
+
+    PropertyMatches(Function<T, Object> accessor, Predicate<String> matcher) {
+      this.accessor = accessor
+      this.matcher = matcher
+    }
+
+    @Override
+    boolean test(T record) {
+      def value = accessor.apply(record)
+
+      matcher.test(value == null ? null : value.toString())
+    }
+  }
+
+  private static class PropertyOrder<T> implements Comparator<T> {
+    private final Function<T, Object> accessor
+
+    PropertyOrder(Function<T, Object> accessor) {
+      this.accessor = accessor
+    }
+
+    @Override
+    int compare(T first, T second) {
+      compareValues(accessor.apply(first), accessor.apply(second))
+    }
+
+    private static int compareValues(Object first, Object second) {
+      if(first == null || second == null) {
+        return first == null ? (second == null ? 0 : 1) : -1
+      }
+
+      if(first instanceof Comparable && first.getClass() == second.getClass()) {
+        return ((Comparable)first).compareTo(second)
+      }
+
+      first.toString().compareTo(second.toString())
+    }
+  }
+
+  /**
+   * Reads a property without an accessor, from a map or through the meta class
+   */
+  private static class DynamicProperty<T> implements Function<T, Object> {
+    private final String name
+
+    DynamicProperty(String name) {
+      this.name = name
+    }
+
+    @Override
+    Object apply(T record) {
+      if(record instanceof Map) {
+        return ((Map)record).get(name)
+      }
+
+      def property = record == null ? null : record.hasProperty(name)
+
+      property == null ? null : property.getProperty(record)
+    }
+  }
+
+  private static class EqualityMatcher implements Predicate<String> {
+    private final String term
+
+    EqualityMatcher(String term) {
+      this.term = term
+    }
+
+    @Override
+    boolean test(String value) {
+      term.equals(value)
+    }
+  }
+
+  private static class OrderMatcher implements Predicate<String> {
+    private final String term
+    private final String relation
+
+    OrderMatcher(String term, String relation) {
+      this.term = term
+      this.relation = relation
+    }
+
+    @Override
+    boolean test(String value) {
+      if(value == null) {
+        return false
+      }
+
+      int comparison = value.compareTo(term)
+
+      switch(relation) {
+        case "<":
+          return comparison < 0
+        case ">":
+          return comparison > 0
+        case "<=":
+          return comparison <= 0
+        default:
+          return comparison >= 0
+      }
+    }
+  }
+
+  private static class PatternMatcher implements Predicate<String> {
+    private final Pattern pattern
+
+    PatternMatcher(Pattern pattern) {
+      this.pattern = pattern
+    }
+
+    @Override
+    boolean test(String value) {
+      value != null && pattern.matcher(value).matches()
+    }
+  }
+
+  private static class AllWordsMatcher implements Predicate<String> {
+    private final Set<String> termWords
+
+    AllWordsMatcher(String term) {
+      this.termWords = words(term)
+    }
+
+    @Override
+    boolean test(String value) {
+      value != null && words(value).containsAll(termWords)
+    }
   }
 }
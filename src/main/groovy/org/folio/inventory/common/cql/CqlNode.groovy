@@ -0,0 +1,4 @@
+package org.folio.inventory.common.cql
+
+interface CqlNode {
+}
@@ -1,18 +1,298 @@
 package org.folio.inventory.common.cql
 
+/**
+ * Parses the subset of CQL used against inventory storage:
+ *
+ * index relation term, using ==, <> and = (with * and ? wildcards),
+ * combined with and, or and not (which have equal precedence and are
+ * evaluated left to right, as in CQL), grouped by parentheses.
+ *
+ * A parenthesised group following a relation applies that index and relation
+ * to each term in the group, e.g. id==(1 or 2). <, >, <= and >= compare
+ * terms as strings.
+ *
+ * Sort keys follow sortBy, each may have a /sort.ascending or
+ * /sort.descending modifier.
+ *
+ * Backslash escapes are kept in the terms, so that escaped wildcards can be
+ * distinguished from those which are not.
+ */
 class CqlParser {
-  Tuple2<String, String> parseCql(String cqlQuery) {
-    if(cqlQuery == null) {
-      new Tuple2<String, String>(null, null)
+  private static final List<String> relations = ["==", "<>", "<=", ">=", "=", "<", ">"]
+  private static final List<String> booleans = ["and", "or", "not"]
+
+  CqlNode parse(String cqlQuery) {
+    parseWithSortKeys(cqlQuery).first
+  }
+
+  Tuple2<CqlNode, List<CqlSortKey>> parseWithSortKeys(String cqlQuery) {
+    if(cqlQuery == null || cqlQuery.trim().isEmpty()) {
+      throw new IllegalArgumentException("CQL query must not be empty")
+    }
+
+    def tokens = new Tokens(tokenise(cqlQuery), cqlQuery)
+
+    def query = parseQuery(tokens, null, null)
+
+    List<CqlSortKey> sortKeys = []
+
+    if(tokens.hasNext()) {
+      if(!tokens.peekIsWord("sortBy")) {
+        throw tokens.unexpected()
+      }
+
+      tokens.next()
+
+      while(tokens.hasNext()) {
+        sortKeys.add(toSortKey(tokens.nextTerm().text))
+      }
+
+      if(sortKeys.isEmpty()) {
+        throw new IllegalArgumentException(
+          "CQL query must have an index after sortBy: ${cqlQuery}")
+      }
     }
-    else {
-      def parts = cqlQuery.replaceAll("\"", "").split("=")
 
-      if(parts.size() != 2)
-        throw new IllegalArgumentException("CQL Query should have two parts")
+    new Tuple2<CqlNode, List<CqlSortKey>>(query, sortKeys)
+  }
+
+  private static CqlSortKey toSortKey(String text) {
+    def parts = text.split("/")
+
+    def descending = false
+
+    parts.drop(1).each { modifier ->
+      switch(modifier.toLowerCase()) {
+        case "sort.descending":
+          descending = true
+          break
+
+        case "sort.ascending":
+          descending = false
+          break
+
+        default:
+          throw new IllegalArgumentException(
+            "CQL sort modifier ${modifier} is not supported")
+      }
+    }
+
+    new CqlSortKey(parts[0], descending)
+  }
+
+  private CqlNode parseQuery(
+    Tokens tokens,
+    String inheritedIndex,
+    String inheritedRelation) {
+
+    def node = parseClause(tokens, inheritedIndex, inheritedRelation)
+
+    while(tokens.hasNext() && isBoolean(tokens.peek())) {
+      def operator = tokens.next().text.toLowerCase()
+
+      def right = parseClause(tokens, inheritedIndex, inheritedRelation)
+
+      node = new CqlBoolean(operator, node, right)
+    }
+
+    node
+  }
+
+  private CqlNode parseClause(
+    Tokens tokens,
+    String inheritedIndex,
+    String inheritedRelation) {
+
+    if(tokens.peekIs("(")) {
+      tokens.next()
+
+      def group = parseQuery(tokens, inheritedIndex, inheritedRelation)
+
+      tokens.expect(")")
+
+      return group
+    }
+
+    def first = tokens.nextTerm()
+
+    if(tokens.hasNext() && tokens.peek().isRelation()) {
+      def relation = tokens.next().text
+
+      if(tokens.peekIs("(")) {
+        tokens.next()
+
+        def group = parseQuery(tokens, first.text, relation)
+
+        tokens.expect(")")
+
+        return group
+      }
+
+      return new CqlComparison(first.text, relation, tokens.nextTerm().text)
+    }
+
+    if(inheritedIndex != null) {
+      return new CqlComparison(inheritedIndex, inheritedRelation, first.text)
+    }
+
+    throw new IllegalArgumentException(
+      "CQL query must have an index and relation before the term ${first.text}")
+  }
+
+  private static boolean isBoolean(Token token) {
+    !token.quoted && token.kind == Token.WORD &&
+      booleans.contains(token.text.toLowerCase())
+  }
+
+  private static List<Token> tokenise(String query) {
+    def tokens = []
+    def position = 0
+
+    while(position < query.length()) {
+      def character = query.charAt(position)
+
+      if(Character.isWhitespace(character)) {
+        position++
+      }
+      else if(character == '(' as char || character == ')' as char) {
+        tokens.add(new Token(Token.PUNCTUATION, character.toString(), false))
+        position++
+      }
+      else if(character == '"' as char) {
+        def term = new StringBuilder()
+
+        position++
+
+        while(position < query.length() && query.charAt(position) != '"' as char) {
+          if(query.charAt(position) == '\\' as char && position + 1 < query.length()) {
+            term.append(query.charAt(position)).append(query.charAt(position + 1))
+            position += 2
+          }
+          else {
+            term.append(query.charAt(position))
+            position++
+          }
+        }
+
+        if(position >= query.length()) {
+          throw new IllegalArgumentException(
+            "CQL query has an unterminated quoted term: ${query}")
+        }
+
+        position++
+
+        tokens.add(new Token(Token.WORD, term.toString(), true))
+      }
       else {
-        new Tuple2(parts[0], parts[1].replaceAll("\\*", ""))
+        def relation = relations.find { query.startsWith(it, position) }
+
+        if(relation != null) {
+          tokens.add(new Token(Token.RELATION, relation, false))
+          position += relation.length()
+        }
+        else {
+          def start = position
+
+          while(position < query.length() && !endsWord(query, position)) {
+            position += query.charAt(position) == '\\' as char ? 2 : 1
+          }
+
+          position = Math.min(position, query.length())
+
+          tokens.add(new Token(Token.WORD, query.substring(start, position), false))
+        }
       }
     }
+
+    tokens
+  }
+
+  private static boolean endsWord(String query, int position) {
+    def character = query.charAt(position)
+
+    Character.isWhitespace(character) ||
+      "()\"=<>".indexOf(character as int) != -1
+  }
+
+  private static class Token {
+    static final String WORD = "word"
+    static final String RELATION = "relation"
+    static final String PUNCTUATION = "punctuation"
+
+    final String kind
+    final String text
+    final boolean quoted
+
+    Token(String kind, String text, boolean quoted) {
+      this.kind = kind
+      this.text = text
+      this.quoted = quoted
+    }
+
+    boolean isRelation() {
+      kind == RELATION
+    }
+  }
+
+  private static class Tokens {
+    private final List<Token> tokens
+    private final String query
+    private int position = 0
+
+    Tokens(List<Token> tokens, String query) {
+      this.tokens = tokens
+      this.query = query
+    }
+
+    boolean hasNext() {
+      position < tokens.size()
+    }
+
+    Token peek() {
+      tokens.get(position)
+    }
+
+    boolean peekIs(String punctuation) {
+      hasNext() && peek().kind == Token.PUNCTUATION && peek().text == punctuation
+    }
+
+    boolean peekIsWord(String word) {
+      hasNext() && peek().kind == Token.WORD && !peek().quoted &&
+        peek().text.equalsIgnoreCase(word)
+    }
+
+    Token next() {
+      if(!hasNext()) {
+        throw new IllegalArgumentException("CQL query ended unexpectedly: ${query}")
+      }
+
+      tokens.get(position++)
+    }
+
+    Token nextTerm() {
+      def token = next()
+
+      if(token.kind != Token.WORD) {
+        position--
+        throw unexpected()
+      }
+
+      token
+    }
+
+    void expect(String punctuation) {
+      if(!peekIs(punctuation)) {
+        throw hasNext()
+          ? unexpected()
+          : new IllegalArgumentException("CQL query is missing ${punctuation}: ${query}")
+      }
+
+      next()
+    }
+
+    IllegalArgumentException unexpected() {
+      new IllegalArgumentException(
+        "Unexpected ${peek().text} in CQL query: ${query}")
+    }
   }
 }
@@ -0,0 +1,16 @@
+package org.folio.inventory.common.cql
+
+class CqlSortKey {
+  final String index
+  final boolean descending
+
+  CqlSortKey(String index, boolean descending) {
+    this.index = index
+    this.descending = descending
+  }
+
+  @Override
+  String toString() {
+    descending ? "${index}/sort.descending" : index
+  }
+}
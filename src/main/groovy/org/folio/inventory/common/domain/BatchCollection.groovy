@@ -1,6 +1,14 @@
 package org.folio.inventory.common.domain
 
+import java.util.function.Consumer
+
 interface BatchCollection<T> {
-  List<T> add(List<T> items)
-//    void add(List<T> collection, Closure resultCallback)
+  /**
+   * Adds many records, with a result for each record in the same order as
+   * the records were provided. The failure callback is only used when
+   * none of the records could be attempted.
+   */
+  void addAll(List<T> items,
+              Consumer<Success<List<BatchResult<T>>>> resultCallback,
+              Consumer<Failure> failureCallback)
 }
@@ -0,0 +1,23 @@
+package org.folio.inventory.common.domain
+
+class BatchResult<T> {
+  final T record
+  final Failure failure
+
+  private BatchResult(T record, Failure failure) {
+    this.record = record
+    this.failure = failure
+  }
+
+  static <T> BatchResult<T> succeeded(T record) {
+    new BatchResult<T>(record, null)
+  }
+
+  static <T> BatchResult<T> failed(Failure failure) {
+    new BatchResult<T>(null, failure)
+  }
+
+  boolean succeeded() {
+    failure == null
+  }
+}
@@ -1,16 +1,23 @@
 package org.folio.inventory.common.messaging
 
+import io.vertx.core.AsyncResult
+import io.vertx.core.Handler
 import io.vertx.core.Vertx
 import io.vertx.core.eventbus.DeliveryOptions
 import io.vertx.core.eventbus.EventBus
+import io.vertx.core.eventbus.Message
 import io.vertx.core.json.JsonObject
 
+/**
+ * A message with headers, whose body is JSON, or a type with a default
+ * codec registered on the event bus (e.g. an ingest batch)
+ */
 class JsonMessage {
   private final String address
   private final Map headers
-  private final JsonObject body
+  private final Object body
 
-  JsonMessage(String address, Map headers, JsonObject body) {
+  JsonMessage(String address, Map headers, Object body) {
     this.address = address
     this.headers = headers
     this.body = body
@@ -21,13 +28,29 @@ class JsonMessage {
   }
 
   void send(EventBus eventBus) {
-    def options = new DeliveryOptions()
+    eventBus.send(
+      address,
+      body,
+      deliveryOptions())
+  }
 
-    headers.each { options.addHeader(it.key, it.value) }
+  void send(
+    EventBus eventBus,
+    long replyTimeoutMilliseconds,
+    Handler<AsyncResult<Message<JsonObject>>> replyHandler) {
 
     eventBus.send(
       address,
       body,
-      options)
+      deliveryOptions().setSendTimeout(replyTimeoutMilliseconds),
+      replyHandler)
+  }
+
+  private DeliveryOptions deliveryOptions() {
+    def options = new DeliveryOptions()
+
+    headers.each { options.addHeader(it.key, it.value) }
+
+    options
   }
 }
@@ -3,40 +3,117 @@ package org.folio.inventory.common.storage.memory
 import org.folio.inventory.common.api.request.PagingParameters
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.common.cql.CqlFilter
-import org.folio.inventory.common.cql.CqlParser
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ConcurrentSkipListMap
+import java.util.concurrent.atomic.AtomicLong
 import java.util.function.Consumer
+import java.util.function.Function
 
+/**
+ * Records are held by id, in the order they were added, with optional
+ * secondary indexes on properties (e.g. barcode) used for equality queries.
+ *
+ * Changes are made one at a time, reads do not wait for changes and may not
+ * see those still in progress.
+ */
 //TODO: truly asynchronous implementation
 class InMemoryCollection<T> {
+  private final ConcurrentMap<String, Long> positionsById =
+    new ConcurrentHashMap<>()
 
-  public final List<T> items = new ArrayList<T>()
+  private final ConcurrentSkipListMap<Long, T> recordsInOrder =
+    new ConcurrentSkipListMap<>()
+
+  private final AtomicLong nextPosition = new AtomicLong()
+
+  private final Map<String, Closure> indexedProperties = [:]
+  private final Map<String, ConcurrentMap<String, Set<String>>> indexes = [:]
+
+  private final CqlFilter<T> cqlFilter
+
+  private final Object changeLock = new Object()
+
+  InMemoryCollection() {
+    this([:], [])
+  }
+
+  /**
+   * @param properties accessors for each property which can be queried, by property name
+   * @param indexedProperties names of the properties to be indexed for equality queries
+   */
+  InMemoryCollection(
+    Map<String, Closure> properties,
+    Collection<String> indexedProperties) {
+
+    this.cqlFilter = new CqlFilter<T>(properties.collectEntries {
+      [(it.key): it.value as Function<T, Object>]
+    })
+
+    indexedProperties.each {
+      if(!properties.containsKey(it)) {
+        throw new IllegalArgumentException(
+          "Indexed property ${it} must have an accessor")
+      }
+
+      this.indexedProperties.put(it, properties.get(it))
+      indexes.put(it, new ConcurrentHashMap<String, Set<String>>())
+    }
+  }
 
   List<T> find(Closure matcher) {
-    items.findAll(matcher)
+    recordsInOrder.values().findAll(matcher)
   }
 
   List<T> all() {
-    items.collect()
+    new ArrayList<T>(recordsInOrder.values())
+  }
+
+  /**
+   * Records which have the value for an indexed property, in the order
+   * they were added
+   */
+  List<T> findByIndex(String propertyName, Object value) {
+    def index = indexes.get(propertyName)
+
+    if(index == null) {
+      throw new IllegalArgumentException(
+        "${propertyName} is not an indexed property")
+    }
+
+    def ids = value == null ? null : index.get(value.toString())
+
+    if(ids == null) {
+      return []
+    }
+
+    ids.collect { positionsById.get(it) }
+      .findAll { it != null }
+      .sort()
+      .collect { recordsInOrder.get(it) }
+      .findAll { it != null }
   }
 
   void some(PagingParameters pagingParameters,
             String collectionName,
             Consumer<Success<Map>> resultCallback) {
 
-    def totalRecords = all().size()
-
-    def paged = all().stream()
+    def paged = recordsInOrder.values().stream()
       .skip(pagingParameters.offset)
       .limit(pagingParameters.limit)
       .collect()
 
     resultCallback.accept(new Success(
-      wrapFindResult(collectionName, paged, totalRecords)))
+      wrapFindResult(collectionName, paged, recordsInOrder.size())))
   }
 
   void findOne(Closure matcher, Consumer<Success<T>> successCallback) {
-    successCallback.accept(new Success(items.find(matcher)))
+    successCallback.accept(new Success(recordsInOrder.values().find(matcher)))
+  }
+
+  void findById(String id, Consumer<Success<T>> successCallback) {
+    successCallback.accept(new Success(getById(id)))
   }
 
   void find(String cqlQuery,
@@ -44,11 +121,28 @@ class InMemoryCollection<T> {
             String collectionName,
             Consumer<Success<Map>> resultCallback) {
 
-    def (field, searchTerm) = new CqlParser().parseCql(cqlQuery)
+    List<T> filtered
 
-    def filtered = all().stream()
-      .filter(new CqlFilter().filterBy(field, searchTerm))
-      .collect()
+    if(cqlQuery == null || cqlQuery.trim().isEmpty()) {
+      filtered = all()
+    }
+    else {
+      def query = cqlFilter.compile(cqlQuery)
+
+      def equality = query.requiredEqualityOn(indexes.keySet())
+
+      Collection<T> candidates = equality == null
+        ? recordsInOrder.values()
+        : findByIndex(equality.first, equality.second)
+
+      filtered = candidates.stream()
+        .filter(query.predicate)
+        .collect()
+
+      if(query.comparator != null) {
+        filtered.sort(query.comparator)
+      }
+    }
 
     def paged = filtered.stream()
       .skip(pagingParameters.offset)
@@ -60,26 +154,105 @@ class InMemoryCollection<T> {
   }
 
   void add(T item, Consumer<Success<T>> resultCallback) {
-    items.add(item)
+    synchronized (changeLock) {
+      store(item)
+    }
+
     resultCallback.accept(new Success<T>(item))
   }
 
+  void addAll(List<T> itemsToAdd, Consumer<Success<List<T>>> resultCallback) {
+    synchronized (changeLock) {
+      itemsToAdd.each { store(it) }
+    }
+
+    resultCallback.accept(new Success<List<T>>(itemsToAdd))
+  }
+
   void replace(T item, Consumer<Success> completionCallback) {
-    items.removeIf({ it.id == item.id })
-    items.add(item)
+    synchronized (changeLock) {
+      removeById(item.id)
+      store(item)
+    }
+
     completionCallback.accept(new Success(null))
   }
 
   void empty(Consumer<Success> completionCallback) {
-    items.clear()
+    synchronized (changeLock) {
+      positionsById.clear()
+      recordsInOrder.clear()
+      indexes.values().each { it.clear() }
+    }
+
     completionCallback.accept(new Success())
   }
 
   void remove(String id, Consumer<Success> completionCallback) {
-    items.removeIf({ it.id == id })
+    synchronized (changeLock) {
+      removeById(id)
+    }
+
     completionCallback.accept(new Success())
   }
 
+  private T getById(String id) {
+    def position = id == null ? null : positionsById.get(id)
+
+    position == null ? null : recordsInOrder.get(position)
+  }
+
+  private void store(T item) {
+    def position = nextPosition.getAndIncrement()
+
+    //Records added with the same id replace those already present
+    removeById(item.id)
+
+    positionsById.put(item.id, position)
+    recordsInOrder.put(position, item)
+
+    indexedProperties.each { propertyName, accessor ->
+      def value = accessor(item)
+
+      if(value != null) {
+        indexes.get(propertyName)
+          .computeIfAbsent(value.toString(), { ConcurrentHashMap.newKeySet() })
+          .add(item.id)
+      }
+    }
+  }
+
+  private void removeById(String id) {
+    def position = id == null ? null : positionsById.remove(id)
+
+    if(position == null) {
+      return
+    }
+
+    def removed = recordsInOrder.remove(position)
+
+    if(removed == null) {
+      return
+    }
+
+    indexedProperties.each { propertyName, accessor ->
+      def value = accessor(removed)
+
+      if(value != null) {
+        def index = indexes.get(propertyName)
+        def ids = index.get(value.toString())
+
+        if(ids != null) {
+          ids.remove(id)
+
+          if(ids.isEmpty()) {
+            index.remove(value.toString(), ids)
+          }
+        }
+      }
+    }
+  }
+
   private Map wrapFindResult(
     String collectionName,
     Collection pagedRecords,
@@ -35,7 +35,7 @@ class Instance {
 
   @Override
   public String toString() {
-    println ("Instance ID: ${id}, Title: ${title}")
+    "Instance ID: ${id}, Title: ${title}"
   }
 
   Instance removeIdentifier(String namespace, String value) {
@@ -1,6 +1,9 @@
 package org.folio.inventory.domain
 
+import org.folio.inventory.common.domain.BatchCollection
+
 interface InstanceCollection
   extends AsynchronousCollection<Instance>,
-    SearchableCollection<Instance> {
+    SearchableCollection<Instance>,
+    BatchCollection<Instance> {
 }
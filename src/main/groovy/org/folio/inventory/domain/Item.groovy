@@ -46,6 +46,6 @@ class Item {
 
   @Override
   String toString() {
-    println ("Item ID: ${id}, Title: ${title}, Barcode: ${barcode}")
+    "Item ID: ${id}, Title: ${title}, Barcode: ${barcode}"
   }
 }
@@ -1,6 +1,9 @@
 package org.folio.inventory.domain
 
+import org.folio.inventory.common.domain.BatchCollection
+
 interface ItemCollection
   extends AsynchronousCollection<Item>,
-    SearchableCollection<Item> {
+    SearchableCollection<Item>,
+    BatchCollection<Item> {
 }
@@ -1,7 +1,7 @@
 package org.folio.inventory.domain
 
 enum Messages {
-  START_INGEST("org.folio.inventory.ingest.start"),
+  INGEST_BATCH("org.folio.inventory.ingest.batch"),
   INGEST_COMPLETED("org.folio.inventory.ingest.completed")
 
   public final Address
@@ -0,0 +1,30 @@
+package org.folio.inventory.domain.ingest
+
+import groovy.transform.CompileStatic
+
+/**
+ * Records to be ingested together, along with the reference data (material
+ * and loan type ids by name) needed to create their items.
+ *
+ * Immutable, so that it can be delivered to a local consumer by reference,
+ * see IngestBatchCodec
+ */
+@CompileStatic
+final class IngestBatch {
+  final List<IngestRecord> records
+  final Map<String, String> materialTypes
+  final Map<String, String> loanTypes
+
+  IngestBatch(
+    List<IngestRecord> records,
+    Map<String, String> materialTypes,
+    Map<String, String> loanTypes) {
+
+    this.records = Collections.unmodifiableList(
+      new ArrayList<IngestRecord>(records))
+    this.materialTypes = Collections.unmodifiableMap(
+      new LinkedHashMap<String, String>(materialTypes))
+    this.loanTypes = Collections.unmodifiableMap(
+      new LinkedHashMap<String, String>(loanTypes))
+  }
+}
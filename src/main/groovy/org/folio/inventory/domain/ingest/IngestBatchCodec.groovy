@@ -0,0 +1,194 @@
+package org.folio.inventory.domain.ingest
+
+import groovy.transform.CompileStatic
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.eventbus.EventBus
+import io.vertx.core.eventbus.MessageCodec
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Sends ingest batches over the event bus without converting them to JSON.
+ *
+ * Batches delivered within the process are passed by reference, as they
+ * are immutable. Only when a batch is sent to another node of a clustered
+ * event bus is it encoded (once), in a compact binary form: a length, a
+ * version, the material and loan types and then each record, with strings
+ * as their UTF-8 length (or -1 for null) followed by their bytes.
+ */
+@CompileStatic
+class IngestBatchCodec implements MessageCodec<IngestBatch, IngestBatch> {
+  public static final String NAME = "ingest-batch"
+
+  private static final byte VERSION = (byte)1
+  private static final int NULL_LENGTH = -1
+
+  private static final Set<EventBus> registeredOn =
+    Collections.newSetFromMap(new WeakHashMap<EventBus, Boolean>())
+
+  /**
+   * Registers the codec as the default for ingest batches, once for each
+   * event bus (which is shared by every verticle instance)
+   */
+  static void registerOn(EventBus eventBus) {
+    synchronized (registeredOn) {
+      if(registeredOn.add(eventBus)) {
+        eventBus.registerDefaultCodec(IngestBatch, new IngestBatchCodec())
+      }
+    }
+  }
+
+  @Override
+  void encodeToWire(Buffer buffer, IngestBatch batch) {
+    int lengthPosition = buffer.length()
+
+    //Replaced by the length once the batch has been written
+    buffer.appendInt(0)
+    buffer.appendByte(VERSION)
+
+    writeMap(buffer, batch.materialTypes)
+    writeMap(buffer, batch.loanTypes)
+
+    buffer.appendInt(batch.records.size())
+
+    for(IngestRecord record : batch.records) {
+      writeString(buffer, record.instanceId)
+      writeString(buffer, record.title)
+      writeString(buffer, record.barcode)
+
+      buffer.appendInt(record.identifiers.size())
+
+      for(Map<String, String> identifier : record.identifiers) {
+        writeMap(buffer, identifier)
+      }
+    }
+
+    buffer.setInt(lengthPosition, buffer.length() - lengthPosition - 4)
+  }
+
+  @Override
+  IngestBatch decodeFromWire(int position, Buffer buffer) {
+    def reader = new Reader(buffer, position + 4)
+
+    byte version = reader.readByte()
+
+    if(version != VERSION) {
+      throw new IllegalStateException(
+        "Unsupported ingest batch encoding version: ${version}".toString())
+    }
+
+    def materialTypes = reader.readMap()
+    def loanTypes = reader.readMap()
+
+    int recordCount = reader.readInt()
+    def records = new ArrayList<IngestRecord>(recordCount)
+
+    for(int recordIndex = 0; recordIndex < recordCount; recordIndex++) {
+      def instanceId = reader.readString()
+      def title = reader.readString()
+      def barcode = reader.readString()
+
+      int identifierCount = reader.readInt()
+      def identifiers = new ArrayList<Map<String, String>>(identifierCount)
+
+      for(int identifierIndex = 0; identifierIndex < identifierCount;
+          identifierIndex++) {
+
+        identifiers.add(reader.readMap())
+      }
+
+      records.add(new IngestRecord(instanceId, title, barcode, identifiers))
+    }
+
+    new IngestBatch(records, materialTypes, loanTypes)
+  }
+
+  /**
+   * Delivered locally by reference, a batch cannot be changed
+   */
+  @Override
+  IngestBatch transform(IngestBatch batch) {
+    batch
+  }
+
+  @Override
+  String name() {
+    NAME
+  }
+
+  @Override
+  byte systemCodecID() {
+    //Not a system codec
+    (byte)-1
+  }
+
+  private static void writeMap(Buffer buffer, Map<String, String> map) {
+    buffer.appendInt(map.size())
+
+    map.each { String key, String value ->
+      writeString(buffer, key)
+      writeString(buffer, value)
+    }
+  }
+
+  private static void writeString(Buffer buffer, String value) {
+    if(value == null) {
+      buffer.appendInt(NULL_LENGTH)
+      return
+    }
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8)
+
+    buffer.appendInt(bytes.length)
+    buffer.appendBytes(bytes)
+  }
+
+  private static class Reader {
+    private final Buffer buffer
+    private int position
+
+    Reader(Buffer buffer, int position) {
+      this.buffer = buffer
+      this.position = position
+    }
+
+    byte readByte() {
+      byte value = buffer.getByte(position)
+      position += 1
+      value
+    }
+
+    int readInt() {
+      int value = buffer.getInt(position)
+      position += 4
+      value
+    }
+
+    String readString() {
+      int length = readInt()
+
+      if(length == NULL_LENGTH) {
+        return null
+      }
+
+      def value = new String(buffer.getBytes(position, position + length),
+        StandardCharsets.UTF_8)
+
+      position += length
+
+      value
+    }
+
+    Map<String, String> readMap() {
+      int size = readInt()
+      def map = new LinkedHashMap<String, String>()
+
+      for(int index = 0; index < size; index++) {
+        def key = readString()
+        map.put(key, readString())
+      }
+
+      map
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package org.folio.inventory.domain.ingest
+
+import io.vertx.core.AsyncResult
+import io.vertx.core.eventbus.EventBus
+import io.vertx.core.eventbus.Message
+import io.vertx.core.json.JsonObject
+import org.folio.inventory.common.Context
+import org.folio.inventory.support.diagnostics.Diagnostics
+
+import java.util.concurrent.Semaphore
+
+/**
+ * Sends records to be ingested in fixed size batches, each as a separate
+ * message. Only a limited number of batches may be waiting to be processed,
+ * adding a record blocks until an earlier batch has been processed, so
+ * must only be used on a worker thread.
+ */
+class IngestBatchSender {
+  public static final int DEFAULT_BATCH_SIZE = 100
+  public static final int DEFAULT_MAXIMUM_OUTSTANDING_BATCHES = 4
+  public static final long DEFAULT_BATCH_TIMEOUT_MILLISECONDS = 300000
+
+  private final EventBus eventBus
+  private final int batchSize
+  private final int maximumOutstandingBatches
+  private final long batchTimeoutMilliseconds
+  private final Map materialTypes
+  private final Map loanTypes
+  private final String jobId
+  private final Context context
+
+  private final Semaphore outstandingBatches
+  private final IngestProgress progress
+
+  private List<IngestRecord> currentBatch = []
+  private int batchesSent = 0
+
+  IngestBatchSender(
+    EventBus eventBus,
+    Map<String, Object> config,
+    Map materialTypes,
+    Map loanTypes,
+    String jobId,
+    IngestProgress progress,
+    Context context) {
+
+    this(eventBus,
+      integerConfig(config, "ingest.batch.size", DEFAULT_BATCH_SIZE),
+      integerConfig(config, "ingest.max.outstanding.batches",
+        DEFAULT_MAXIMUM_OUTSTANDING_BATCHES),
+      DEFAULT_BATCH_TIMEOUT_MILLISECONDS,
+      materialTypes, loanTypes, jobId, progress, context)
+  }
+
+  IngestBatchSender(
+    EventBus eventBus,
+    int batchSize,
+    int maximumOutstandingBatches,
+    long batchTimeoutMilliseconds,
+    Map materialTypes,
+    Map loanTypes,
+    String jobId,
+    IngestProgress progress,
+    Context context) {
+
+    this.eventBus = eventBus
+    this.batchSize = batchSize
+    this.maximumOutstandingBatches = maximumOutstandingBatches
+    this.batchTimeoutMilliseconds = batchTimeoutMilliseconds
+    this.materialTypes = materialTypes
+    this.loanTypes = loanTypes
+    this.jobId = jobId
+    this.progress = progress
+    this.context = context
+
+    outstandingBatches = new Semaphore(maximumOutstandingBatches)
+
+    IngestBatchCodec.registerOn(eventBus)
+  }
+
+  void add(IngestRecord record) {
+    progress.parsed(1)
+
+    currentBatch.add(record)
+
+    if(currentBatch.size() >= batchSize) {
+      sendCurrentBatch()
+    }
+  }
+
+  /**
+   * Sends any remaining records, waits for all batches to be processed
+   * and then notifies that the ingest job has completed
+   */
+  IngestProgress finish() {
+    sendCurrentBatch()
+
+    outstandingBatches.acquire(maximumOutstandingBatches)
+    outstandingBatches.release(maximumOutstandingBatches)
+
+    progress.complete()
+
+    IngestMessages.completed(jobId, progress, context).send(eventBus)
+
+    progress
+  }
+
+  private void sendCurrentBatch() {
+    if(currentBatch.isEmpty()) {
+      return
+    }
+
+    def batch = currentBatch
+    currentBatch = []
+
+    def batchId = Integer.toString(++batchesSent)
+
+    outstandingBatches.acquire()
+
+    IngestMessages.batch(new IngestBatch(batch, materialTypes, loanTypes),
+      jobId, batchId, context)
+      .send(eventBus, batchTimeoutMilliseconds,
+      { AsyncResult<Message<JsonObject>> reply ->
+        try {
+          if(reply.failed()) {
+            Diagnostics.global().error(
+              "Ingest batch for job ${jobId} failed: ${reply.cause()}")
+          }
+
+          //Batches processed in this process have already been counted by
+          //the processor, which does not count them once the reply has
+          //failed (e.g. expired)
+          if(progress.settle(batchId)) {
+            countBatch(batch.size(), reply)
+          }
+        }
+        finally {
+          outstandingBatches.release()
+        }
+      })
+  }
+
+  private void countBatch(
+    int records,
+    AsyncResult<Message<JsonObject>> reply) {
+
+    if(reply.succeeded()) {
+      def counts = reply.result().body()
+
+      progress.instancesAdded(counts.getLong("instancesCreated", 0L))
+      progress.itemsAdded(counts.getLong("itemsCreated", 0L))
+      progress.failed(counts.getLong("recordsFailed", 0L))
+    }
+    else {
+      progress.failed(records)
+    }
+
+    progress.processed(records)
+  }
+
+  private static int integerConfig(
+    Map<String, Object> config,
+    String key,
+    int defaultValue) {
+
+    def value = config.get(key)
+
+    value == null ? defaultValue : Integer.parseInt(value.toString())
+  }
+}
@@ -3,8 +3,9 @@ package org.folio.inventory.domain.ingest
 import io.vertx.core.eventbus.EventBus
 import io.vertx.core.eventbus.Message
 import io.vertx.core.json.JsonObject
-import org.folio.inventory.common.CollectAll
 import org.folio.inventory.common.MessagingContext
+import org.folio.inventory.common.domain.BatchCollection
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.domain.Instance
 import org.folio.inventory.domain.Item
@@ -12,72 +13,245 @@ import org.folio.inventory.domain.Messages
 import org.folio.inventory.resources.ingest.IngestJob
 import org.folio.inventory.resources.ingest.IngestJobState
 import org.folio.inventory.storage.Storage
-import org.folio.inventory.support.JsonArrayHelper
+import org.folio.inventory.support.BoundedConcurrency
+import org.folio.inventory.support.diagnostics.Diagnostics
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+
+import static org.folio.inventory.common.FutureAssistance.fail
+import static org.folio.inventory.common.FutureAssistance.succeed
+import static org.folio.inventory.support.CallersContext.onCallersContext
+import static org.folio.inventory.support.CallersContext.startOnCallersContext
 
 class IngestMessageProcessor {
+  public static final int DEFAULT_MAXIMUM_STORAGE_REQUESTS_IN_FLIGHT = 10
+  public static final int DEFAULT_RECORDS_PER_STORAGE_REQUEST = 10
+
+  //Limits shared by every verticle instance, by maximum in flight
+  private static final ConcurrentMap<Integer, BoundedConcurrency> SHARED_LIMITS =
+    new ConcurrentHashMap<>()
+
   private final Storage storage
+  private final IngestProgressRegistry progressRegistry
+  private final BoundedConcurrency storageRequests
+  private final int recordsPerStorageRequest
+
+  IngestMessageProcessor(
+    final Storage storage,
+    final IngestProgressRegistry progressRegistry) {
+
+    this(storage, progressRegistry, DEFAULT_MAXIMUM_STORAGE_REQUESTS_IN_FLIGHT)
+  }
+
+  IngestMessageProcessor(
+    final Storage storage,
+    final IngestProgressRegistry progressRegistry,
+    int maximumStorageRequestsInFlight) {
+
+    this(storage, progressRegistry,
+      new BoundedConcurrency(maximumStorageRequestsInFlight))
+  }
+
+  IngestMessageProcessor(
+    final Storage storage,
+    final IngestProgressRegistry progressRegistry,
+    final BoundedConcurrency storageRequests) {
+
+    this(storage, progressRegistry, storageRequests,
+      DEFAULT_RECORDS_PER_STORAGE_REQUEST)
+  }
+
+  IngestMessageProcessor(
+    final Storage storage,
+    final IngestProgressRegistry progressRegistry,
+    final BoundedConcurrency storageRequests,
+    int recordsPerStorageRequest) {
 
-  IngestMessageProcessor(final Storage storage) {
     this.storage = storage
+    this.progressRegistry = progressRegistry
+    this.storageRequests = storageRequests
+    this.recordsPerStorageRequest = recordsPerStorageRequest
+  }
+
+  /**
+   * The limit on storage requests in flight is shared by every processor
+   * in the process (rather than applying to each verticle instance)
+   */
+  static IngestMessageProcessor fromConfig(
+    Storage storage,
+    IngestProgressRegistry progressRegistry,
+    Map<String, Object> config) {
+
+    int maximumInFlight = integerConfig(config,
+      "ingest.max.storage.requests.in.flight",
+      DEFAULT_MAXIMUM_STORAGE_REQUESTS_IN_FLIGHT)
+
+    new IngestMessageProcessor(storage, progressRegistry,
+      SHARED_LIMITS.computeIfAbsent(maximumInFlight,
+        { new BoundedConcurrency(it) }),
+      integerConfig(config, "ingest.records.per.storage.request",
+        DEFAULT_RECORDS_PER_STORAGE_REQUEST))
   }
 
   void register(EventBus eventBus) {
-    eventBus.consumer(Messages.START_INGEST.Address)
-      .handler(this.&processRecordsMessage.rcurry(eventBus))
+    IngestBatchCodec.registerOn(eventBus)
+
+    eventBus.consumer(Messages.INGEST_BATCH.Address)
+      .handler(this.&processBatchMessage)
 
     eventBus.consumer(Messages.INGEST_COMPLETED.Address)
       .handler(this.&markIngestCompleted)
   }
 
-  private void processRecordsMessage(Message message, EventBus eventBus) {
-    def allItems = new CollectAll<Item>()
-    def allInstances = new CollectAll<Instance>()
-
-    def body = ((JsonObject)message.body()).map
+  private void processBatchMessage(Message message) {
+    //Shared with the sender when delivered locally, so must not be changed
+    def batch = (IngestBatch)message.body()
 
-    def records = JsonArrayHelper.toListOfMaps(body.records)
-    Map materialTypes = body.materialTypes.map
-    Map loanTypes = body.loanTypes.map
+    def records = batch.records
+    def materialTypes = batch.materialTypes
+    def loanTypes = batch.loanTypes
 
     def context = new MessagingContext(message.headers())
 
+    //Only available when the job was started in this process
+    def progress = progressRegistry.forJob(context.getHeader("jobId"))
+    def batchId = context.getHeader("batchId")
+
     def instanceCollection = storage.getInstanceCollection(context)
     def itemCollection = storage.getItemCollection(context)
 
-    records.stream()
-      .map({
-      new Instance(it.title, JsonArrayHelper.toListOfMaps(it.identifiers))
-    })
-    .forEach({ instanceCollection.add(it, allInstances.receive(),
-      { Failure failure -> println("Ingest Creation Failed: ${failure.reason}") })
-    })
+    //Each part's items are created as soon as its own instances have been,
+    //rather than waiting for every instance in the batch
+    List<CompletableFuture<List<Integer>>> parts = records
+      .collate(recordsPerStorageRequest)
+      .collect { List<IngestRecord> part ->
+        createInstancesThenItems(part, instanceCollection, itemCollection,
+          materialTypes, loanTypes)
+      }
 
-    allInstances.collect ({ instances ->
-      records.stream()
-        .map({ record ->
-          new Item(null, record.title, record.barcode,
-            instances.find({ it.title == record.title })?.id,
-            "Available", materialTypes.get("Book"), "Main Library",
-            loanTypes.get("Can Circulate"), null)
+    CompletableFuture.allOf(*parts)
+      .thenApply({
+        int instancesCreated = parts.sum(0) { it.join()[0] } as int
+        int itemsCreated = parts.sum(0) { it.join()[1] } as int
+
+        //Unless the sender has already counted it (as its reply expired)
+        if(progress?.settle(batchId)) {
+          progress.instancesAdded(instancesCreated)
+          progress.itemsAdded(itemsCreated)
+          progress.failed(records.size() - itemsCreated)
+          progress.processed(records.size())
+        }
+
+        IngestProgress.batchToJson(instancesCreated, itemsCreated,
+          records.size() - itemsCreated)
       })
-      .forEach({ itemCollection.add(it, allItems.receive(),
-        { Failure failure -> println("Ingest Creation Failed: ${failure.reason}") })
+    .whenComplete({ batchProgress, error ->
+      if (error == null) {
+        message.reply(batchProgress)
+      }
+      else {
+        message.fail(500, error.cause?.message ?: error.message)
+      }
+    })
+  }
+
+  /**
+   * @return the number of instances and items created
+   */
+  private CompletableFuture<List<Integer>> createInstancesThenItems(
+    List<IngestRecord> records,
+    BatchCollection<Instance> instanceCollection,
+    BatchCollection<Item> itemCollection,
+    Map<String, String> materialTypes,
+    Map<String, String> loanTypes) {
+
+    def instances = records.collect { record ->
+      new Instance(record.instanceId, record.title,
+        record.identifiers as List<Map>)
+    }
+
+    createAll(instanceCollection, instances)
+      .thenCompose({ List<BatchResult<Instance>> instanceResults ->
+        def items = []
+
+        //Results are in the same order as the records
+        instanceResults.eachWithIndex { BatchResult<Instance> result, int index ->
+          if (result.succeeded()) {
+            def record = records.get(index)
+
+            items.add(new Item(null, record.title, record.barcode,
+              result.record.id, "Available", materialTypes.get("Book"),
+              "Main Library", loanTypes.get("Can Circulate"), null))
+          }
+        }
+
+        createAll(itemCollection, items)
+          .thenApply({ List<BatchResult<Item>> itemResults ->
+            [items.size(), itemResults.count { it.succeeded() } as int]
+          })
       })
+  }
+
+  /**
+   * Failures are logged and included in the results, so that a batch always
+   * completes and the failed records are counted
+   */
+  private <T> CompletableFuture<List<BatchResult<T>>> createAll(
+    BatchCollection<T> collection,
+    List<T> records) {
+
+    if (records.isEmpty()) {
+      return CompletableFuture.completedFuture([])
+    }
+
+    //Waiting requests may be started as another instance's requests
+    //complete, so are started (and continued) on this instance's context
+    onCallersContext(storageRequests.submit(startOnCallersContext({
+      def created = new CompletableFuture<List<BatchResult<T>>>()
+
+      collection.addAll(records, succeed(created), fail(created))
+
+      created
+    })))
+    .exceptionally({
+      def failure = new Failure(it.cause?.message ?: it.message, null)
+
+      records.collect { BatchResult.<T>failed(failure) }
     })
+    .thenApply({ List<BatchResult<T>> results ->
+      results.findAll { !it.succeeded() }.each {
+        Diagnostics.global().error(
+          "Ingest Creation Failed: ${it.failure.reason}")
+      }
 
-    allItems.collect({
-      IngestMessages.completed(context.getHeader("jobId"), context)
-        .send(eventBus)
+      results
     })
   }
 
+  private static int integerConfig(
+    Map<String, Object> config,
+    String key,
+    int defaultValue) {
+
+    def value = config.get(key)
+
+    value == null ? defaultValue : Integer.parseInt(value.toString())
+  }
+
   private void markIngestCompleted(Message message) {
     def context = new MessagingContext(message.headers())
+    def jobId = context.getHeader("jobId")
+
+    Map progress = ((JsonObject)message.body()).map
 
     storage.getIngestJobCollection(context).update(
-      new IngestJob(context.getHeader("jobId"), IngestJobState.COMPLETED),
-      { },
+      new IngestJob(jobId, IngestJobState.COMPLETED, progress),
+      { progressRegistry.finished(jobId) },
       { Failure failure ->
-        println("Updating ingest job failed: ${failure.reason}") })
+        progressRegistry.finished(jobId)
+        Diagnostics.global().error(
+          "Updating ingest job failed: ${failure.reason}") })
   }
 }
@@ -1,24 +1,28 @@
 package org.folio.inventory.domain.ingest
 
-import io.vertx.core.json.JsonObject
 import org.folio.inventory.common.Context
 import org.folio.inventory.common.messaging.JsonMessage
 import org.folio.inventory.domain.Messages
 
 class IngestMessages {
-  static JsonMessage start(records, Map materialTypes, Map loanTypes, jobId, Context context) {
-    new JsonMessage(Messages.START_INGEST.Address,
-    headers(jobId, context),
-    new JsonObject()
-      .put("records", records)
-      .put("materialTypes", materialTypes)
-      .put("loanTypes", loanTypes))
+  /**
+   * Sent using IngestBatchCodec, which must be registered on the event bus
+   */
+  static JsonMessage batch(
+    IngestBatch batch,
+    jobId,
+    String batchId,
+    Context context) {
+
+    new JsonMessage(Messages.INGEST_BATCH.Address,
+      headers(jobId, context) + ["batchId": batchId],
+      batch)
   }
 
-  static completed(jobId, Context context) {
+  static completed(jobId, IngestProgress progress, Context context) {
     new JsonMessage(Messages.INGEST_COMPLETED.Address,
       headers(jobId, context),
-      new JsonObject())
+      progress.toJson())
   }
 
   private static Map<String, String> headers(jobId, Context context) {
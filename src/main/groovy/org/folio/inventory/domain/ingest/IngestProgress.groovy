@@ -0,0 +1,129 @@
+package org.folio.inventory.domain.ingest
+
+import io.vertx.core.json.JsonObject
+import org.folio.inventory.support.RollingRate
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counts for a running ingest job, which can be updated concurrently
+ * (e.g. from the parser and from each batch being processed)
+ */
+class IngestProgress {
+  public static final int RATE_WINDOW_SECONDS = 10
+
+  final AtomicLong recordsParsed = new AtomicLong()
+  final AtomicLong recordsProcessed = new AtomicLong()
+  final AtomicLong instancesCreated = new AtomicLong()
+  final AtomicLong itemsCreated = new AtomicLong()
+  final AtomicLong recordsFailed = new AtomicLong()
+
+  final Instant startedAt
+  private volatile Instant completedAt
+
+  private final RollingRate processingRate
+
+  //Batches counted by either the processor or the sender, but not both
+  private final Set<String> settledBatches = ConcurrentHashMap.newKeySet()
+
+  IngestProgress() {
+    this(Instant.now(), new RollingRate(RATE_WINDOW_SECONDS))
+  }
+
+  IngestProgress(Instant startedAt, RollingRate processingRate) {
+    this.startedAt = startedAt
+    this.processingRate = processingRate
+  }
+
+  void parsed(int records) {
+    recordsParsed.addAndGet(records)
+  }
+
+  void instancesAdded(long instances) {
+    instancesCreated.addAndGet(instances)
+  }
+
+  void itemsAdded(long items) {
+    itemsCreated.addAndGet(items)
+  }
+
+  void failed(long records) {
+    recordsFailed.addAndGet(records)
+  }
+
+  /**
+   * Records which have been either created or have failed,
+   * used for the rate of progress
+   */
+  void processed(long records) {
+    recordsProcessed.addAndGet(records)
+    processingRate.record(records)
+  }
+
+  /**
+   * A batch is counted by whichever of the processor (once it has been
+   * processed) or the sender (when the reply has failed or expired, or the
+   * batch was processed by another process) settles it first
+   *
+   * @return whether the caller should count the batch
+   */
+  boolean settle(String batchId) {
+    if(settledBatches.add(batchId)) {
+      return true
+    }
+
+    //Only ever settled twice, so no longer needs to be remembered
+    settledBatches.remove(batchId)
+
+    false
+  }
+
+  void complete() {
+    completedAt = Instant.now()
+  }
+
+  Instant getCompletedAt() {
+    completedAt
+  }
+
+  static JsonObject batchToJson(
+    long instancesCreated,
+    long itemsCreated,
+    long recordsFailed) {
+
+    new JsonObject()
+      .put("instancesCreated", instancesCreated)
+      .put("itemsCreated", itemsCreated)
+      .put("recordsFailed", recordsFailed)
+  }
+
+  /**
+   * Records per second is over recent seconds whilst the job is running,
+   * and over the whole job once it has completed
+   */
+  JsonObject toJson() {
+    def json = batchToJson(instancesCreated.get(), itemsCreated.get(),
+      recordsFailed.get())
+      .put("recordsParsed", recordsParsed.get())
+      .put("startedAt", startedAt.toString())
+
+    def completed = completedAt
+
+    if(completed == null) {
+      json.put("recordsPerSecond", processingRate.perSecond())
+    }
+    else {
+      def elapsedMilliseconds = Math.max(
+        Duration.between(startedAt, completed).toMillis(), 1)
+
+      json.put("completedAt", completed.toString())
+        .put("recordsPerSecond",
+        recordsProcessed.get() * 1000.0d / elapsedMilliseconds)
+    }
+
+    json
+  }
+}
@@ -0,0 +1,42 @@
+package org.folio.inventory.domain.ingest
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+
+/**
+ * Progress of the ingest jobs currently running, by job ID.
+ *
+ * Batches for a job can be processed by any verticle instance, so the
+ * module uses a single registry for the whole process (see global).
+ */
+class IngestProgressRegistry {
+  private static final IngestProgressRegistry GLOBAL = new IngestProgressRegistry()
+
+  private final ConcurrentMap<String, IngestProgress> progressByJob =
+    new ConcurrentHashMap<>()
+
+  static IngestProgressRegistry global() {
+    GLOBAL
+  }
+
+  IngestProgress start(String jobId) {
+    def progress = new IngestProgress()
+
+    progressByJob.put(jobId, progress)
+
+    progress
+  }
+
+  /**
+   * @return null when the job is not running
+   */
+  IngestProgress forJob(String jobId) {
+    jobId == null ? null : progressByJob.get(jobId)
+  }
+
+  void finished(String jobId) {
+    if(jobId != null) {
+      progressByJob.remove(jobId)
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package org.folio.inventory.domain.ingest
+
+import groovy.transform.CompileStatic
+
+/**
+ * A record parsed from an upload, with the id its instance will be created
+ * with. Immutable, so that it can be shared between verticles
+ */
+@CompileStatic
+final class IngestRecord {
+  final String instanceId
+  final String title
+  final String barcode
+  final List<Map<String, String>> identifiers
+
+  IngestRecord(
+    String instanceId,
+    String title,
+    String barcode,
+    List<Map<String, String>> identifiers) {
+
+    this.instanceId = instanceId
+    this.title = title
+    this.barcode = barcode
+    this.identifiers = Collections.unmodifiableList(identifiers
+      .collect { Map<String, String> identifier ->
+        Collections.unmodifiableMap(new LinkedHashMap<String, String>(identifier))
+      })
+  }
+}
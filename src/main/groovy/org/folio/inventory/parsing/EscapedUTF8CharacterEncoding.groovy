@@ -0,0 +1,145 @@
+package org.folio.inventory.parsing
+
+import groovy.transform.CompileStatic
+
+import java.text.Normalizer
+
+/**
+ * Decodes any run of escaped bytes (e.g. \xC3\xA9) as UTF-8, in a single
+ * pass over the input. Decoded combining marks are composed with the
+ * character they follow where possible (NFC), and escapes which are not
+ * valid UTF-8 are left as they are.
+ *
+ * Input with no escapes is returned as it is.
+ */
+@CompileStatic
+class EscapedUTF8CharacterEncoding implements CharacterEncoding {
+  private static final int ESCAPE_LENGTH = 4
+
+  @Override
+  String decode(String input) {
+    if(input == null) {
+      return null
+    }
+
+    int firstEscape = input.indexOf('\\x')
+
+    if(firstEscape < 0) {
+      return input
+    }
+
+    //Every decoded character is shorter than its escapes
+    def decoded = new StringBuilder(input.length())
+    boolean combiningMarkDecoded = false
+
+    decoded.append(input, 0, firstEscape)
+
+    int index = firstEscape
+
+    while(index < input.length()) {
+      int codePoint = -1
+      int sequenceLength = 0
+      int lead = byteAt(input, index)
+
+      if(lead >= 0) {
+        sequenceLength = sequenceLengthOf(lead)
+        codePoint = decodeSequence(input, index, lead, sequenceLength)
+      }
+
+      if(codePoint >= 0) {
+        decoded.appendCodePoint(codePoint)
+        combiningMarkDecoded = combiningMarkDecoded || isCombiningMark(codePoint)
+        index += sequenceLength * ESCAPE_LENGTH
+      }
+      else {
+        decoded.append(input.charAt(index))
+        index++
+      }
+    }
+
+    combiningMarkDecoded
+      ? Normalizer.normalize(decoded, Normalizer.Form.NFC)
+      : decoded.toString()
+  }
+
+  /**
+   * @return the escaped byte at the index, or -1 when there is not one
+   */
+  private static int byteAt(String input, int index) {
+    if(index + ESCAPE_LENGTH > input.length()
+      || input.charAt(index) != ('\\' as char)
+      || input.charAt(index + 1) != ('x' as char)) {
+      return -1
+    }
+
+    int high = Character.digit(input.charAt(index + 2), 16)
+    int low = Character.digit(input.charAt(index + 3), 16)
+
+    high < 0 || low < 0 ? -1 : (high << 4) | low
+  }
+
+  private static int sequenceLengthOf(int lead) {
+    if(lead < 0x80) {
+      return 1
+    }
+    else if(lead >= 0xC2 && lead <= 0xDF) {
+      return 2
+    }
+    else if(lead >= 0xE0 && lead <= 0xEF) {
+      return 3
+    }
+    else if(lead >= 0xF0 && lead <= 0xF4) {
+      return 4
+    }
+    else {
+      return 0
+    }
+  }
+
+  /**
+   * @return the code point, or -1 when the bytes are not a complete,
+   * shortest form UTF-8 sequence
+   */
+  private static int decodeSequence(
+    String input,
+    int index,
+    int lead,
+    int sequenceLength) {
+
+    if(sequenceLength == 0) {
+      return -1
+    }
+
+    if(sequenceLength == 1) {
+      return lead
+    }
+
+    int codePoint = lead & (0xFF >> (sequenceLength + 1))
+
+    for(int position = 1; position < sequenceLength; position++) {
+      int continuation = byteAt(input, index + (position * ESCAPE_LENGTH))
+
+      if(continuation < 0x80 || continuation > 0xBF) {
+        return -1
+      }
+
+      codePoint = (codePoint << 6) | (continuation & 0x3F)
+    }
+
+    if((sequenceLength == 3 && codePoint < 0x800)
+      || (sequenceLength == 4 && (codePoint < 0x10000 || codePoint > 0x10FFFF))
+      || (codePoint >= 0xD800 && codePoint <= 0xDFFF)) {
+      return -1
+    }
+
+    codePoint
+  }
+
+  private static boolean isCombiningMark(int codePoint) {
+    int type = Character.getType(codePoint)
+
+    type == Character.NON_SPACING_MARK ||
+      type == Character.COMBINING_SPACING_MARK ||
+      type == Character.ENCLOSING_MARK
+  }
+}
@@ -1,40 +1,170 @@
 package org.folio.inventory.parsing
 
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
+import java.util.function.Consumer
+
 class ModsParser {
 
+  private static final XMLInputFactory xmlInputFactory = createInputFactory()
+
   private final CharacterEncoding characterEncoding
 
   ModsParser(CharacterEncoding characterEncoding) {
     this.characterEncoding = characterEncoding
   }
 
-  public List<Map<String, String>> parseRecords(String xml) {
+  public List<Map<String, Object>> parseRecords(String xml) {
+    def records = []
 
-    def modsRecord = new XmlSlurper()
-      .parseText(xml)
+    readRecords(xmlInputFactory.createXMLStreamReader(new StringReader(xml)),
+      { records.add(it) })
 
-    def records = []
+    records
+  }
+
+  /**
+   * Parses records one at a time, passing each to the record handler as
+   * soon as the closing mods element has been read, rather than holding
+   * the entire document in memory.
+   */
+  public void parseRecords(
+    InputStream input,
+    Consumer<Map<String, Object>> recordHandler) {
+
+    readRecords(xmlInputFactory.createXMLStreamReader(input), recordHandler)
+  }
+
+  private void readRecords(
+    XMLStreamReader reader,
+    Consumer<Map<String, Object>> recordHandler) {
 
-    modsRecord.mods.each {
-      def title = characterEncoding.decode(it.titleInfo.title.text())
-      def barcode = it.location.holdingExternal.localHolds.objId.toString()
+    try {
+      def path = new ArrayDeque<String>()
+      ModsRecordBuilder currentRecord = null
 
-      def identifiers = it.identifier.list().collect( {
-        [ "namespace" : it.@type, "value" : it.text() ]
-      })
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            path.addLast(reader.localName)
 
-      def recordIdentifiers = it.recordInfo.recordIdentifier.list().collect( {
-        [ "namespace" : it.@source, "value" : it.text() ]
-      })
+            if (path.size() == 2 && reader.localName == "mods") {
+              currentRecord = new ModsRecordBuilder()
+            }
+            else if (currentRecord != null) {
+              currentRecord.startElement(path, reader)
+            }
+            break
 
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+            if (currentRecord != null) {
+              currentRecord.text(reader.text)
+            }
+            break
+
+          case XMLStreamConstants.END_ELEMENT:
+            if (path.size() == 2 && currentRecord != null) {
+              recordHandler.accept(currentRecord.build(characterEncoding))
+              currentRecord = null
+            }
+            else if (currentRecord != null) {
+              currentRecord.endElement(path)
+            }
+
+            path.removeLast()
+            break
+        }
+      }
+    }
+    finally {
+      reader.close()
+    }
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    def factory = XMLInputFactory.newInstance()
+
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false)
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true)
+
+    factory
+  }
+
+  private static class ModsRecordBuilder {
+    private final title = new StringBuilder()
+    private final barcode = new StringBuilder()
+    private final List<Map> identifiers = []
+    private final List<Map> recordIdentifiers = []
+
+    private StringBuilder capturing = null
+    private int capturingDepth = 0
+    private Map capturingIdentifier = null
+
+    void startElement(Deque<String> path, XMLStreamReader reader) {
+      if (capturing != null) {
+        return
+      }
+
+      def relativePath = path.drop(2).join("/")
+
+      switch (relativePath) {
+        case "titleInfo/title":
+          capture(title, path)
+          break
+
+        case "location/holdingExternal/localHolds/objId":
+          capture(barcode, path)
+          break
+
+        case "identifier":
+          capturingIdentifier = [
+            "namespace": reader.getAttributeValue(null, "type") ?: ""]
+          identifiers.add(capturingIdentifier)
+          capture(new StringBuilder(), path)
+          break
+
+        case "recordInfo/recordIdentifier":
+          capturingIdentifier = [
+            "namespace": reader.getAttributeValue(null, "source") ?: ""]
+          recordIdentifiers.add(capturingIdentifier)
+          capture(new StringBuilder(), path)
+          break
+      }
+    }
+
+    void text(String text) {
+      if (capturing != null) {
+        capturing.append(text)
+      }
+    }
+
+    void endElement(Deque<String> path) {
+      if (capturing != null && path.size() == capturingDepth) {
+        if (capturingIdentifier != null) {
+          capturingIdentifier.put("value", capturing.toString())
+          capturingIdentifier = null
+        }
+
+        capturing = null
+      }
+    }
+
+    Map<String, Object> build(CharacterEncoding characterEncoding) {
       def record = [:]
-      record.put("title", title)
-      record.put("barcode", barcode)
+
+      record.put("title", characterEncoding.decode(title.toString()))
+      record.put("barcode", barcode.toString())
       record.put("identifiers", recordIdentifiers + identifiers)
 
-      records.add(record)
+      record
     }
 
-    records
+    private void capture(StringBuilder builder, Deque<String> path) {
+      capturing = builder
+      capturingDepth = path.size()
+    }
   }
 }
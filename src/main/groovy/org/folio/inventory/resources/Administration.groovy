@@ -0,0 +1,148 @@
+package org.folio.inventory.resources
+
+import io.vertx.core.Handler
+import io.vertx.core.json.JsonArray
+import io.vertx.ext.web.Router
+import io.vertx.ext.web.RoutingContext
+import io.vertx.ext.web.handler.BodyHandler
+import org.folio.inventory.common.WebContext
+import org.folio.inventory.common.api.response.ClientErrorResponse
+import org.folio.inventory.common.api.response.JsonResponse
+import org.folio.inventory.common.api.response.SuccessResponse
+import org.folio.inventory.support.cache.ReferenceDataCache
+import org.folio.inventory.support.diagnostics.Diagnostics
+import org.folio.inventory.support.metrics.Metrics
+import org.folio.inventory.support.http.client.PooledHttpClient
+
+/**
+ * Each route requires its own permission, which Okapi checks and passes on
+ * in the X-Okapi-Permissions header, so that requests made directly to the
+ * module without it are refused
+ */
+class Administration {
+  public static final String STORAGE_CLIENT_PERMISSION =
+    "inventory.admin.storage-client.get"
+  public static final String REFERENCE_DATA_CACHE_PERMISSION =
+    "inventory.admin.reference-data-cache.delete"
+  public static final String METRICS_PERMISSION =
+    "inventory.admin.metrics.get"
+  public static final String GET_DIAGNOSTICS_PERMISSION =
+    "inventory.admin.diagnostics.get"
+  public static final String CHANGE_DIAGNOSTICS_PERMISSION =
+    "inventory.admin.diagnostics.put"
+
+  private final PooledHttpClient client
+  private final ReferenceDataCache referenceDataCache
+
+  Administration(final PooledHttpClient client,
+                 final ReferenceDataCache referenceDataCache) {
+
+    this.client = client
+    this.referenceDataCache = referenceDataCache
+  }
+
+  void register(Router router) {
+    router.get(relativeAdministrationPath() + "/storage-client")
+      .handler(requiring(STORAGE_CLIENT_PERMISSION))
+      .handler(this.&getStorageClientUtilisation)
+
+    router.delete(relativeAdministrationPath() + "/reference-data-cache")
+      .handler(requiring(REFERENCE_DATA_CACHE_PERMISSION))
+      .handler(this.&invalidateReferenceData)
+
+    router.get(relativeAdministrationPath() + "/metrics")
+      .handler(requiring(METRICS_PERMISSION))
+      .handler(this.&getMetrics)
+
+    router.get(relativeAdministrationPath() + "/diagnostics")
+      .handler(requiring(GET_DIAGNOSTICS_PERMISSION))
+      .handler(this.&getDiagnostics)
+
+    router.put(relativeAdministrationPath() + "/diagnostics")
+      .handler(requiring(CHANGE_DIAGNOSTICS_PERMISSION))
+      .handler(BodyHandler.create())
+      .handler(this.&changeDiagnostics)
+  }
+
+  void getStorageClientUtilisation(RoutingContext routingContext) {
+    JsonResponse.success(routingContext.response(), client.utilisation())
+  }
+
+  void invalidateReferenceData(RoutingContext routingContext) {
+    def context = new WebContext(routingContext)
+
+    def collectionName = context.getStringParameter("collection", null)
+
+    if(!context.tenantId) {
+      ClientErrorResponse.badRequest(routingContext.response(),
+        "A tenant is required to invalidate reference data")
+      return
+    }
+
+    if(collectionName == null) {
+      referenceDataCache.invalidate(context.tenantId)
+    }
+    else {
+      referenceDataCache.invalidate(context.tenantId, collectionName)
+    }
+
+    SuccessResponse.noContent(routingContext.response())
+  }
+
+  void getMetrics(RoutingContext routingContext) {
+    routingContext.response()
+      .setStatusCode(200)
+      .putHeader("content-type", "text/plain; version=0.0.4; charset=utf-8")
+      .end(Metrics.global().toPrometheus())
+  }
+
+  void getDiagnostics(RoutingContext routingContext) {
+    JsonResponse.success(routingContext.response(),
+      Diagnostics.global().toJson())
+  }
+
+  void changeDiagnostics(RoutingContext routingContext) {
+    try {
+      Diagnostics.global().update(routingContext.getBodyAsJson())
+    }
+    catch (Exception e) {
+      ClientErrorResponse.badRequest(routingContext.response(),
+        "Invalid diagnostics settings: ${e.message}")
+      return
+    }
+
+    JsonResponse.success(routingContext.response(),
+      Diagnostics.global().toJson())
+  }
+
+  private static Handler<RoutingContext> requiring(String permission) {
+    return { RoutingContext routingContext ->
+      if(permitted(routingContext, permission)) {
+        routingContext.next()
+      }
+      else {
+        ClientErrorResponse.forbidden(routingContext.response(),
+          "Requires permission: ${permission}")
+      }
+    } as Handler<RoutingContext>
+  }
+
+  private static boolean permitted(RoutingContext routingContext, String permission) {
+    def permissions = routingContext.request().getHeader("X-Okapi-Permissions")
+
+    if(permissions == null) {
+      return false
+    }
+
+    try {
+      new JsonArray(permissions).contains(permission)
+    }
+    catch (Exception e) {
+      false
+    }
+  }
+
+  private static String relativeAdministrationPath() {
+    "/admin"
+  }
+}
@@ -1,6 +1,6 @@
 package org.folio.inventory.resources
 
-import io.vertx.core.json.JsonArray
+import com.fasterxml.jackson.core.JsonGenerator
 import io.vertx.core.json.JsonObject
 import io.vertx.ext.web.Router
 import io.vertx.ext.web.RoutingContext
@@ -9,10 +9,15 @@ import org.folio.inventory.common.WebContext
 import org.folio.inventory.common.api.request.PagingParameters
 import org.folio.inventory.common.api.request.VertxBodyParser
 import org.folio.inventory.common.api.response.*
+import org.folio.inventory.common.api.response.NdjsonExport.Page
+import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.domain.Instance
 import org.folio.inventory.storage.Storage
 
+import java.util.concurrent.CompletableFuture
+import java.util.function.Consumer
+
 class Instances {
   private final Storage storage
 
@@ -27,6 +32,8 @@ class Instances {
     router.get(relativeInstancesPath() + "/context")
       .handler(this.&getMetadataContext)
 
+    router.get("/inventory/export/instances").handler(this.&exportAll)
+
     router.get(relativeInstancesPath()).handler(this.&getAll)
     router.post(relativeInstancesPath()).handler(this.&create)
     router.delete(relativeInstancesPath()).handler(this.&deleteAll)
@@ -65,19 +72,52 @@ class Instances {
     if(search == null) {
       storage.getInstanceCollection(context).findAll(
         pagingParameters,
-        { Success success -> JsonResponse.success(routingContext.response(),
-          toRepresentation(success.result, context)) },
+        { Success success -> StreamingJsonResponse.success(
+          routingContext.request(), routingContext.response(),
+          { writeRepresentation(it, success.result, context) }) },
         FailureResponseConsumer.serverError(routingContext.response()))
     }
     else {
       storage.getInstanceCollection(context).findByCql(search,
-        pagingParameters, {
-        JsonResponse.success(routingContext.response(),
-          toRepresentation(it.result, context))
+        pagingParameters, { Success success ->
+        StreamingJsonResponse.success(routingContext.request(),
+          routingContext.response(),
+          { writeRepresentation(it, success.result, context) })
       }, FailureResponseConsumer.serverError(routingContext.response()))
     }
   }
 
+  /**
+   * Every instance, one per line, in the same representation as getAll
+   */
+  void exportAll(RoutingContext routingContext) {
+    def context = new WebContext(routingContext)
+
+    def instanceCollection = storage.getInstanceCollection(context)
+    def pageSize = NdjsonExport.DEFAULT_PAGE_SIZE
+
+    new NdjsonExport(routingContext.vertx(), routingContext.request(),
+      routingContext.response(),
+      { String lastId ->
+        def fetched = new CompletableFuture<Map>()
+
+        instanceCollection.findByCql(NdjsonExport.pageAfterQuery(lastId),
+          new PagingParameters(pageSize, 0),
+          { Success success -> fetched.complete(success.result) },
+          { Failure failure -> fetched.completeExceptionally(
+            new Exception(failure.reason)) })
+
+        fetched.thenApply({ Map wrappedInstances ->
+          List<Instance> instances = wrappedInstances.instances
+
+          Page.of(instances.collect { Instance instance ->
+            return { generator -> writeInstance(generator, instance, context) } as
+              Consumer<JsonGenerator>
+          }, instances.collect { it.id }, pageSize)
+        })
+      }).start()
+  }
+
   void create(RoutingContext routingContext) {
     def context = new WebContext(routingContext)
 
@@ -145,8 +185,8 @@ class Instances {
       routingContext.request().getParam("id"),
       { Success it ->
         if(it.result != null) {
-          JsonResponse.success(routingContext.response(),
-            toRepresentation(it.result, context))
+          JsonResponse.success(routingContext.request(),
+            routingContext.response(), toRepresentation(it.result, context))
         }
         else {
           ClientErrorResponse.notFound(routingContext.response())
@@ -158,20 +198,57 @@ class Instances {
     "/inventory/instances"
   }
 
-  private JsonObject toRepresentation(Map wrappedInstances, WebContext context) {
-    def representation = new JsonObject()
+  private void writeRepresentation(
+    JsonGenerator generator,
+    Map wrappedInstances,
+    WebContext context) {
 
-    def results = new JsonArray()
+    generator.writeStartObject()
+    generator.writeArrayFieldStart("instances")
 
-    wrappedInstances.instances.each {
-      results.add(toRepresentation(it, context))
+    wrappedInstances.instances.each { Instance instance ->
+      writeInstance(generator, instance, context)
     }
 
-    representation
-      .put("instances", results)
-      .put("totalRecords", wrappedInstances.totalRecords)
+    generator.writeEndArray()
+    generator.writeObjectField("totalRecords", wrappedInstances.totalRecords)
+    generator.writeEndObject()
+  }
 
-    representation
+  /**
+   * Writes the same representation as toRepresentation,
+   * without building it first
+   */
+  private void writeInstance(
+    JsonGenerator generator,
+    Instance instance,
+    WebContext context) {
+
+    generator.writeStartObject()
+
+    generator.writeStringField("@context", context.absoluteUrl(
+      relativeInstancesPath() + "/context").toString())
+
+    generator.writeStringField("id", instance.id)
+    generator.writeStringField("title", instance.title)
+
+    generator.writeArrayFieldStart("identifiers")
+
+    instance.identifiers.each { identifier ->
+      generator.writeStartObject()
+      generator.writeObjectField("namespace", identifier.namespace)
+      generator.writeObjectField("value", identifier.value)
+      generator.writeEndObject()
+    }
+
+    generator.writeEndArray()
+
+    generator.writeObjectFieldStart("links")
+    generator.writeStringField("self", context.absoluteUrl(
+      relativeInstancesPath() + "/${instance.id}").toString())
+    generator.writeEndObject()
+
+    generator.writeEndObject()
   }
 
   private JsonObject toRepresentation(Instance instance, WebContext context) {
@@ -1,10 +1,13 @@
 package org.folio.inventory.resources
 
+import com.fasterxml.jackson.core.JsonGenerator
+import groovy.transform.CompileStatic
 import io.vertx.core.json.JsonArray
 import io.vertx.core.json.JsonObject
 import org.folio.inventory.common.WebContext
 import org.folio.inventory.domain.Item
 
+@CompileStatic
 class ItemRepresentation {
   private final String relativeItemsPath
 
@@ -65,9 +68,8 @@ class ItemRepresentation {
         new JsonObject().put("name", item.location))
     }
 
-    representation.put('links',
-      ['self': context.absoluteUrl(
-        "${relativeItemsPath}/${item.id}").toString()])
+    representation.put('links', new JsonObject()
+      .put('self', selfLink(item, context)))
 
     representation
   }
@@ -82,8 +84,7 @@ class ItemRepresentation {
 
     def results = new JsonArray()
 
-
-    wrappedItems.items.each { item ->
+    for(Item item : itemsIn(wrappedItems)) {
       def materialType = materialTypes.get(item?.materialTypeId)
       def permanentLoanType = loanTypes.get(item?.permanentLoanTypeId)
       def temporaryLoanType = loanTypes.get(item?.temporaryLoanTypeId)
@@ -93,7 +94,7 @@ class ItemRepresentation {
 
     representation
       .put("items", results)
-      .put("totalRecords", wrappedItems.totalRecords)
+      .put("totalRecords", wrappedItems.get("totalRecords"))
 
     representation
   }
@@ -105,17 +106,117 @@ class ItemRepresentation {
 
     def results = new JsonArray()
 
-    wrappedItems.items.each { item ->
+    for(Item item : itemsIn(wrappedItems)) {
       results.add(toJson(item, context))
     }
 
     representation
       .put("items", results)
-      .put("totalRecords", wrappedItems.totalRecords)
+      .put("totalRecords", wrappedItems.get("totalRecords"))
 
     representation
   }
 
+  /**
+   * Writes the same representation as toJson, without building it first
+   */
+  void write(
+    JsonGenerator generator,
+    Map wrappedItems,
+    Map<String, JsonObject> materialTypes,
+    Map<String, JsonObject> loanTypes,
+    WebContext context) {
+
+    generator.writeStartObject()
+    generator.writeArrayFieldStart("items")
+
+    for(Item item : itemsIn(wrappedItems)) {
+      writeItem(generator, item,
+        materialTypes.get(item?.materialTypeId),
+        loanTypes.get(item?.permanentLoanTypeId),
+        loanTypes.get(item?.temporaryLoanTypeId),
+        context)
+    }
+
+    generator.writeEndArray()
+    generator.writeObjectField("totalRecords", wrappedItems.get("totalRecords"))
+    generator.writeEndObject()
+  }
+
+  void writeItem(
+    JsonGenerator generator,
+    Item item,
+    JsonObject materialType,
+    JsonObject permanentLoanType,
+    JsonObject temporaryLoanType,
+    WebContext context) {
+
+    generator.writeStartObject()
+    generator.writeStringField("id", item.id)
+    generator.writeStringField("title", item.title)
+
+    if(item.status != null) {
+      generator.writeObjectFieldStart("status")
+      generator.writeStringField("name", item.status)
+      generator.writeEndObject()
+    }
+
+    if(item.instanceId != null) {
+      generator.writeStringField("instanceId", item.instanceId)
+    }
+
+    if(item.barcode != null) {
+      generator.writeStringField("barcode", item.barcode)
+    }
+
+    writeReferenceIfPresent(generator, "materialType",
+      item.materialTypeId, materialType)
+
+    writeReferenceIfPresent(generator, "permanentLoanType",
+      item.permanentLoanTypeId, permanentLoanType)
+
+    writeReferenceIfPresent(generator, "temporaryLoanType",
+      item.temporaryLoanTypeId, temporaryLoanType)
+
+    if(item.location != null) {
+      generator.writeObjectFieldStart("location")
+      generator.writeStringField("name", item.location)
+      generator.writeEndObject()
+    }
+
+    generator.writeObjectFieldStart("links")
+    generator.writeStringField("self", selfLink(item, context))
+    generator.writeEndObject()
+
+    generator.writeEndObject()
+  }
+
+  private String selfLink(Item item, WebContext context) {
+    context.absoluteUrl(relativeItemsPath + "/" + item.id).toString()
+  }
+
+  private static List<Item> itemsIn(Map wrappedItems) {
+    (List<Item>)wrappedItems.get("items")
+  }
+
+  private void writeReferenceIfPresent(
+    JsonGenerator generator,
+    String referencePropertyName,
+    String id,
+    JsonObject referenceRecord) {
+
+    if (id != null) {
+      generator.writeObjectFieldStart(referencePropertyName)
+      generator.writeStringField("id", id)
+
+      if(referenceRecord != null) {
+        generator.writeStringField("name", referenceRecord.getString("name"))
+      }
+
+      generator.writeEndObject()
+    }
+  }
+
   private void includeReferenceIfPresent(
     JsonObject representation,
     String referencePropertyName,
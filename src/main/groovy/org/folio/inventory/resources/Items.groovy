@@ -1,5 +1,7 @@
 package org.folio.inventory.resources
 
+import com.fasterxml.jackson.core.JsonGenerator
+import io.vertx.core.json.JsonObject
 import io.vertx.ext.web.Router
 import io.vertx.ext.web.RoutingContext
 import io.vertx.ext.web.handler.BodyHandler
@@ -8,29 +10,45 @@ import org.folio.inventory.common.WebContext
 import org.folio.inventory.common.api.request.PagingParameters
 import org.folio.inventory.common.api.request.VertxBodyParser
 import org.folio.inventory.common.api.response.*
+import org.folio.inventory.common.api.response.NdjsonExport.Page
 import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.domain.Item
 import org.folio.inventory.storage.Storage
+import org.folio.inventory.support.BatchedRecordFetcher
+import org.folio.inventory.support.cache.ReferenceDataCache
+import org.folio.inventory.support.diagnostics.Diagnostics
 import org.folio.inventory.support.http.client.OkapiHttpClient
-import org.folio.inventory.support.http.client.Response
+import org.folio.inventory.support.http.client.PooledHttpClient
 
 import java.util.concurrent.CompletableFuture
+import java.util.function.Consumer
 import java.util.stream.Collectors
 import java.util.stream.Stream
 
 class Items {
+  private static final String MATERIAL_TYPES = "material-types"
+  private static final String LOAN_TYPES = "loan-types"
 
   private final Storage storage
+  private final PooledHttpClient client
+  private final ReferenceDataCache referenceDataCache
+
+  Items(final Storage storage,
+        final PooledHttpClient client,
+        final ReferenceDataCache referenceDataCache) {
 
-  Items(final Storage storage) {
     this.storage = storage
+    this.client = client
+    this.referenceDataCache = referenceDataCache
   }
 
   void register(Router router) {
     router.post(relativeItemsPath() + "*").handler(BodyHandler.create())
     router.put(relativeItemsPath() + "*").handler(BodyHandler.create())
 
+    router.get("/inventory/export/items").handler(this.&exportAll)
+
     router.get(relativeItemsPath()).handler(this.&getAll)
     router.post(relativeItemsPath()).handler(this.&create)
     router.delete(relativeItemsPath()).handler(this.&deleteAll)
@@ -69,6 +87,46 @@ class Items {
     }
   }
 
+  /**
+   * Every item, one per line, in the same representation as getAll
+   */
+  void exportAll(RoutingContext routingContext) {
+    def context = new WebContext(routingContext)
+
+    def itemCollection = storage.getItemCollection(context)
+    def representation = new ItemRepresentation(relativeItemsPath())
+    def pageSize = NdjsonExport.DEFAULT_PAGE_SIZE
+
+    new NdjsonExport(routingContext.vertx(), routingContext.request(),
+      routingContext.response(),
+      { String lastId ->
+        def fetched = new CompletableFuture<Map>()
+
+        itemCollection.findByCql(NdjsonExport.pageAfterQuery(lastId),
+          new PagingParameters(pageSize, 0),
+          { Success success -> fetched.complete(success.result) },
+          { Failure failure -> fetched.completeExceptionally(
+            new Exception(failure.reason)) })
+
+        fetched.thenCompose({ Map wrappedItems ->
+          List<Item> items = wrappedItems.items
+
+          getReferenceRecordsForItems(routingContext, context, items)
+            .thenApply({ Tuple2<Map, Map> referenceRecords ->
+              Page.of(items.collect { Item item ->
+                return { generator ->
+                  representation.writeItem(generator, item,
+                    referenceRecords.first.get(item.materialTypeId),
+                    referenceRecords.second.get(item.permanentLoanTypeId),
+                    referenceRecords.second.get(item.temporaryLoanTypeId),
+                    context)
+                } as Consumer<JsonGenerator>
+              }, items.collect { it.id }, pageSize)
+            })
+        })
+      }).start()
+  }
+
   void deleteAll(RoutingContext routingContext) {
     def context = new WebContext(routingContext)
 
@@ -165,8 +223,8 @@ class Items {
   void getById(RoutingContext routingContext) {
     def context = new WebContext(routingContext)
 
-    def materialTypesClient = createMaterialTypesClient(routingContext, context)
-    def loanTypesClient = createLoanTypesClient(routingContext, context)
+    def materialTypesClient = createReferenceDataClient(context, MATERIAL_TYPES)
+    def loanTypesClient = createReferenceDataClient(context, LOAN_TYPES)
 
     storage.getItemCollection(context).findById(
       routingContext.request().getParam("id"),
@@ -174,52 +232,30 @@ class Items {
         def item = itemResponse.result
 
         if(item != null) {
-          def materialTypeFuture = new CompletableFuture<Response>()
-          def permanentLoanTypeFuture = new CompletableFuture<Response>()
-          def temporaryLoanTypeFuture = new CompletableFuture<Response>()
-          def allFutures = new ArrayList<CompletableFuture<Response>>()
-
-          if(item?.materialTypeId != null) {
-            allFutures.add(materialTypeFuture)
-
-            materialTypesClient.get(item?.materialTypeId,
-              { response -> materialTypeFuture.complete(response) })
-          }
-
-          if(item?.permanentLoanTypeId != null) {
-            allFutures.add(permanentLoanTypeFuture)
-
-            loanTypesClient.get(item?.permanentLoanTypeId,
-              { response -> permanentLoanTypeFuture.complete(response) })
-          }
-
-          if(item?.temporaryLoanTypeId != null) {
-            allFutures.add(temporaryLoanTypeFuture)
-
-            loanTypesClient.get(item?.temporaryLoanTypeId,
-              { response -> temporaryLoanTypeFuture.complete(response) })
-          }
-
-          CompletableFuture<Void> allDoneFuture = CompletableFuture.allOf(*allFutures)
+          def materialTypeFuture = getReferenceRecord(context,
+            MATERIAL_TYPES, materialTypesClient, item?.materialTypeId)
 
-          allDoneFuture.thenAccept({ v ->
+          def permanentLoanTypeFuture = getReferenceRecord(context,
+            LOAN_TYPES, loanTypesClient, item?.permanentLoanTypeId)
 
-            def foundMaterialType = item?.materialTypeId != null &&
-              materialTypeFuture.join().statusCode == 200 ?
-              materialTypeFuture.join().json : null
+          def temporaryLoanTypeFuture = getReferenceRecord(context,
+            LOAN_TYPES, loanTypesClient, item?.temporaryLoanTypeId)
 
-            def foundPermanentLoanType = item?.permanentLoanTypeId != null &&
-              permanentLoanTypeFuture.join().statusCode == 200 ?
-              permanentLoanTypeFuture.join().json : null
+          CompletableFuture<Void> allDoneFuture = CompletableFuture.allOf(
+            materialTypeFuture, permanentLoanTypeFuture, temporaryLoanTypeFuture)
 
-            def foundTemporaryLoanType = item?.temporaryLoanTypeId != null &&
-              temporaryLoanTypeFuture.join().statusCode == 200 ?
-              temporaryLoanTypeFuture.join().json : null
+          allDoneFuture.whenComplete({ v, error ->
+            if(error != null) {
+              ServerErrorResponse.internalError(routingContext.response(),
+                "Failed to retrieve reference data: ${error.cause?.message ?: error.message}")
+              return
+            }
 
-            JsonResponse.success(routingContext.response(),
+            JsonResponse.success(routingContext.request(),
+              routingContext.response(),
               new ItemRepresentation(relativeItemsPath()).toJson(item,
-                foundMaterialType, foundPermanentLoanType,
-                foundTemporaryLoanType, context))
+                materialTypeFuture.join(), permanentLoanTypeFuture.join(),
+                temporaryLoanTypeFuture.join(), context))
           })
         }
         else {
@@ -228,36 +264,47 @@ class Items {
       }, FailureResponseConsumer.serverError(routingContext.response()))
   }
 
-  private CollectionResourceClient createMaterialTypesClient(
-    RoutingContext routingContext,
-    WebContext context) {
+  private CompletableFuture<JsonObject> getReferenceRecord(
+    WebContext context,
+    String collectionName,
+    CollectionResourceClient client,
+    String id) {
 
-    def client = new OkapiHttpClient(routingContext.vertx().createHttpClient(),
-      new URL(context.okapiLocation), context.tenantId,
-      context.token,
-      {
-        ServerErrorResponse.internalError(routingContext.response(),
-          "Failed to retrieve material types: ${it}")
-      })
+    if(id == null) {
+      return CompletableFuture.completedFuture(null)
+    }
 
-    new CollectionResourceClient(client,
-      new URL(context.okapiLocation + "/material-types"))
+    referenceDataCache.get(context.tenantId, collectionName, id, {
+      def fetched = new CompletableFuture<JsonObject>()
+
+      client.get(id,
+        { response ->
+          fetched.complete(response.statusCode == 200 ? response.json : null)
+        },
+        { Throwable error -> fetched.completeExceptionally(error) })
+
+      fetched
+    })
   }
 
-  private CollectionResourceClient createLoanTypesClient(
-    RoutingContext routingContext,
-    WebContext context) {
+  /**
+   * Failures are given to each request's own failure handler, as the
+   * records fetched may be shared by many requests (via the cache)
+   */
+  private CollectionResourceClient createReferenceDataClient(
+    WebContext context,
+    String collectionName) {
 
-    def client = new OkapiHttpClient(routingContext.vertx().createHttpClient(),
+    def client = new OkapiHttpClient(this.client,
       new URL(context.okapiLocation), context.tenantId,
       context.token,
       {
-        ServerErrorResponse.internalError(routingContext.response(),
-          "Failed to retrieve loan types: ${it}")
+        Diagnostics.global().error(
+          "Failed to retrieve ${collectionName}: ${it}")
       })
 
     new CollectionResourceClient(client,
-      new URL(context.okapiLocation + "/loan-types"))
+      new URL(context.okapiLocation + "/${collectionName}"))
   }
 
 
@@ -277,71 +324,76 @@ class Items {
     WebContext context,
     Map wrappedItems) {
 
-    def materialTypesClient = createMaterialTypesClient(routingContext, context)
-    def loanTypesClient = createLoanTypesClient(routingContext, context)
+    getReferenceRecordsForItems(routingContext, context, wrappedItems.items)
+      .whenComplete({ Tuple2<Map, Map> referenceRecords, Throwable error ->
+      if(error != null) {
+        ServerErrorResponse.internalError(routingContext.response(),
+          "Failed to retrieve reference data: ${error.cause?.message ?: error.message}")
+        return
+      }
+
+      StreamingJsonResponse.success(routingContext.request(),
+        routingContext.response(), {
+        new ItemRepresentation(relativeItemsPath())
+          .write(it, wrappedItems, referenceRecords.first,
+            referenceRecords.second, context)
+      })
+    })
+  }
+
+  /**
+   * @return material types and loan types for the items, by ID
+   */
+  private CompletableFuture<Tuple2<Map, Map>> getReferenceRecordsForItems(
+    RoutingContext routingContext,
+    WebContext context,
+    List<Item> items) {
 
-    def allMaterialTypeFutures = new ArrayList<CompletableFuture<Response>>()
-    def allLoanTypeFutures = new ArrayList<CompletableFuture<Response>>()
-    def allFutures = new ArrayList<CompletableFuture<Response>>()
+    def materialTypesClient = createReferenceDataClient(context, MATERIAL_TYPES)
+    def loanTypesClient = createReferenceDataClient(context, LOAN_TYPES)
 
-    def materialTypeIds = wrappedItems.items.stream()
+    def materialTypeIds = items.stream()
       .map({ it?.materialTypeId })
       .filter({ it != null })
       .distinct()
       .collect(Collectors.toList())
 
-    materialTypeIds.each { id ->
-      def newFuture = new CompletableFuture<>()
-
-      allFutures.add(newFuture)
-      allMaterialTypeFutures.add(newFuture)
-
-      materialTypesClient.get(id, { response -> newFuture.complete(response) })
-    }
-
-    def permanentLoanTypeIds = wrappedItems.items.stream()
+    def permanentLoanTypeIds = items.stream()
       .map({ it?.permanentLoanTypeId })
       .filter({ it != null })
 
-    def temporaryLoanTypeIds = wrappedItems.items.stream()
+    def temporaryLoanTypeIds = items.stream()
       .map({ it?.temporaryLoanTypeId })
       .filter({ it != null })
 
-    Stream.concat(permanentLoanTypeIds, temporaryLoanTypeIds)
+    def loanTypeIds = Stream.concat(permanentLoanTypeIds, temporaryLoanTypeIds)
       .distinct()
-      .each { id ->
-      def newFuture = new CompletableFuture<>()
-
-      allFutures.add(newFuture)
-      allLoanTypeFutures.add(newFuture)
-
-      loanTypesClient.get(id, { response -> newFuture.complete(response) })
-    }
-
-    CompletableFuture<Void> allDoneFuture = CompletableFuture.allOf(*allFutures)
+      .collect(Collectors.toList())
 
-    allDoneFuture.thenAccept({ v ->
-      def materialTypeResponses = allMaterialTypeFutures.stream()
-        .map({ future -> future.join() })
-        .collect(Collectors.toList())
+    def materialTypesFuture = getReferenceRecords(context, MATERIAL_TYPES,
+      new BatchedRecordFetcher(materialTypesClient, "mtypes"), materialTypeIds)
 
-      def loanTypeResponses = allLoanTypeFutures.stream()
-        .map({ future -> future.join() })
-        .collect(Collectors.toList())
+    def loanTypesFuture = getReferenceRecords(context, LOAN_TYPES,
+      new BatchedRecordFetcher(loanTypesClient, "loantypes"), loanTypeIds)
 
-      def foundMaterialTypes = materialTypeResponses.stream()
-        .filter({ it.getStatusCode() == 200 })
-        .map({ it.getJson() })
-        .collect(Collectors.toMap({ it.getString("id") }, { it }))
+    CompletableFuture.allOf(materialTypesFuture, loanTypesFuture)
+      .thenApply({
+        new Tuple2<Map, Map>(materialTypesFuture.join(), loanTypesFuture.join())
+      })
+  }
 
-      def foundLoanTypes = loanTypeResponses.stream()
-        .filter({ it.getStatusCode() == 200 })
-        .map({ it.getJson() })
-        .collect(Collectors.toMap({ it.getString("id") }, { it }))
+  /**
+   * Fails when the records cannot be fetched, so that the caller can
+   * respond with an error (or end an export) rather than leave out the
+   * reference data
+   */
+  private CompletableFuture<Map<String, JsonObject>> getReferenceRecords(
+    WebContext context,
+    String collectionName,
+    BatchedRecordFetcher fetcher,
+    List<String> ids) {
 
-      JsonResponse.success(routingContext.response(),
-        new ItemRepresentation(relativeItemsPath())
-          .toJson(wrappedItems, foundMaterialTypes, foundLoanTypes, context))
-    })
+    referenceDataCache.getAll(context.tenantId, collectionName, ids,
+      { missingIds -> fetcher.fetchByIds(missingIds) })
   }
 }
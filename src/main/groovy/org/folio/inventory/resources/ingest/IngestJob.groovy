@@ -3,10 +3,19 @@ package org.folio.inventory.resources.ingest
 class IngestJob {
   final String id
   final IngestJobState state
+  final Map progress
 
   IngestJob(String id, IngestJobState state) {
+    this(id, state, null)
+  }
+
+  /**
+   * @param progress counts recorded for the job, null when there are none
+   */
+  IngestJob(String id, IngestJobState state, Map progress) {
     this.id = id
     this.state = state
+    this.progress = progress
   }
 
   IngestJob(IngestJobState state) {
@@ -14,10 +23,18 @@ class IngestJob {
   }
 
   def IngestJob copyWithNewId(String newId) {
-    new IngestJob(newId, this.state)
+    new IngestJob(newId, this.state, this.progress)
+  }
+
+  IngestJob inProgress() {
+    new IngestJob(this.id, IngestJobState.IN_PROGRESS, this.progress)
   }
 
   IngestJob complete() {
-    new IngestJob(this.id, IngestJobState.COMPLETED)
+    new IngestJob(this.id, IngestJobState.COMPLETED, this.progress)
+  }
+
+  IngestJob complete(Map progress) {
+    new IngestJob(this.id, IngestJobState.COMPLETED, progress)
   }
 }
@@ -1,19 +1,23 @@
 package org.folio.inventory.resources.ingest
 
-import io.vertx.core.json.JsonArray
-import io.vertx.core.json.JsonObject
+import org.folio.inventory.domain.ingest.IngestRecord
 
 class IngestRecordConverter {
-  def toJson(records) {
-    records.collect {
-      def convertedIdentifiers = it.identifiers.collect {
-        ["namespace": "${it.namespace}", "value": "${it.value}"]
-      }
+  List<IngestRecord> toRecords(List records) {
+    records.collect { toRecord(it as Map) }
+  }
 
-      new JsonObject()
-        .put("title", it.title)
-        .put("barcode", it.barcode)
-        .put("identifiers", new JsonArray(convertedIdentifiers))
+  /**
+   * The instance id is generated here, so that the item for a record can
+   * refer to its instance without looking it up once it has been created
+   */
+  IngestRecord toRecord(Map record) {
+    def convertedIdentifiers = record.identifiers.collect {
+      ["namespace": "${it.namespace}".toString(),
+       "value": "${it.value}".toString()]
     }
+
+    new IngestRecord(UUID.randomUUID().toString(), record.title as String,
+      record.barcode as String, convertedIdentifiers)
   }
 }
@@ -1,27 +1,56 @@
 package org.folio.inventory.resources.ingest
 
+import io.vertx.core.AsyncResult
+import io.vertx.core.Future
+import io.vertx.core.WorkerExecutor
+import io.vertx.core.file.AsyncFile
+import io.vertx.core.file.OpenOptions
+import io.vertx.core.json.JsonObject
 import io.vertx.ext.web.Router
 import io.vertx.ext.web.RoutingContext
 import io.vertx.ext.web.handler.BodyHandler
 import org.folio.inventory.CollectionResourceClient
+import org.folio.inventory.common.Context
 import org.folio.inventory.common.WebContext
 import org.folio.inventory.common.api.response.*
+import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
-import org.folio.inventory.domain.ingest.IngestMessages
+import org.folio.inventory.domain.ingest.IngestBatchSender
+import org.folio.inventory.domain.ingest.IngestProgress
+import org.folio.inventory.domain.ingest.IngestProgressRegistry
+import org.folio.inventory.parsing.EscapedUTF8CharacterEncoding
 import org.folio.inventory.parsing.ModsParser
-import org.folio.inventory.parsing.UTF8LiteralCharacterEncoding
 import org.folio.inventory.storage.Storage
 import org.folio.inventory.support.JsonArrayHelper
+import org.folio.inventory.support.ReadStreamInputStream
+import org.folio.inventory.support.cache.ReferenceDataCache
+import org.folio.inventory.support.diagnostics.Diagnostics
 import org.folio.inventory.support.http.client.OkapiHttpClient
-import org.folio.inventory.support.http.client.Response
+import org.folio.inventory.support.http.client.PooledHttpClient
 
 import java.util.concurrent.CompletableFuture
 
 class ModsIngestion {
   private final Storage storage
+  private final PooledHttpClient client
+  private final ReferenceDataCache referenceDataCache
+  private final IngestProgressRegistry progressRegistry
+  private final WorkerExecutor parsingWorkers
+  private final Map<String, Object> config
+
+  ModsIngestion(final Storage storage,
+                final PooledHttpClient client,
+                final ReferenceDataCache referenceDataCache,
+                final IngestProgressRegistry progressRegistry,
+                final WorkerExecutor parsingWorkers,
+                final Map<String, Object> config) {
 
-  ModsIngestion(final Storage storage) {
     this.storage = storage
+    this.client = client
+    this.referenceDataCache = referenceDataCache
+    this.progressRegistry = progressRegistry
+    this.parsingWorkers = parsingWorkers
+    this.config = config
   }
 
   public void register(Router router) {
@@ -40,101 +69,192 @@ class ModsIngestion {
     //TODO: Will only work for book material type and can circulate loan type
     def context = new WebContext(routingContext)
 
-    def client = new OkapiHttpClient(routingContext.vertx().createHttpClient(),
+    //Failures are given to each lookup, as they may be shared (via the cache)
+    def okapiClient = new OkapiHttpClient(client,
       new URL(context.okapiLocation), context.tenantId,
       context.token,
-      { ServerErrorResponse.internalError(routingContext.response(),
-      "Failed to retrieve material types: ${it}")})
+      { Diagnostics.global().error("Failed to retrieve reference data: ${it}") })
 
-    def materialTypesClient = new CollectionResourceClient(client,
+    def materialTypesClient = new CollectionResourceClient(okapiClient,
       new URL(context.okapiLocation + "/material-types"))
 
-    def loanTypesClient = new CollectionResourceClient(client,
+    def loanTypesClient = new CollectionResourceClient(okapiClient,
       new URL(context.okapiLocation + "/loan-types"))
 
-    def materialTypesRequestCompleted = new CompletableFuture<Response>()
-    def loanTypesRequestCompleted = new CompletableFuture<Response>()
+    def materialTypeFuture = findFirstByName(context, "material-types",
+      materialTypesClient, "mtypes", "Book")
 
-    materialTypesClient.getMany(
-      "query=" + URLEncoder.encode("name=\"Book\"", "UTF-8"),
-      { response -> materialTypesRequestCompleted.complete(response) })
+    def loanTypeFuture = findFirstByName(context, "loan-types",
+      loanTypesClient, "loantypes", "Can Circulate")
 
-    loanTypesClient.getMany(
-      "query=" + URLEncoder.encode("name=\"Can Circulate\"", "UTF-8"),
-      { response -> loanTypesRequestCompleted.complete(response) })
+    CompletableFuture.allOf(materialTypeFuture, loanTypeFuture)
+      .whenComplete({ v, error ->
 
-    CompletableFuture.allOf(materialTypesRequestCompleted, loanTypesRequestCompleted)
-      .thenAccept({ v ->
+      if (error != null) {
+        ServerErrorResponse.internalError(routingContext.response(),
+          error.cause?.message ?: error.message)
+
+        return
+      }
 
-      def materialTypeResponse = materialTypesRequestCompleted.get()
-      def loanTypeResponse = loanTypesRequestCompleted.get()
+      def materialType = materialTypeFuture.join()
+      def loanType = loanTypeFuture.join()
 
-      if (materialTypeResponse.statusCode != 200) {
+      if (materialType == null) {
         ServerErrorResponse.internalError(routingContext.response(),
-          "Unable to retrieve material types: ${materialTypeResponse.statusCode}: ${materialTypeResponse.body}")
+          "Unable to find material type: Book")
 
         return
       }
 
-      if (loanTypeResponse.statusCode != 200) {
+      if (loanType == null) {
         ServerErrorResponse.internalError(routingContext.response(),
-          "Unable to retrieve loan types: ${loanTypeResponse.statusCode}: ${loanTypeResponse.body}")
+          "Unable to find loan type: Can Circulate")
 
         return
       }
 
-      def bookMaterialTypeId =
-        JsonArrayHelper.toList(materialTypeResponse.json.getJsonArray("mtypes"))
-          .first().getString("id")
+      def bookMaterialTypeId = materialType.getString("id")
+      def canCirculateLoanTypeId = loanType.getString("id")
 
-      def canCirculateLoanTypeId =
-        JsonArrayHelper.toList(loanTypeResponse.json.getJsonArray("loantypes"))
-          .first().getString("id")
+      def jobCollection = storage.getIngestJobCollection(context)
 
-      routingContext.vertx().fileSystem().readFile(uploadFileName(routingContext),
-        { result ->
-          if (result.succeeded()) {
-            def uploadedFileContents = result.result().toString()
+      jobCollection.add(new IngestJob(IngestJobState.REQUESTED),
+        { Success<IngestJob> success ->
+          def job = success.result
 
-            def records = new ModsParser(new UTF8LiteralCharacterEncoding())
-              .parseRecords(uploadedFileContents)
+          def sender = new IngestBatchSender(routingContext.vertx().eventBus(),
+            config,
+            ["Book": bookMaterialTypeId],
+            ["Can Circulate": canCirculateLoanTypeId],
+            job.id, progressRegistry.start(job.id), context)
 
-            def convertedRecords = new IngestRecordConverter().toJson(records)
+          jobCollection.update(job.inProgress(), { },
+            { Failure failure ->
+              Diagnostics.global().error(
+                "Updating ingest job failed: ${failure.reason}") })
 
-            storage.getIngestJobCollection(context)
-              .add(new IngestJob(IngestJobState.REQUESTED),
-              { Success success ->
+          parseUploadedFile(routingContext, sender)
 
-                IngestMessages.start(convertedRecords,
-                  ["Book": bookMaterialTypeId],
-                  ["Can Circulate": canCirculateLoanTypeId],
-                  success.result.id, context)
-                  .send(routingContext.vertx())
+          RedirectResponse.accepted(routingContext.response(),
+            statusLocation(routingContext, job.id))
+        },
+        {
+          Diagnostics.global().error("Creating Ingest Job failed")
+        })
+    })
+  }
 
-                RedirectResponse.accepted(routingContext.response(),
-                  statusLocation(routingContext, success.result.id))
-              },
-              {
-                println("Creating Ingest Job failed")
-              })
+  /**
+   * Streams the uploaded file through the parser on an ingest worker thread,
+   * converting each record and handing it to the sender as soon as it has
+   * been read, so that neither the file contents nor a document tree of it
+   * are held in memory.
+   *
+   * The job is completed even when the file cannot be read or parsed,
+   * records already sent are still ingested.
+   */
+  private void parseUploadedFile(
+    RoutingContext routingContext,
+    IngestBatchSender sender) {
+
+    def vertx = routingContext.vertx()
+
+    vertx.fileSystem().open(uploadFileName(routingContext),
+      new OpenOptions().setRead(true).setWrite(false).setCreate(false),
+      { AsyncResult<AsyncFile> openResult ->
+        def file = openResult.succeeded() ? openResult.result() : null
+
+        parsingWorkers.executeBlocking({ Future<IngestProgress> parsed ->
+          try {
+            if (file == null) {
+              throw openResult.cause()
+            }
+
+            def converter = new IngestRecordConverter()
+
+            new ModsParser(new EscapedUTF8CharacterEncoding())
+              .parseRecords(new ReadStreamInputStream(file),
+                { sender.add(converter.toRecord(it)) })
+
+            parsed.complete(sender.finish())
+          }
+          catch (Throwable e) {
+            sender.finish()
+            parsed.fail(e)
+          }
+        }, false,
+        { AsyncResult<IngestProgress> parseResult ->
+          file?.close()
 
-          } else {
-            ServerErrorResponse.internalError(
-              routingContext.response(), result.cause().toString())
+          if (parseResult.failed()) {
+            Diagnostics.global().error(
+              "Parsing uploaded MODS file failed: ${parseResult.cause()}")
           }
         })
+      })
+  }
+
+  private CompletableFuture<JsonObject> findFirstByName(
+    Context context,
+    String collectionName,
+    CollectionResourceClient collectionClient,
+    String collectionPropertyName,
+    String name) {
+
+    def query = "name=\"${name}\""
+
+    referenceDataCache.get(context.tenantId, collectionName, query, {
+      def fetched = new CompletableFuture<JsonObject>()
+
+      collectionClient.getMany(
+        "query=" + URLEncoder.encode(query, "UTF-8"),
+        { response ->
+          if (response.statusCode == 200) {
+            def records = JsonArrayHelper.toList(
+              response.json.getJsonArray(collectionPropertyName))
+
+            fetched.complete(records.isEmpty() ? null : records.first())
+          }
+          else {
+            fetched.completeExceptionally(new Exception(
+              "Unable to retrieve ${collectionName}: ${response.statusCode}: ${response.body}"))
+          }
+        },
+        { Throwable error -> fetched.completeExceptionally(error) })
+
+      fetched
     })
   }
 
+  /**
+   * Progress is live whilst the job is running in this process, otherwise it
+   * is what was recorded when the job completed
+   */
   private status(RoutingContext routingContext) {
 
     def context = new WebContext(routingContext)
 
     storage.getIngestJobCollection(context)
       .findById(routingContext.request().getParam("id"),
-      { Success it ->
-        JsonResponse.success(routingContext.response(),
-          ["status" : it.result.state.toString()])
+      { Success<IngestJob> it ->
+        def job = it.result
+
+        if(job == null) {
+          ClientErrorResponse.notFound(routingContext.response())
+          return
+        }
+
+        def status = ["status" : job.state.toString()]
+
+        def progress = progressRegistry.forJob(job.id)?.toJson()?.map ?:
+          job.progress
+
+        if(progress != null) {
+          status.put("progress", progress)
+        }
+
+        JsonResponse.success(routingContext.response(), status)
       }, FailureResponseConsumer.serverError(routingContext.response()))
   }
 
@@ -1,25 +1,47 @@
 package org.folio.inventory.storage
 
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
 import io.vertx.core.Vertx
 import org.folio.inventory.common.Context
 import org.folio.inventory.domain.CollectionProvider
 import org.folio.inventory.domain.InstanceCollection
 import org.folio.inventory.domain.ItemCollection
 import org.folio.inventory.domain.ingest.IngestJobCollection
+import org.folio.inventory.storage.external.CoalescedReads
 import org.folio.inventory.storage.external.ExternalStorageCollections
+import org.folio.inventory.storage.file.FileIngestJobCollections
+import org.folio.inventory.support.cache.StorageRecordCache
+import org.folio.inventory.support.http.client.PooledHttpClient
 
+import java.util.concurrent.Callable
 import java.util.function.Function
 
 class Storage {
+  //Okapi locations come from request headers, so only the most recent are kept
+  public static final int MAXIMUM_OKAPI_LOCATIONS = 10
+
+  //Shared by every verticle instance, like jobs kept in files
+  private static final Function<String, IngestJobCollection> IN_MEMORY_INGEST_JOBS =
+    ExternalStorageCollections.inMemoryIngestJobCollections()
+
   private final Function<Context, CollectionProvider> providerFactory;
 
   Storage( final Function<Context, CollectionProvider> providerFactory) {
     this.providerFactory = providerFactory
   }
 
-  static Storage basedUpon(Vertx vertx, Map<String, Object> config) {
+  static Storage basedUpon(
+    Vertx vertx,
+    Map<String, Object> config,
+    PooledHttpClient client) {
+
     def storageType = config.get("storage.type", "okapi")
 
+    def ingestJobCollections = ingestJobCollectionsFromConfig(config)
+    def reads = CoalescedReads.fromConfig(config)
+    def records = StorageRecordCache.shared(config)
+
     switch(storageType) {
       case "external":
         def location = config.get("storage.location", null)
@@ -29,14 +51,26 @@ class Storage {
             "For external storage, location must be provided.")
         }
 
-        return new Storage(
-          { context -> new ExternalStorageCollections(vertx, location) })
+        def collections = new ExternalStorageCollections(client, location,
+          ingestJobCollections, reads, records)
+
+        return new Storage({ context -> collections })
         break
 
       case "okapi":
+        Cache<String, ExternalStorageCollections> collectionsByLocation =
+          CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_OKAPI_LOCATIONS)
+            .build()
+
         return new Storage(
         { context ->
-          new ExternalStorageCollections(vertx, context.okapiLocation) })
+          def okapiLocation = context.okapiLocation ?: ""
+
+          collectionsByLocation.get(okapiLocation,
+            { new ExternalStorageCollections(client, okapiLocation,
+              ingestJobCollections, reads, records) } as Callable)
+        })
         break
 
       default:
@@ -45,6 +79,21 @@ class Storage {
     }
   }
 
+  /**
+   * Jobs are kept in log files in the ingest.jobs.directory when it is
+   * configured, otherwise in memory. They are shared by all storage locations
+   * and verticle instances.
+   */
+  private static Function<String, IngestJobCollection> ingestJobCollectionsFromConfig(
+    Map<String, Object> config) {
+
+    def directory = config.get("ingest.jobs.directory")
+
+    directory == null || directory.toString().trim().isEmpty()
+      ? IN_MEMORY_INGEST_JOBS
+      : FileIngestJobCollections.forDirectory(directory.toString())
+  }
+
   ItemCollection getItemCollection(Context context) {
     providerFactory.apply(context).getItemCollection(context.tenantId, context.token)
   }
@@ -0,0 +1,114 @@
+package org.folio.inventory.storage.external
+
+import groovy.transform.CompileStatic
+import org.folio.inventory.common.domain.Failure
+import org.folio.inventory.common.domain.Success
+import org.folio.inventory.support.SingleFlight
+
+import java.util.concurrent.CompletableFuture
+import java.util.function.BiConsumer
+import java.util.function.Consumer
+
+/**
+ * Identical reads from storage (the same tenant and location) which are in
+ * flight at the same time share a single request, with the outcome (success
+ * or failure) given to every caller. Nothing is kept once the request
+ * completes, and requests in flight are no longer shared once a collection
+ * has been changed (see invalidate).
+ *
+ * Shared by every verticle instance, see SingleFlight
+ */
+@CompileStatic
+class CoalescedReads {
+  private static final CoalescedReads GLOBAL =
+    new CoalescedReads(new SingleFlight<Object>())
+
+  private static final CoalescedReads NONE = new CoalescedReads(null)
+
+  private final SingleFlight<Object> inFlight
+
+  private CoalescedReads(SingleFlight<Object> inFlight) {
+    this.inFlight = inFlight
+  }
+
+  static CoalescedReads global() {
+    GLOBAL
+  }
+
+  static CoalescedReads none() {
+    NONE
+  }
+
+  /**
+   * Reads are coalesced unless storage.coalesce.reads is false
+   */
+  static CoalescedReads fromConfig(Map<String, Object> config) {
+    def enabled = config.get("storage.coalesce.reads")
+
+    enabled == null || Boolean.parseBoolean(enabled.toString())
+      ? global()
+      : none()
+  }
+
+  SingleFlight<Object> getInFlight() {
+    inFlight
+  }
+
+  /**
+   * Reads already in flight for locations starting with the prefix are not
+   * shared with later callers, as they may have been made before a change
+   */
+  void invalidate(String tenant, String locationPrefix) {
+    if(inFlight != null) {
+      inFlight.forget(key(tenant, locationPrefix))
+    }
+  }
+
+  /**
+   * @param read makes the request to storage, calling back with the success
+   * or failure
+   */
+  public <T> void read(
+    String tenant,
+    String location,
+    BiConsumer<Consumer<Success<T>>, Consumer<Failure>> read,
+    Consumer<Success<T>> resultCallback,
+    Consumer<Failure> failureCallback) {
+
+    if(inFlight == null) {
+      read.accept(resultCallback, failureCallback)
+      return
+    }
+
+    inFlight.execute(key(tenant, location), {
+      def outcome = new CompletableFuture<Object>()
+
+      Consumer<Success<T>> onSuccess = { Success<T> success ->
+        outcome.complete(success)
+      }
+
+      Consumer<Failure> onFailure = { Failure failure ->
+        outcome.complete(failure)
+      }
+
+      read.accept(onSuccess, onFailure)
+
+      outcome
+    })
+    .whenComplete({ Object outcome, Throwable exception ->
+      if(exception != null) {
+        failureCallback.accept(new Failure(exception.getMessage(), null))
+      }
+      else if(outcome instanceof Failure) {
+        failureCallback.accept((Failure)outcome)
+      }
+      else {
+        resultCallback.accept((Success<T>)outcome)
+      }
+    })
+  }
+
+  private static String key(String tenant, String location) {
+    tenant + " " + location
+  }
+}
@@ -0,0 +1,187 @@
+package org.folio.inventory.storage.external
+
+import io.vertx.core.Handler
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpClientRequest
+import io.vertx.core.http.HttpClientResponse
+import io.vertx.core.http.HttpMethod
+import io.vertx.core.json.Json
+import io.vertx.core.json.JsonArray
+import io.vertx.core.json.JsonObject
+import org.folio.inventory.common.domain.BatchResult
+import org.folio.inventory.common.domain.Failure
+import org.folio.inventory.common.domain.Success
+import org.folio.inventory.support.BoundedConcurrency
+import org.folio.inventory.support.JsonArrayHelper
+import org.folio.inventory.support.http.client.PooledHttpClient
+import org.folio.inventory.support.metrics.Metrics
+import org.folio.inventory.support.resilience.RejectedRequestException
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.function.BiConsumer
+import java.util.function.Consumer
+
+/**
+ * Adds many records using a single request to the storage module's batch
+ * interface. When the storage module does not provide one (the request is
+ * not found, not allowed or forbidden), records are added using individual
+ * requests, a limited number at a time, and the batch interface is not
+ * tried again for a while (in case the storage module is upgraded).
+ */
+class ExternalStorageBatchAdd<T> {
+  public static final int DEFAULT_MAXIMUM_SINGLE_ADDS_IN_FLIGHT = 10
+  public static final long BATCH_RETRY_MILLISECONDS = 300000
+
+  private static final ConcurrentMap<String, Long> batchUnavailableUntil =
+    new ConcurrentHashMap<>()
+
+  private final PooledHttpClient client
+  private final String batchLocation
+  private final String collectionPropertyName
+  private final String tenant
+  private final String token
+
+  ExternalStorageBatchAdd(
+    PooledHttpClient client,
+    String batchLocation,
+    String collectionPropertyName,
+    String tenant,
+    String token) {
+
+    this.client = client
+    this.batchLocation = batchLocation
+    this.collectionPropertyName = collectionPropertyName
+    this.tenant = tenant
+    this.token = token
+  }
+
+  /**
+   * @param toRequest maps a record to the representation to send, which must include an id
+   * @param fromJson maps a created representation back to a record
+   * @param singleAdd adds a single record (record, success callback, failure callback)
+   */
+  void addAll(
+    List<T> records,
+    Closure<Map> toRequest,
+    Closure<T> fromJson,
+    Closure singleAdd,
+    Consumer<Success<List<BatchResult<T>>>> resultCallback,
+    Consumer<Failure> failureCallback) {
+
+    if(records.isEmpty()) {
+      resultCallback.accept(new Success<List<BatchResult<T>>>([]))
+      return
+    }
+
+    if(batchUnavailable()) {
+      addIndividually(records, singleAdd, resultCallback)
+      return
+    }
+
+    def requests = records.collect(toRequest)
+
+    def onResponse = { HttpClientResponse response, Buffer buffer ->
+      def responseBody = "${buffer.getString(0, buffer.length())}"
+      def statusCode = response.statusCode()
+
+      if(statusCode in [403, 404, 405, 501]) {
+        batchUnavailableUntil.put(batchLocation,
+          System.currentTimeMillis() + BATCH_RETRY_MILLISECONDS)
+
+        addIndividually(records, singleAdd, resultCallback)
+      }
+      else if(statusCode == 201) {
+        batchUnavailableUntil.remove(batchLocation)
+
+        def body = new JsonObject(responseBody)
+
+        def created = JsonArrayHelper.toList(
+          body.getJsonArray(collectionPropertyName, new JsonArray()))
+          .collectEntries { [(it.getString("id")): it] }
+
+        def errorMessages = body.getJsonArray("errorMessages", new JsonArray())
+          .getList().join(", ")
+
+        resultCallback.accept(new Success<List<BatchResult<T>>>(
+          requests.collect { request ->
+            def createdRecord = created.get(request.id)
+
+            createdRecord != null
+              ? BatchResult.succeeded(fromJson(createdRecord))
+              : BatchResult.failed(new Failure(
+                errorMessages ?: "Record ${request.id} was not created",
+                statusCode))
+          }))
+      }
+      else {
+        def failure = new Failure(responseBody, statusCode)
+
+        resultCallback.accept(new Success<List<BatchResult<T>>>(
+          requests.collect { BatchResult.failed(failure) }))
+      }
+    } as BiConsumer<HttpClientResponse, Buffer>
+
+    def timing = Metrics.global().start(Metrics.STORAGE_OPERATIONS,
+      "collection", collectionPropertyName, "operation", "addAll",
+      "tenant", tenant)
+
+    def encodedRequests = Json.encode([(collectionPropertyName): requests])
+
+    client.request(HttpMethod.POST, batchLocation, tenant, "addAll", timing,
+      onResponse,
+      { Throwable it ->
+        failureCallback.accept(new Failure(it.getMessage(),
+          it instanceof RejectedRequestException ? 503 : null))
+      } as Handler<Throwable>,
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Content-Type", "application/json")
+          .putHeader("Accept", "application/json")
+          .end(encodedRequests)
+      } as Handler<HttpClientRequest>)
+  }
+
+  private boolean batchUnavailable() {
+    def until = batchUnavailableUntil.get(batchLocation)
+
+    if(until == null) {
+      return false
+    }
+
+    if(System.currentTimeMillis() >= until) {
+      batchUnavailableUntil.remove(batchLocation, until)
+      return false
+    }
+
+    true
+  }
+
+  private void addIndividually(
+    List<T> records,
+    Closure singleAdd,
+    Consumer<Success<List<BatchResult<T>>>> resultCallback) {
+
+    def concurrency = new BoundedConcurrency(
+      DEFAULT_MAXIMUM_SINGLE_ADDS_IN_FLIGHT)
+
+    List<CompletableFuture<BatchResult<T>>> results = records.collect { record ->
+      concurrency.submit({
+        def added = new CompletableFuture<BatchResult<T>>()
+
+        singleAdd(record,
+          { Success<T> success -> added.complete(BatchResult.succeeded(success.result)) },
+          { Failure failure -> added.complete(BatchResult.failed(failure)) })
+
+        added
+      })
+    }
+
+    CompletableFuture.allOf(*results).thenAccept({
+      resultCallback.accept(new Success<List<BatchResult<T>>>(
+        results.collect { it.join() }))
+    })
+  }
+}
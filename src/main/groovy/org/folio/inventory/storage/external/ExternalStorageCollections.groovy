@@ -1,37 +1,82 @@
 package org.folio.inventory.storage.external
 
-import io.vertx.core.Vertx
 import org.folio.inventory.domain.CollectionProvider
 import org.folio.inventory.domain.InstanceCollection
 import org.folio.inventory.domain.ItemCollection
 import org.folio.inventory.domain.ingest.IngestJobCollection
-import org.folio.inventory.storage.memory.InMemoryIngestJobCollection
+import org.folio.inventory.storage.memory.InMemoryCollections
+import org.folio.inventory.support.cache.StorageRecordCache
+import org.folio.inventory.support.http.client.PooledHttpClient
+
+import java.util.function.Function
 
 class ExternalStorageCollections implements CollectionProvider {
-  private final Vertx vertx
+  private final PooledHttpClient client
   private final String baseAddress
+  private final Function<String, IngestJobCollection> ingestJobCollections
+  private final CoalescedReads reads
+  private final StorageRecordCache records
+
+  /**
+   * @param client owned by the caller, which must close it
+   */
+  def ExternalStorageCollections(PooledHttpClient client, String baseAddress) {
+    this(client, baseAddress, inMemoryIngestJobCollections())
+  }
 
-  private static final InMemoryIngestJobCollection ingestJobCollection =
-    new InMemoryIngestJobCollection()
+  /**
+   * @param ingestJobCollections provides the job collection for a tenant
+   */
+  def ExternalStorageCollections(
+    PooledHttpClient client,
+    String baseAddress,
+    Function<String, IngestJobCollection> ingestJobCollections) {
+
+    this(client, baseAddress, ingestJobCollections, CoalescedReads.global(),
+      StorageRecordCache.disabled())
+  }
 
-  def ExternalStorageCollections(Vertx vertx, String baseAddress) {
-    this.vertx = vertx
+  /**
+   * @param reads coalesces identical reads from storage in flight at once
+   * @param records caches items and instances fetched by id
+   */
+  def ExternalStorageCollections(
+    PooledHttpClient client,
+    String baseAddress,
+    Function<String, IngestJobCollection> ingestJobCollections,
+    CoalescedReads reads,
+    StorageRecordCache records) {
+
+    this.client = client
     this.baseAddress = baseAddress
+    this.ingestJobCollections = ingestJobCollections
+    this.reads = reads
+    this.records = records
   }
 
   @Override
   ItemCollection getItemCollection(String tenantId, String token) {
-    new ExternalStorageModuleItemCollection(vertx, baseAddress, tenantId, token)
+    new ExternalStorageModuleItemCollection(client, baseAddress, tenantId, token,
+      reads, records)
   }
 
   @Override
   InstanceCollection getInstanceCollection(String tenantId, String token) {
-    new ExternalStorageModuleInstanceCollection(vertx, baseAddress, tenantId, token)
+    new ExternalStorageModuleInstanceCollection(client, baseAddress, tenantId,
+      token, reads, records)
   }
 
   @Override
   IngestJobCollection getIngestJobCollection(String tenantId, String token) {
     //There is no external storage implementation for Jobs yet
-    ingestJobCollection
+    ingestJobCollections.apply(tenantId)
+  }
+
+  static Function<String, IngestJobCollection> inMemoryIngestJobCollections() {
+    def collections = new InMemoryCollections()
+
+    return { String tenantId ->
+      collections.getIngestJobCollection(tenantId ?: "", null)
+    } as Function<String, IngestJobCollection>
   }
 }
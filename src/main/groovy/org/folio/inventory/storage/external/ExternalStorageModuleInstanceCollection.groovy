@@ -1,36 +1,62 @@
 package org.folio.inventory.storage.external
 
+import groovy.transform.CompileStatic
 import io.vertx.core.Handler
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpClientRequest
 import io.vertx.core.http.HttpMethod
 import io.vertx.core.json.Json
 import io.vertx.core.json.JsonArray
 import io.vertx.core.json.JsonObject
-import io.vertx.core.Vertx
 import io.vertx.core.http.HttpClientResponse
 import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.domain.Instance
 import org.folio.inventory.domain.InstanceCollection
+import org.folio.inventory.support.cache.StorageRecordCache
+import org.folio.inventory.support.http.client.PooledHttpClient
+import org.folio.inventory.support.metrics.Metrics
+import org.folio.inventory.support.metrics.Timing
+import org.folio.inventory.support.resilience.RejectedRequestException
 
+import java.util.function.BiConsumer
 import java.util.function.Consumer
 
+@CompileStatic
 class ExternalStorageModuleInstanceCollection
   implements InstanceCollection {
 
-  private final Vertx vertx
+  private static final String COLLECTION_NAME = "instances"
+
+  private final PooledHttpClient client
   private final String storageModuleAddress
   private final String tenant
   private final String token
+  private final CoalescedReads reads
+  private final StorageRecordCache records
 
-  def ExternalStorageModuleInstanceCollection(Vertx vertx,
+  def ExternalStorageModuleInstanceCollection(PooledHttpClient client,
                                               String storageModuleAddress,
                                               String tenant,
                                               String token) {
-    this.vertx = vertx
+    this(client, storageModuleAddress, tenant, token, CoalescedReads.global(),
+      StorageRecordCache.disabled())
+  }
+
+  def ExternalStorageModuleInstanceCollection(PooledHttpClient client,
+                                              String storageModuleAddress,
+                                              String tenant,
+                                              String token,
+                                              CoalescedReads reads,
+                                              StorageRecordCache records) {
+    this.client = client
     this.storageModuleAddress = storageModuleAddress
     this.tenant = tenant
     this.token = token
+    this.reads = reads
+    this.records = records
   }
 
   @Override
@@ -40,69 +66,124 @@ class ExternalStorageModuleInstanceCollection
 
     String location = storageModuleAddress + "/instance-storage/instances"
 
-    def onResponse = { HttpClientResponse response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 201) {
-          def createdInstance = mapFromJson(new JsonObject(responseBody))
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
 
-          resultCallback.accept(new Success<Instance>(createdInstance))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      if(statusCode == 201) {
+        def createdInstance = mapFromJson(new JsonObject(responseBody))
+
+        resultCallback.accept(new Success<Instance>(createdInstance))
+      }
+      else {
+        failureCallback.accept(new Failure(responseBody, statusCode))
+      }
     }
 
     def instanceToSend = mapToInstanceRequest(instance)
 
-    vertx.createHttpClient().requestAbs(HttpMethod.POST, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .putHeader("Content-Type", "application/json")
-      .end(Json.encodePrettily(instanceToSend))
+    client.request(HttpMethod.POST, location, tenant, "add", timing("add"),
+      onResponse, exceptionHandler(failureCallback),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json")
+          .putHeader("Content-Type", "application/json")
+          .end(Json.encode(instanceToSend))
+      } as Handler<HttpClientRequest>)
+  }
+
+  @Override
+  void addAll(List<Instance> instances,
+              Consumer<Success<List<BatchResult<Instance>>>> resultCallback,
+              Consumer<Failure> failureCallback) {
+
+    new ExternalStorageBatchAdd<Instance>(client,
+      "${storageModuleAddress}/instance-storage/batch/instances", "instances", tenant, token)
+      .addAll(instances, this.&mapToInstanceRequest, this.&mapFromJson,
+        this.&add, resultCallback, failureCallback)
   }
 
   @Override
   void findById(String id,
                 Consumer<Success<Instance>> resultCallback,
                 Consumer<Failure> failureCallback) {
+
+    def cached = records.get(tenant, COLLECTION_NAME, id)
+
+    if(records.isFresh(cached)) {
+      resultCallback.accept(new Success<Instance>(mapFromJson(cached.record)))
+      return
+    }
+
     String location = storageModuleAddress + "/instance-storage/instances/${id}"
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    reads.read(tenant, location,
+      { Consumer<Success<Instance>> onSuccess, Consumer<Failure> onFailure ->
+        getById(id, location, onSuccess, onFailure)
+      } as BiConsumer<Consumer<Success<Instance>>, Consumer<Failure>>,
+      resultCallback, failureCallback)
+  }
 
-        switch (statusCode) {
-          case 200:
-            def instanceFromServer = new JsonObject(responseBody)
+  private void getById(
+    String id,
+    String location,
+    Consumer<Success<Instance>> resultCallback,
+    Consumer<Failure> failureCallback) {
 
-            def foundInstance = mapFromJson(instanceFromServer)
+    def cached = records.get(tenant, COLLECTION_NAME, id)
+    def generation = records.generation()
 
-            resultCallback.accept(new Success(foundInstance))
-            break
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-          case 404:
-            resultCallback.accept(new Success(null))
-            break
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
 
-          default:
-            failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      switch (statusCode) {
+        case 200:
+          def instanceFromServer = new JsonObject(responseBody)
+
+          records.put(tenant, COLLECTION_NAME, id, instanceFromServer,
+            response.getHeader("ETag"), generation)
+
+          def foundInstance = mapFromJson(instanceFromServer)
+
+          resultCallback.accept(new Success(foundInstance))
+          break
+
+        case 304:
+          //Only asked for when there is a cached record
+          records.put(tenant, COLLECTION_NAME, id, cached.record,
+            cached.entityTag, generation)
+
+          resultCallback.accept(new Success(mapFromJson(cached.record)))
+          break
+
+        case 404:
+          resultCallback.accept(new Success(null))
+          break
+
+        default:
+          failureCallback.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().requestAbs(HttpMethod.GET, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .end()
+    client.request(HttpMethod.GET, location, tenant, "findById",
+      timing("findById"), onResponse, exceptionHandler(failureCallback),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json")
+
+        if(cached != null && cached.entityTag != null) {
+          request.putHeader("If-None-Match", cached.entityTag)
+        }
+
+        request.end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
@@ -113,95 +194,75 @@ class ExternalStorageModuleInstanceCollection
       + "/instance-storage/instances?limit=%s&offset=%s",
       pagingParameters.limit, pagingParameters.offset)
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
-
-        if(statusCode == 200) {
-          def wrappedInstances = new JsonObject(responseBody)
-
-          def instances = wrappedInstances.getJsonArray("instances")
-
-          def foundInstances = new ArrayList<Instance>()
-
-          instances.each {
-            foundInstances.add(mapFromJson(it))
-          }
-
-          resultCallback.accept(new Success([
-            "instances" : foundInstances,
-            "totalRecords" : wrappedInstances.getInteger("totalRecords")
-          ]))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
-    }
-
-    vertx.createHttpClient().requestAbs(HttpMethod.GET, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .end()
+    reads.read(tenant, location, pageRequest(location, "findAll"),
+      resultCallback, failureCallback)
   }
 
   @Override
   void delete(String id,
               Consumer<Success> completionCallback,
               Consumer<Failure> failureCallback) {
+
+    def onCompletion = afterInvalidating(id, completionCallback)
+    def onFailure = afterInvalidating(id, failureCallback)
+
     String location = "${storageModuleAddress}/instance-storage/instances/${id}"
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statucCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statucCode == 204) {
-          completionCallback.accept(new Success())
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statucCode))
-        }
-      })
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 204) {
+        onCompletion.accept(new Success(null))
+      }
+      else {
+        onFailure.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().requestAbs(HttpMethod.DELETE, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json, text/plain")
-      .end()
+    client.request(HttpMethod.DELETE, location, tenant, "delete", timing("delete"),
+      onResponse, exceptionHandler(onFailure),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json, text/plain")
+          .end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
   void empty(Consumer<Success> completionCallback,
              Consumer<Failure> failureCallback) {
 
+    def onCompletion = afterInvalidating(null, completionCallback)
+    def onFailure = afterInvalidating(null, failureCallback)
+
     String location = storageModuleAddress + "/instance-storage/instances"
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 204) {
-          completionCallback.accept(new Success())
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 204) {
+        onCompletion.accept(new Success(null))
+      }
+      else {
+        onFailure.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().requestAbs(HttpMethod.DELETE, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json, text/plain")
-      .end()
+    client.request(HttpMethod.DELETE, location, tenant, "empty", timing("empty"),
+      onResponse, exceptionHandler(onFailure),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json, text/plain")
+          .end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
@@ -217,39 +278,61 @@ class ExternalStorageModuleInstanceCollection
         String.format("&limit=%s&offset=%s", pagingParameters.limit,
           pagingParameters.offset)
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    reads.read(tenant, location.toString(),
+      pageRequest(location.toString(), "findByCql"),
+      resultCallback, failureCallback)
+  }
 
-        if(statusCode == 200) {
-          def wrappedInstances = new JsonObject(responseBody)
+  private BiConsumer<Consumer<Success<Map>>, Consumer<Failure>> pageRequest(
+    String location,
+    String operation) {
 
-          def instances = wrappedInstances.getJsonArray("instances")
+    return { Consumer<Success<Map>> onSuccess, Consumer<Failure> onFailure ->
+      getPage(location, operation, onSuccess, onFailure)
+    } as BiConsumer<Consumer<Success<Map>>, Consumer<Failure>>
+  }
 
-          def foundInstances = new ArrayList<Instance>()
+  private void getPage(
+    String location,
+    String operation,
+    Consumer<Success<Map>> resultCallback,
+    Consumer<Failure> failureCallback) {
 
-          instances.each {
-            foundInstances.add(mapFromJson(it))
-          }
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-          resultCallback.accept(new Success([
-            "instances" : foundInstances,
-            "totalRecords" : wrappedInstances.getInteger("totalRecords")
-          ]))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 200) {
+        def wrappedInstances = new JsonObject(responseBody)
+
+        def instances = wrappedInstances.getJsonArray("instances")
+
+        def foundInstances = new ArrayList<Instance>()
+
+        for(Object instance : instances) {
+          foundInstances.add(mapFromJson((JsonObject)instance))
         }
-      })
+
+        resultCallback.accept(new Success([
+          "instances" : foundInstances,
+          "totalRecords" : wrappedInstances.getInteger("totalRecords")
+        ]))
+      }
+      else {
+        failureCallback.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().getAbs(location.toString(), onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .end()
+    client.request(HttpMethod.GET, location, tenant, operation, timing(operation),
+      onResponse, exceptionHandler(failureCallback),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json")
+          .end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
@@ -257,31 +340,36 @@ class ExternalStorageModuleInstanceCollection
               Consumer<Success> completionCallback,
               Consumer<Failure> failureCallback) {
 
+    def onCompletion = afterInvalidating(instance.id, completionCallback)
+    def onFailure = afterInvalidating(instance.id, failureCallback)
+
     String location = "${storageModuleAddress}/instance-storage/instances/${instance.id}"
 
-    def onResponse = { HttpClientResponse response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 204) {
-          completionCallback.accept(new Success(null))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 204) {
+        onCompletion.accept(new Success(null))
+      }
+      else {
+        onFailure.accept(new Failure(responseBody, statusCode))
+      }
     }
 
     def instanceToSend = mapToInstanceRequest(instance)
 
-    vertx.createHttpClient().requestAbs(HttpMethod.PUT, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Content-Type", "application/json")
-      .putHeader("Accept", "text/plain")
-      .end(Json.encodePrettily(instanceToSend))
+    client.request(HttpMethod.PUT, location, tenant, "update", timing("update"),
+      onResponse, exceptionHandler(onFailure),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Content-Type", "application/json")
+          .putHeader("Accept", "text/plain")
+          .end(Json.encode(instanceToSend))
+      } as Handler<HttpClientRequest>)
 
   }
 
@@ -296,25 +384,54 @@ class ExternalStorageModuleInstanceCollection
   }
 
   private Instance mapFromJson(JsonObject instanceFromServer) {
+    def identifiers = new ArrayList<Map>()
 
-    def identifiers = toList(
-      instanceFromServer.getJsonArray("identifiers", new JsonArray()))
+    for(Object entry : instanceFromServer.getJsonArray("identifiers", new JsonArray())) {
+      def identifier = (JsonObject)entry
+
+      identifiers.add([
+        'namespace' : identifier.getString("namespace"),
+        'value' : identifier.getString("value") ])
+    }
 
     new Instance(
       instanceFromServer.getString("id"),
       instanceFromServer.getString("title"),
-      identifiers.collect( {
-        [ 'namespace' : it.getString("namespace"),
-          'value' : it.getString("value") ] }))
+      identifiers)
   }
 
-  private toList(JsonArray array) {
-    array.stream().collect()
+  /**
+   * Cached records are removed (and reads in flight no longer shared) once
+   * they have been changed in storage, whether or not that succeeded (every
+   * record when the id is null)
+   */
+  private <T> Consumer<T> afterInvalidating(String id, Consumer<T> callback) {
+    return { T outcome ->
+      if(id == null) {
+        records.invalidate(tenant, COLLECTION_NAME)
+      }
+      else {
+        records.invalidate(tenant, COLLECTION_NAME, id)
+      }
+
+      //Any read of the collection may include the record
+      reads.invalidate(tenant, storageModuleAddress + "/instance-storage/instances")
+
+      callback.accept(outcome)
+    } as Consumer<T>
+  }
+
+  private Timing timing(String operation) {
+    Metrics.global().start(Metrics.STORAGE_OPERATIONS,
+      "collection", "instances", "operation", operation, "tenant", tenant)
   }
 
   private Handler<Throwable> exceptionHandler(Consumer<Failure> failureCallback) {
     return { Throwable it ->
-      failureCallback.accept(new Failure(it.getMessage(), null))
-    }
+      //Not made, as storage is failing or overloaded
+      Integer statusCode = it instanceof RejectedRequestException ? 503 : null
+
+      failureCallback.accept(new Failure(it.getMessage(), statusCode))
+    } as Handler<Throwable>
   }
 }
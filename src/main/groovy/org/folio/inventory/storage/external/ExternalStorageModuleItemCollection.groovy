@@ -1,35 +1,61 @@
 package org.folio.inventory.storage.external
 
+import groovy.transform.CompileStatic
 import io.vertx.core.Handler
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpClientRequest
 import io.vertx.core.http.HttpMethod
 import io.vertx.core.json.Json
 import io.vertx.core.json.JsonObject
-import io.vertx.core.Vertx
 import io.vertx.core.http.HttpClientResponse
 import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.domain.Item
 import org.folio.inventory.domain.ItemCollection
+import org.folio.inventory.support.cache.StorageRecordCache
+import org.folio.inventory.support.http.client.PooledHttpClient
+import org.folio.inventory.support.metrics.Metrics
+import org.folio.inventory.support.metrics.Timing
+import org.folio.inventory.support.resilience.RejectedRequestException
 
+import java.util.function.BiConsumer
 import java.util.function.Consumer
 
+@CompileStatic
 class ExternalStorageModuleItemCollection
   implements ItemCollection {
 
-  private final Vertx vertx
+  private static final String COLLECTION_NAME = "items"
+
+  private final PooledHttpClient client
   private final String storageAddress
   private final String tenant
   private final String token
+  private final CoalescedReads reads
+  private final StorageRecordCache records
 
-  def ExternalStorageModuleItemCollection(Vertx vertx,
+  def ExternalStorageModuleItemCollection(PooledHttpClient client,
                                           String storageAddress,
                                           String tenant,
                                           String token) {
-    this.vertx = vertx
+    this(client, storageAddress, tenant, token, CoalescedReads.global(),
+      StorageRecordCache.disabled())
+  }
+
+  def ExternalStorageModuleItemCollection(PooledHttpClient client,
+                                          String storageAddress,
+                                          String tenant,
+                                          String token,
+                                          CoalescedReads reads,
+                                          StorageRecordCache records) {
+    this.client = client
     this.storageAddress = storageAddress
     this.tenant = tenant
     this.token = token
+    this.reads = reads
+    this.records = records
   }
 
   @Override
@@ -39,31 +65,44 @@ class ExternalStorageModuleItemCollection
 
     String location = storageAddress + "/item-storage/items"
 
-    def onResponse = { HttpClientResponse response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 201) {
-          def createdItem = mapFromJson(new JsonObject(responseBody))
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
 
-          resultCallback.accept(new Success<Item>(createdItem))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      if(statusCode == 201) {
+        def createdItem = mapFromJson(new JsonObject(responseBody))
+
+        resultCallback.accept(new Success<Item>(createdItem))
+      }
+      else {
+        failureCallback.accept(new Failure(responseBody, statusCode))
+      }
     }
 
     def itemToSend = mapToItemRequest(item)
 
-    vertx.createHttpClient().requestAbs(HttpMethod.POST, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Content-Type", "application/json")
-      .putHeader("Accept", "application/json")
-      .end(Json.encodePrettily(itemToSend))
+    client.request(HttpMethod.POST, location, tenant, "add", timing("add"),
+      onResponse, exceptionHandler(failureCallback),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Content-Type", "application/json")
+          .putHeader("Accept", "application/json")
+          .end(Json.encode(itemToSend))
+      } as Handler<HttpClientRequest>)
+  }
+
+  @Override
+  void addAll(List<Item> items,
+              Consumer<Success<List<BatchResult<Item>>>> resultCallback,
+              Consumer<Failure> failureCallback) {
+
+    new ExternalStorageBatchAdd<Item>(client,
+      "${storageAddress}/item-storage/batch/items", "items", tenant, token)
+      .addAll(items, this.&mapToItemRequest, this.&mapFromJson,
+        this.&add, resultCallback, failureCallback)
   }
 
   @Override
@@ -71,38 +110,79 @@ class ExternalStorageModuleItemCollection
                 Consumer<Success<Item>> resultCallback,
                 Consumer<Failure> failureCallback) {
 
+    def cached = records.get(tenant, COLLECTION_NAME, id)
+
+    if(records.isFresh(cached)) {
+      resultCallback.accept(new Success<Item>(mapFromJson(cached.record)))
+      return
+    }
+
     String location = storageAddress + "/item-storage/items/${id}"
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    reads.read(tenant, location,
+      { Consumer<Success<Item>> onSuccess, Consumer<Failure> onFailure ->
+        getById(id, location, onSuccess, onFailure)
+      } as BiConsumer<Consumer<Success<Item>>, Consumer<Failure>>,
+      resultCallback, failureCallback)
+  }
 
-        switch (statusCode) {
-          case 200:
-            def itemFromServer = new JsonObject(responseBody)
+  private void getById(
+    String id,
+    String location,
+    Consumer<Success<Item>> resultCallback,
+    Consumer<Failure> failureCallback) {
 
-            def foundItem = mapFromJson(itemFromServer)
+    def cached = records.get(tenant, COLLECTION_NAME, id)
+    def generation = records.generation()
 
-            resultCallback.accept(new Success(foundItem))
-            break
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-          case 404:
-            resultCallback.accept(new Success(null))
-            break
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
 
-          default:
-            failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      switch (statusCode) {
+        case 200:
+          def itemFromServer = new JsonObject(responseBody)
+
+          records.put(tenant, COLLECTION_NAME, id, itemFromServer,
+            response.getHeader("ETag"), generation)
+
+          def foundItem = mapFromJson(itemFromServer)
+
+          resultCallback.accept(new Success(foundItem))
+          break
+
+        case 304:
+          //Only asked for when there is a cached record
+          records.put(tenant, COLLECTION_NAME, id, cached.record,
+            cached.entityTag, generation)
+
+          resultCallback.accept(new Success(mapFromJson(cached.record)))
+          break
+
+        case 404:
+          resultCallback.accept(new Success(null))
+          break
+
+        default:
+          failureCallback.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().requestAbs(HttpMethod.GET, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant",  tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .end()
+    client.request(HttpMethod.GET, location, tenant, "findById",
+      timing("findById"), onResponse, exceptionHandler(failureCallback),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json")
+
+        if(cached != null && cached.entityTag != null) {
+          request.putHeader("If-None-Match", cached.entityTag)
+        }
+
+        request.end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
@@ -114,66 +194,41 @@ class ExternalStorageModuleItemCollection
       + "/item-storage/items?limit=%s&offset=%s",
       pagingParameters.limit, pagingParameters.offset)
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
-
-        if(statusCode == 200) {
-          def wrappedItems = new JsonObject(responseBody)
-
-          def items = wrappedItems.getJsonArray("items")
-
-          def foundItems = new ArrayList<Item>()
-
-          items.each {
-            foundItems.add(mapFromJson(it))
-          }
-
-          resultCallback.accept(new Success([
-            "items" : foundItems,
-            "totalRecords" : wrappedItems.getInteger("totalRecords")
-          ]))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
-    }
-
-    vertx.createHttpClient().requestAbs(HttpMethod.GET, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .end()
+    reads.read(tenant, location, pageRequest(location, "findAll"),
+      resultCallback, failureCallback)
   }
 
   @Override
   void empty(Consumer<Success> completionCallback,
              Consumer<Failure> failureCallback) {
+
+    def onCompletion = afterInvalidating(null, completionCallback)
+    def onFailure = afterInvalidating(null, failureCallback)
+
     String location = storageAddress + "/item-storage/items"
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 204) {
-          completionCallback.accept(new Success())
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 204) {
+        onCompletion.accept(new Success(null))
+      }
+      else {
+        onFailure.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().requestAbs(HttpMethod.DELETE, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json, text/plain")
-      .end()
+    client.request(HttpMethod.DELETE, location, tenant, "empty", timing("empty"),
+      onResponse, exceptionHandler(onFailure),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json, text/plain")
+          .end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
@@ -189,38 +244,61 @@ class ExternalStorageModuleItemCollection
         String.format("&limit=%s&offset=%s", pagingParameters.limit,
           pagingParameters.offset)
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    reads.read(tenant, location.toString(),
+      pageRequest(location.toString(), "findByCql"),
+      resultCallback, failureCallback)
+  }
 
-        if(statusCode == 200) {
-          def wrappedItems = new JsonObject(responseBody)
-          def items = wrappedItems.getJsonArray("items")
+  private BiConsumer<Consumer<Success<Map>>, Consumer<Failure>> pageRequest(
+    String location,
+    String operation) {
 
-          def foundItems = new ArrayList<Item>()
+    return { Consumer<Success<Map>> onSuccess, Consumer<Failure> onFailure ->
+      getPage(location, operation, onSuccess, onFailure)
+    } as BiConsumer<Consumer<Success<Map>>, Consumer<Failure>>
+  }
 
-          items.each {
-            foundItems.add(mapFromJson(it))
-          }
+  private void getPage(
+    String location,
+    String operation,
+    Consumer<Success<Map>> resultCallback,
+    Consumer<Failure> failureCallback) {
 
-          resultCallback.accept(new Success([
-            "items" : foundItems,
-            "totalRecords" : wrappedItems.getInteger("totalRecords")
-          ]))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
+
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 200) {
+        def wrappedItems = new JsonObject(responseBody)
+
+        def items = wrappedItems.getJsonArray("items")
+
+        def foundItems = new ArrayList<Item>()
+
+        for(Object item : items) {
+          foundItems.add(mapFromJson((JsonObject)item))
         }
-      })
+
+        resultCallback.accept(new Success([
+          "items" : foundItems,
+          "totalRecords" : wrappedItems.getInteger("totalRecords")
+        ]))
+      }
+      else {
+        failureCallback.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().getAbs(location.toString(), onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json")
-      .end()
+    client.request(HttpMethod.GET, location, tenant, operation, timing(operation),
+      onResponse, exceptionHandler(failureCallback),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json")
+          .end()
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
@@ -228,59 +306,70 @@ class ExternalStorageModuleItemCollection
               Consumer<Success> completionCallback,
               Consumer<Failure> failureCallback) {
 
+    def onCompletion = afterInvalidating(item.id, completionCallback)
+    def onFailure = afterInvalidating(item.id, failureCallback)
+
     String location = storageAddress + "/item-storage/items/${item.id}"
 
-    def onResponse = { HttpClientResponse response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 204) {
-          completionCallback.accept(new Success(null))
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 204) {
+        onCompletion.accept(new Success(null))
+      }
+      else {
+        onFailure.accept(new Failure(responseBody, statusCode))
+      }
     }
 
     def itemToSend = mapToItemRequest(item)
 
-    vertx.createHttpClient().requestAbs(HttpMethod.PUT, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Content-Type", "application/json")
-      .putHeader("Accept", "text/plain")
-      .end(Json.encodePrettily(itemToSend))
+    client.request(HttpMethod.PUT, location, tenant, "update", timing("update"),
+      onResponse, exceptionHandler(onFailure),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Content-Type", "application/json")
+          .putHeader("Accept", "text/plain")
+          .end(Json.encode(itemToSend))
+      } as Handler<HttpClientRequest>)
   }
 
   @Override
   void delete(String id,
               Consumer<Success> completionCallback,
               Consumer<Failure> failureCallback) {
+
+    def onCompletion = afterInvalidating(id, completionCallback)
+    def onFailure = afterInvalidating(id, failureCallback)
+
     String location = "${storageAddress}/item-storage/items/${id}"
 
-    def onResponse = { response ->
-      response.bodyHandler({ buffer ->
-        def responseBody = "${buffer.getString(0, buffer.length())}"
-        def statusCode = response.statusCode()
+    BiConsumer<HttpClientResponse, Buffer> onResponse = {
+      HttpClientResponse response, Buffer buffer ->
 
-        if(statusCode == 204) {
-          completionCallback.accept(new Success())
-        }
-        else {
-          failureCallback.accept(new Failure(responseBody, statusCode))
-        }
-      })
+      String responseBody = buffer.getString(0, buffer.length())
+      int statusCode = response.statusCode()
+
+      if(statusCode == 204) {
+        onCompletion.accept(new Success(null))
+      }
+      else {
+        onFailure.accept(new Failure(responseBody, statusCode))
+      }
     }
 
-    vertx.createHttpClient().requestAbs(HttpMethod.DELETE, location, onResponse)
-      .exceptionHandler(exceptionHandler(failureCallback))
-      .putHeader("X-Okapi-Tenant", tenant)
-      .putHeader("X-Okapi-Token", token)
-      .putHeader("Accept", "application/json, text/plain")
-      .end()
+    client.request(HttpMethod.DELETE, location, tenant, "delete", timing("delete"),
+      onResponse, exceptionHandler(onFailure),
+      { HttpClientRequest request ->
+        request.putHeader("X-Okapi-Tenant", tenant)
+          .putHeader("X-Okapi-Token", token)
+          .putHeader("Accept", "application/json, text/plain")
+          .end()
+      } as Handler<HttpClientRequest>)
   }
 
   private Item mapFromJson(JsonObject itemFromServer) {
@@ -325,9 +414,38 @@ class ExternalStorageModuleItemCollection
     }
   }
 
+  /**
+   * Cached records are removed (and reads in flight no longer shared) once
+   * they have been changed in storage, whether or not that succeeded (every
+   * record when the id is null)
+   */
+  private <T> Consumer<T> afterInvalidating(String id, Consumer<T> callback) {
+    return { T outcome ->
+      if(id == null) {
+        records.invalidate(tenant, COLLECTION_NAME)
+      }
+      else {
+        records.invalidate(tenant, COLLECTION_NAME, id)
+      }
+
+      //Any read of the collection may include the record
+      reads.invalidate(tenant, storageAddress + "/item-storage/items")
+
+      callback.accept(outcome)
+    } as Consumer<T>
+  }
+
+  private Timing timing(String operation) {
+    Metrics.global().start(Metrics.STORAGE_OPERATIONS,
+      "collection", "items", "operation", operation, "tenant", tenant)
+  }
+
   private Handler<Throwable> exceptionHandler(Consumer<Failure> failureCallback) {
     return { Throwable it ->
-        failureCallback.accept(new Failure(it.getMessage(), null))
-    }
+      //Not made, as storage is failing or overloaded
+      Integer statusCode = it instanceof RejectedRequestException ? 503 : null
+
+      failureCallback.accept(new Failure(it.getMessage(), statusCode))
+    } as Handler<Throwable>
   }
 }
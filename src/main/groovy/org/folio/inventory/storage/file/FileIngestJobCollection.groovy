@@ -0,0 +1,444 @@
+package org.folio.inventory.storage.file
+
+import io.vertx.core.json.JsonObject
+import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.Failure
+import org.folio.inventory.common.domain.Success
+import org.folio.inventory.domain.ingest.IngestJobCollection
+import org.folio.inventory.resources.ingest.IngestJob
+import org.folio.inventory.resources.ingest.IngestJobState
+
+import java.nio.ByteBuffer
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ConcurrentSkipListMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.function.Consumer
+
+import static org.folio.inventory.support.CallersContext.onCallersContext
+
+/**
+ * Jobs for a single tenant, held in an append-only log file which is
+ * memory-mapped and read directly, using an index of where the latest
+ * version of each job is in the log.
+ *
+ * Each entry is the length of the representation followed by the
+ * representation, the length is written last so that an entry which was not
+ * completely written is ignored when the log is read. An entry with a
+ * deleted property removes the job.
+ *
+ * Once superseded entries outnumber current jobs (and the compaction
+ * threshold), the current jobs are written to a new log which replaces
+ * the old one.
+ *
+ * Changes are made one at a time, on a thread of their own (as they may
+ * grow, compact and force the log, which would block an event loop), with
+ * callbacks made on the caller's context. Reads do not wait for changes.
+ * Changes are not forced to disk, they survive the process stopping,
+ * but not necessarily the operating system stopping.
+ */
+class FileIngestJobCollection implements IngestJobCollection {
+  public static final int DEFAULT_COMPACTION_THRESHOLD = 1000
+
+  private static final int INITIAL_CAPACITY = 64 * 1024
+  private static final int LENGTH_SIZE = 4
+
+  //Shared by every tenant's log
+  private static final ExecutorService CHANGES =
+    Executors.newSingleThreadExecutor({ Runnable runnable ->
+      def thread = new Thread(runnable, "ingest-job-log")
+      thread.daemon = true
+      thread
+    } as ThreadFactory)
+
+  private final Path logFile
+  private final int compactionThreshold
+
+  private final ConcurrentMap<String, Entry> entriesById =
+    new ConcurrentHashMap<>()
+
+  private final ConcurrentSkipListMap<Long, String> idsInOrder =
+    new ConcurrentSkipListMap<>()
+
+  private final Object changeLock = new Object()
+
+  private MappedByteBuffer log
+  private int writePosition = 0
+  private int supersededEntries = 0
+  private long nextSequence = 0
+
+  FileIngestJobCollection(Path logFile) {
+    this(logFile, DEFAULT_COMPACTION_THRESHOLD)
+  }
+
+  FileIngestJobCollection(Path logFile, int compactionThreshold) {
+    this.logFile = logFile
+    this.compactionThreshold = compactionThreshold
+
+    synchronized (changeLock) {
+      load()
+    }
+  }
+
+  @Override
+  void empty(
+    Consumer<Success> completionCallback,
+    Consumer<Failure> failureCallback) {
+
+    change({
+      entriesById.clear()
+      idsInOrder.clear()
+      rewriteLog()
+    }, { completionCallback.accept(new Success()) }, failureCallback)
+  }
+
+  @Override
+  void add(
+    IngestJob item,
+    Consumer<Success<IngestJob>> resultCallback,
+    Consumer<Failure> failureCallback) {
+
+    def job = item.copyWithNewId(UUID.randomUUID().toString())
+
+    change({ store(job) },
+      { resultCallback.accept(new Success<IngestJob>(job)) }, failureCallback)
+  }
+
+  @Override
+  void findById(
+    String id,
+    Consumer<Success<IngestJob>> resultCallback,
+    Consumer<Failure> failureCallback) {
+
+    def entry = id == null ? null : entriesById.get(id)
+
+    resultCallback.accept(new Success<IngestJob>(
+      entry == null ? null : fromJson(entry.read())))
+  }
+
+  @Override
+  void findAll(
+    PagingParameters pagingParameters,
+    Consumer<Success<Map>> resultCallback,
+    Consumer<Failure> failureCallback) {
+
+    def jobs = idsInOrder.values().stream()
+      .skip(pagingParameters.offset)
+      .limit(pagingParameters.limit)
+      .collect()
+      .collect { entriesById.get(it) }
+      .findAll { it != null }
+      .collect { fromJson(it.read()) }
+
+    resultCallback.accept(new Success<Map>([
+      "jobs"        : jobs,
+      "totalRecords": entriesById.size()
+    ]))
+  }
+
+  @Override
+  void update(
+    IngestJob ingestJob,
+    Consumer<Success> completionCallback,
+    Consumer<Failure> failureCallback) {
+
+    change({ store(ingestJob) },
+      { completionCallback.accept(new Success(null)) }, failureCallback)
+  }
+
+  @Override
+  void delete(
+    String id,
+    Consumer<Success> completionCallback,
+    Consumer<Failure> failureCallback) {
+
+    change({
+      def removed = id == null ? null : entriesById.get(id)
+
+      if(removed != null) {
+        append(new JsonObject().put("id", id).put("deleted", true))
+
+        entriesById.remove(id)
+        idsInOrder.remove(removed.sequence)
+        supersededEntries += 2
+
+        compactIfNeeded()
+      }
+    }, { completionCallback.accept(new Success()) }, failureCallback)
+  }
+
+  /**
+   * Writes only the current version of each job to a new log,
+   * which replaces the existing one
+   */
+  void compact() throws IOException {
+    synchronized (changeLock) {
+      rewriteLog()
+    }
+  }
+
+  /**
+   * Makes the change on the change thread, calling back once it has been
+   * made (or has failed) on the caller's context (when there is one)
+   */
+  private void change(
+    Runnable makeChange,
+    Runnable onChanged,
+    Consumer<Failure> failureCallback) {
+
+    def changed = CompletableFuture.runAsync({
+      synchronized (changeLock) {
+        makeChange.run()
+      }
+    }, CHANGES)
+
+    onCallersContext(changed).whenComplete({ Void ignored, Throwable error ->
+      if(error != null) {
+        def cause = error.cause ?: error
+
+        failureCallback.accept(new Failure(cause.message, 500))
+      }
+      else {
+        onChanged.run()
+      }
+    })
+  }
+
+  private void store(IngestJob job) {
+    def entry = append(toJson(job))
+
+    def existing = entriesById.get(job.id)
+
+    if(existing != null) {
+      entry.sequence = existing.sequence
+      supersededEntries++
+    }
+    else {
+      entry.sequence = nextSequence++
+      idsInOrder.put(entry.sequence, job.id)
+    }
+
+    entriesById.put(job.id, entry)
+
+    compactIfNeeded()
+  }
+
+  private Entry append(JsonObject representation) {
+    def bytes = representation.encode().getBytes(StandardCharsets.UTF_8)
+
+    if(writePosition + LENGTH_SIZE + bytes.length > log.capacity()) {
+      log = mapLog(requiredCapacity(writePosition + LENGTH_SIZE + bytes.length))
+    }
+
+    def offset = writePosition + LENGTH_SIZE
+
+    ByteBuffer writer = log.duplicate()
+    writer.position(offset)
+    writer.put(bytes)
+
+    log.putInt(writePosition, bytes.length)
+
+    writePosition = offset + bytes.length
+
+    new Entry(log, offset, bytes.length)
+  }
+
+  private void compactIfNeeded() {
+    if(supersededEntries > compactionThreshold
+      && supersededEntries > entriesById.size()) {
+
+      rewriteLog()
+    }
+  }
+
+  private void rewriteLog() {
+    def inProgress = logFile.resolveSibling(
+      logFile.fileName.toString() + ".compacting")
+
+    def current = idsInOrder.values()
+      .collect { entriesById.get(it) }
+      .findAll { it != null }
+
+    def size = current.sum(0) { Entry entry -> LENGTH_SIZE + entry.length }
+
+    Files.deleteIfExists(inProgress)
+
+    def compacted = map(inProgress, requiredCapacity(size))
+
+    def position = 0
+
+    current.each { Entry entry ->
+      def bytes = entry.bytes()
+
+      ByteBuffer writer = compacted.duplicate()
+      writer.position(position + LENGTH_SIZE)
+      writer.put(bytes)
+
+      compacted.putInt(position, bytes.length)
+
+      entry.moveTo(compacted, position + LENGTH_SIZE)
+
+      position += LENGTH_SIZE + bytes.length
+    }
+
+    compacted.force()
+
+    Files.move(inProgress, logFile, StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE)
+
+    log = compacted
+    writePosition = position
+    supersededEntries = 0
+  }
+
+  private void load() {
+    Files.createDirectories(logFile.toAbsolutePath().parent)
+
+    log = mapLog(requiredCapacity(
+      Files.exists(logFile) ? (int)Files.size(logFile) : 0))
+
+    while(writePosition + LENGTH_SIZE <= log.capacity()) {
+      def length = log.getInt(writePosition)
+
+      if(length <= 0 || writePosition + LENGTH_SIZE + length > log.capacity()) {
+        break
+      }
+
+      def entry = new Entry(log, writePosition + LENGTH_SIZE, length)
+
+      def representation
+
+      try {
+        representation = new JsonObject(
+          new String(entry.bytes(), StandardCharsets.UTF_8))
+      }
+      catch (Exception ignored) {
+        //Only the last entry can be incomplete, anything after it is ignored
+        break
+      }
+
+      def id = representation.getString("id")
+      def existing = entriesById.get(id)
+
+      if(existing != null) {
+        supersededEntries++
+      }
+
+      if(representation.getBoolean("deleted", false)) {
+        supersededEntries++
+
+        if(existing != null) {
+          entriesById.remove(id)
+          idsInOrder.remove(existing.sequence)
+        }
+      }
+      else {
+        entry.sequence = existing != null ? existing.sequence : nextSequence++
+        entriesById.put(id, entry)
+        idsInOrder.put(entry.sequence, id)
+      }
+
+      writePosition += LENGTH_SIZE + length
+    }
+  }
+
+  private MappedByteBuffer mapLog(int capacity) {
+    map(logFile, capacity)
+  }
+
+  private static MappedByteBuffer map(Path file, int capacity) {
+    FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+      StandardOpenOption.WRITE).withCloseable { FileChannel channel ->
+      //Mapping beyond the end of the file extends it, the mapping remains
+      //valid after the channel is closed
+      channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity)
+    }
+  }
+
+  private static int requiredCapacity(int size) {
+    def capacity = INITIAL_CAPACITY
+
+    while(capacity < size + LENGTH_SIZE) {
+      capacity *= 2
+    }
+
+    capacity
+  }
+
+  private static JsonObject toJson(IngestJob job) {
+    def representation = new JsonObject()
+      .put("id", job.id)
+      .put("state", job.state.name())
+
+    if(job.progress != null) {
+      representation.put("progress", new JsonObject(job.progress))
+    }
+
+    representation
+  }
+
+  private static IngestJob fromJson(JsonObject representation) {
+    new IngestJob(representation.getString("id"),
+      IngestJobState.valueOf(representation.getString("state")),
+      representation.getJsonObject("progress")?.map)
+  }
+
+  /**
+   * Where a job is in the log, only moved (during compaction) whilst
+   * changes are prevented, reads may use either location.
+   */
+  private static class Entry {
+    private volatile Location location
+    long sequence
+
+    Entry(ByteBuffer buffer, int offset, int length) {
+      location = new Location(buffer, offset, length)
+    }
+
+    int getLength() {
+      location.length
+    }
+
+    byte[] bytes() {
+      def current = location
+
+      def bytes = new byte[current.length]
+
+      ByteBuffer reader = current.buffer.duplicate()
+      reader.position(current.offset)
+      reader.get(bytes)
+
+      bytes
+    }
+
+    JsonObject read() {
+      new JsonObject(new String(bytes(), StandardCharsets.UTF_8))
+    }
+
+    void moveTo(ByteBuffer buffer, int offset) {
+      location = new Location(buffer, offset, location.length)
+    }
+  }
+
+  private static class Location {
+    final ByteBuffer buffer
+    final int offset
+    final int length
+
+    Location(ByteBuffer buffer, int offset, int length) {
+      this.buffer = buffer
+      this.offset = offset
+      this.length = length
+    }
+  }
+}
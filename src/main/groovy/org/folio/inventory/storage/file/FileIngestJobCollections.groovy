@@ -0,0 +1,52 @@
+package org.folio.inventory.storage.file
+
+import org.folio.inventory.domain.ingest.IngestJobCollection
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.function.Function
+
+/**
+ * A job log file for each tenant, kept in a single directory.
+ *
+ * Only one collection should use a log file at a time, so the module
+ * uses a single instance for each directory (see forDirectory).
+ */
+class FileIngestJobCollections implements Function<String, IngestJobCollection> {
+  private static final ConcurrentMap<Path, FileIngestJobCollections> BY_DIRECTORY =
+    new ConcurrentHashMap<>()
+
+  private final Path directory
+  private final ConcurrentMap<String, FileIngestJobCollection> collections =
+    new ConcurrentHashMap<>()
+
+  FileIngestJobCollections(String directory) {
+    this(Paths.get(directory))
+  }
+
+  FileIngestJobCollections(Path directory) {
+    this.directory = directory
+  }
+
+  /**
+   * @return the collections for the directory, shared by the whole process
+   */
+  static FileIngestJobCollections forDirectory(String directory) {
+    BY_DIRECTORY.computeIfAbsent(
+      Paths.get(directory).toAbsolutePath().normalize(),
+      { new FileIngestJobCollections(it) })
+  }
+
+  @Override
+  IngestJobCollection apply(String tenantId) {
+    collections.computeIfAbsent(tenantId ?: "", {
+      new FileIngestJobCollection(directory.resolve(logFileName(it)))
+    })
+  }
+
+  private static String logFileName(String tenantId) {
+    "${URLEncoder.encode(tenantId, "UTF-8")}.ingest-jobs.log"
+  }
+}
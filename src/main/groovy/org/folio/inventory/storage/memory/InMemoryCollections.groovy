@@ -5,10 +5,16 @@ import org.folio.inventory.domain.InstanceCollection
 import org.folio.inventory.domain.ItemCollection
 import org.folio.inventory.domain.ingest.IngestJobCollection
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+
 class InMemoryCollections implements CollectionProvider {
-  private final Map<String, ItemCollection> itemCollections = [:]
-  private final Map<String, InstanceCollection> instanceCollections = [:]
-  private final Map<String, IngestJobCollection> ingestJobCollections = [:]
+  private final ConcurrentMap<String, ItemCollection> itemCollections =
+    new ConcurrentHashMap<>()
+  private final ConcurrentMap<String, InstanceCollection> instanceCollections =
+    new ConcurrentHashMap<>()
+  private final ConcurrentMap<String, IngestJobCollection> ingestJobCollections =
+    new ConcurrentHashMap<>()
 
   @Override
   ItemCollection getItemCollection(String tenantId, String token) {
@@ -30,16 +36,10 @@ class InMemoryCollections implements CollectionProvider {
 
   private <T> T getCollectionForTenant(
     String tenantId,
-    Map<String, T> collections,
+    ConcurrentMap<String, T> collections,
     Closure createNew) {
 
-    def collectionForTenant = collections.get(tenantId, null)
-
-    if (collectionForTenant == null) {
-      collectionForTenant = createNew()
-      collections.put(tenantId, collectionForTenant)
-    }
-
-    collectionForTenant
+    //Requests without a tenant share a collection, as null cannot be a key
+    collections.computeIfAbsent(tenantId ?: "", { createNew() })
   }
 }
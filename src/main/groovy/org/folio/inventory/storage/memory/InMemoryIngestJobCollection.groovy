@@ -32,7 +32,7 @@ class InMemoryIngestJobCollection implements IngestJobCollection {
                 Consumer<Success<IngestJob>> resultCallback,
                 Consumer<Failure> failureCallback) {
 
-    collection.findOne({ it.id == id }, resultCallback)
+    collection.findById(id, resultCallback)
   }
 
   @Override
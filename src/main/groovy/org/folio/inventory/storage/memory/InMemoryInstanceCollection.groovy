@@ -1,6 +1,7 @@
 package org.folio.inventory.storage.memory
 
 import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.common.storage.memory.InMemoryCollection
@@ -12,7 +13,10 @@ import java.util.function.Consumer
 class InMemoryInstanceCollection
   implements InstanceCollection {
 
-  private final collection = new InMemoryCollection<Instance>()
+  private final collection = new InMemoryCollection<Instance>([
+    "id"   : { Instance instance -> instance.id },
+    "title": { Instance instance -> instance.title }
+  ], ["title"])
 
   @Override
   void add(Instance instance,
@@ -24,11 +28,26 @@ class InMemoryInstanceCollection
     collection.add(instance.copyWithNewId(id), resultCallback)
   }
 
+  @Override
+  void addAll(List<Instance> instances,
+              Consumer<Success<List<BatchResult<Instance>>>> resultCallback,
+              Consumer<Failure> failureCallback) {
+
+    def instancesWithIds = instances.collect {
+      it.copyWithNewId(it.id ?: UUID.randomUUID().toString())
+    }
+
+    collection.addAll(instancesWithIds, { Success<List<Instance>> added ->
+      resultCallback.accept(new Success(
+        added.result.collect { BatchResult.succeeded(it) }))
+    })
+  }
+
   @Override
   void findById(String id,
                 Consumer<Success<Instance>> resultCallback,
                 Consumer<Failure> failureCallback) {
-    collection.findOne({ it.id == id }, resultCallback)
+    collection.findById(id, resultCallback)
   }
 
   @Override
@@ -51,7 +70,12 @@ class InMemoryInstanceCollection
                  Consumer<Success<Map>> resultCallback,
                  Consumer<Failure> failureCallback) {
 
-    collection.find(cqlQuery, pagingParameters, "instances", resultCallback)
+    try {
+      collection.find(cqlQuery, pagingParameters, "instances", resultCallback)
+    }
+    catch(IllegalArgumentException e) {
+      failureCallback.accept(new Failure(e.message, 400))
+    }
   }
 
   @Override
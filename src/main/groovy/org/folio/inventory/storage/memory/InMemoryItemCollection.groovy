@@ -1,6 +1,7 @@
 package org.folio.inventory.storage.memory
 
 import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Failure
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.common.storage.memory.InMemoryCollection
@@ -12,7 +13,17 @@ import java.util.function.Consumer
 class InMemoryItemCollection
   implements ItemCollection {
 
-  private final collection = new InMemoryCollection<Item>()
+  private final collection = new InMemoryCollection<Item>([
+    "id"                 : { Item item -> item.id },
+    "title"              : { Item item -> item.title },
+    "barcode"            : { Item item -> item.barcode },
+    "instanceId"         : { Item item -> item.instanceId },
+    "status"             : { Item item -> item.status },
+    "materialTypeId"     : { Item item -> item.materialTypeId },
+    "permanentLoanTypeId": { Item item -> item.permanentLoanTypeId },
+    "temporaryLoanTypeId": { Item item -> item.temporaryLoanTypeId },
+    "location"           : { Item item -> item.location }
+  ], ["barcode", "instanceId", "title"])
 
   @Override
   void add(Item item,
@@ -23,11 +34,26 @@ class InMemoryItemCollection
     collection.add(item.copyWithNewId(id), resultCallback)
   }
 
+  @Override
+  void addAll(List<Item> items,
+              Consumer<Success<List<BatchResult<Item>>>> resultCallback,
+              Consumer<Failure> failureCallback) {
+
+    def itemsWithIds = items.collect {
+      it.copyWithNewId(it.id ?: UUID.randomUUID().toString())
+    }
+
+    collection.addAll(itemsWithIds, { Success<List<Item>> added ->
+      resultCallback.accept(new Success(
+        added.result.collect { BatchResult.succeeded(it) }))
+    })
+  }
+
   @Override
   void findById(String id,
                 Consumer<Success<Item>> resultCallback,
                 Consumer<Failure> failureCallback) {
-    collection.findOne({ it.id == id }, resultCallback)
+    collection.findById(id, resultCallback)
   }
 
   @Override
@@ -49,7 +75,12 @@ class InMemoryItemCollection
                  Consumer<Success<Map>> resultCallback,
                  Consumer<Failure> failureCallback) {
 
-    collection.find(cqlQuery, pagingParameters, "items", resultCallback)
+    try {
+      collection.find(cqlQuery, pagingParameters, "items", resultCallback)
+    }
+    catch(IllegalArgumentException e) {
+      failureCallback.accept(new Failure(e.message, 400))
+    }
   }
 
   @Override
@@ -1,13 +1,17 @@
 package org.folio.inventory;
 
-import io.vertx.core.Handler;
-import io.vertx.core.http.HttpClientResponse;
 import org.folio.inventory.support.http.client.OkapiHttpClient;
 import org.folio.inventory.support.http.client.Response;
+import org.folio.inventory.support.metrics.Metrics;
+import org.folio.inventory.support.metrics.Timing;
 
 import java.net.URL;
 import java.util.function.Consumer;
 
+/**
+ * Requests are made within the resilience policy of the client's pooled
+ * client (when it has one), see OkapiHttpClient
+ */
 public class CollectionResourceClient {
 
   private final OkapiHttpClient client;
@@ -23,53 +27,119 @@ public class CollectionResourceClient {
   public void post(Object resourceRepresentation,
                    Consumer<Response> responseHandler) {
 
+    Timing timing = start("POST");
+
     client.post(collectionRoot,
       resourceRepresentation,
-      responseConversationHandler(responseHandler));
+      timed(timing, responseHandler), failed(timing, null));
   }
 
   public void put(String id, Object resourceRepresentation,
                   Consumer<Response> responseHandler) {
 
+    Timing timing = start("PUT");
+
     client.put(String.format(collectionRoot + "/%s", id),
       resourceRepresentation,
-      responseConversationHandler(responseHandler));
+      timed(timing, responseHandler), failed(timing, null));
   }
 
   public void get(String id, Consumer<Response> responseHandler) {
+    get(id, responseHandler, null);
+  }
+
+  /**
+   * @param failureHandler called when no response is received (e.g. the
+   * request times out or is refused), rather than the client's own handler
+   */
+  public void get(String id,
+                  Consumer<Response> responseHandler,
+                  Consumer<Throwable> failureHandler) {
+
+    Timing timing = start("GET");
+
     client.get(String.format(collectionRoot + "/%s", id),
-      responseConversationHandler(responseHandler));
+      timed(timing, responseHandler), failed(timing, failureHandler));
   }
 
   public void delete(String id, Consumer<Response> responseHandler) {
+    Timing timing = start("DELETE");
+
     client.delete(String.format(collectionRoot + "/%s", id),
-      responseConversationHandler(responseHandler));
+      timed(timing, responseHandler), failed(timing, null));
   }
 
   public void delete(Consumer<Response> responseHandler) {
-    client.delete(collectionRoot,
-      responseConversationHandler(responseHandler));
+    Timing timing = start("DELETE");
+
+    client.delete(collectionRoot.toString(),
+      timed(timing, responseHandler), failed(timing, null));
   }
 
   public void getMany(String query, Consumer<Response> responseHandler) {
+    getMany(query, responseHandler, null);
+  }
+
+  /**
+   * @param failureHandler called when no response is received (e.g. the
+   * request times out or is refused), rather than the client's own handler
+   */
+  public void getMany(String query,
+                      Consumer<Response> responseHandler,
+                      Consumer<Throwable> failureHandler) {
 
-    String url = isProvided(query)
+    Timing timing = start("GET");
+
+    client.get(urlFor(query),
+      timed(timing, responseHandler), failed(timing, failureHandler));
+  }
+
+  private String urlFor(String query) {
+    return isProvided(query)
       ? String.format(collectionRoot + "?%s", query)
       : collectionRoot.toString();
-
-    client.get(url,
-      responseConversationHandler(responseHandler));
   }
 
   private boolean isProvided(String query) {
     return query != null && query.trim() != "";
   }
 
-  private Handler<HttpClientResponse> responseConversationHandler(
+  /**
+   * Times the request until the whole response has been received
+   */
+  private Consumer<Response> timed(
+    Timing timing,
     Consumer<Response> responseHandler) {
 
-    return response ->
-      response.bodyHandler(buffer ->
-        responseHandler.accept(Response.from(response, buffer)));
+    return response -> {
+      timing.finished(response.getStatusCode());
+
+      responseHandler.accept(response);
+    };
+  }
+
+  /**
+   * @param failureHandler null for the client's own exception handler
+   */
+  private Consumer<Throwable> failed(
+    Timing timing,
+    Consumer<Throwable> failureHandler) {
+
+    return exception -> {
+      timing.failed();
+
+      if(failureHandler != null) {
+        failureHandler.accept(exception);
+      }
+      else {
+        client.failed(exception);
+      }
+    };
+  }
+
+  private Timing start(String method) {
+    return Metrics.global().start(Metrics.REFERENCE_DATA_REQUESTS,
+      "collection", collectionRoot.getPath(), "method", method,
+      "tenant", client.getTenantId());
   }
 }
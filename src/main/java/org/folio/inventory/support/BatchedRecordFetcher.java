@@ -0,0 +1,123 @@
+package org.folio.inventory.support;
+
+import io.vertx.core.json.JsonObject;
+import org.folio.inventory.CollectionResourceClient;
+import org.folio.inventory.support.http.client.Response;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches many records by id using as few CQL queries of the form
+ * id==(a or b or c) as the maximum query length allows.
+ */
+public class BatchedRecordFetcher {
+  public static final int DEFAULT_MAXIMUM_QUERY_LENGTH = 1500;
+
+  private final CollectionResourceClient client;
+  private final String collectionPropertyName;
+  private final int maximumQueryLength;
+
+  public BatchedRecordFetcher(
+    CollectionResourceClient client,
+    String collectionPropertyName) {
+
+    this(client, collectionPropertyName, DEFAULT_MAXIMUM_QUERY_LENGTH);
+  }
+
+  public BatchedRecordFetcher(
+    CollectionResourceClient client,
+    String collectionPropertyName,
+    int maximumQueryLength) {
+
+    this.client = client;
+    this.collectionPropertyName = collectionPropertyName;
+    this.maximumQueryLength = maximumQueryLength;
+  }
+
+  public CompletableFuture<Map<String, JsonObject>> fetchByIds(
+    Collection<String> ids) {
+
+    List<CompletableFuture<Response>> allResponses = partition(
+      ids.stream().distinct().collect(Collectors.toList()),
+      maximumQueryLength)
+      .stream()
+      .map(this::fetchChunk)
+      .collect(Collectors.toList());
+
+    return CompletableFuture.allOf(allResponses
+      .toArray(new CompletableFuture[allResponses.size()]))
+      .thenApply(v -> {
+        Map<String, JsonObject> found = new HashMap<>();
+
+        allResponses.stream()
+          .map(CompletableFuture::join)
+          .filter(response -> response.getStatusCode() == 200)
+          .flatMap(response -> JsonArrayHelper.toList(
+            response.getJson().getJsonArray(collectionPropertyName)).stream())
+          .forEach(record -> found.put(record.getString("id"), record));
+
+        return found;
+      });
+  }
+
+  static List<List<String>> partition(
+    List<String> ids,
+    int maximumQueryLength) {
+
+    List<List<String>> chunks = new ArrayList<>();
+    List<String> currentChunk = new ArrayList<>();
+    int currentLength = 0;
+
+    for (String id : ids) {
+      int additionalLength = id.length() + " or ".length();
+
+      if(!currentChunk.isEmpty()
+        && currentLength + additionalLength > maximumQueryLength) {
+
+        chunks.add(currentChunk);
+        currentChunk = new ArrayList<>();
+        currentLength = 0;
+      }
+
+      currentChunk.add(id);
+      currentLength += additionalLength;
+    }
+
+    if(!currentChunk.isEmpty()) {
+      chunks.add(currentChunk);
+    }
+
+    return chunks;
+  }
+
+  static String idQuery(List<String> ids) {
+    return String.format("id==(%s)", String.join(" or ", ids));
+  }
+
+  /**
+   * Fails when no response is received (e.g. the request times out or is
+   * refused), so that callers sharing the fetch are not left waiting
+   */
+  private CompletableFuture<Response> fetchChunk(List<String> ids) {
+    CompletableFuture<Response> fetched = new CompletableFuture<>();
+
+    try {
+      client.getMany(String.format("query=%s&limit=%s",
+        URLEncoder.encode(idQuery(ids), "UTF-8"), ids.size()),
+        fetched::complete, fetched::completeExceptionally);
+    }
+    catch (UnsupportedEncodingException e) {
+      fetched.completeExceptionally(e);
+    }
+
+    return fetched;
+  }
+}
@@ -0,0 +1,134 @@
+package org.folio.inventory.support;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many asynchronous operations (e.g. requests to a storage
+ * module) are in flight at once. Operations submitted beyond the limit are
+ * queued and started, in order, as earlier ones complete.
+ *
+ * The queue can be limited, operations submitted when it is full are
+ * refused (with a RejectedExecutionException) rather than started.
+ */
+public class BoundedConcurrency {
+  private final int maximumInFlight;
+  private final int maximumWaiting;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger drainRequests = new AtomicInteger();
+  private final AtomicInteger waitingCount = new AtomicInteger();
+  private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+  public BoundedConcurrency(int maximumInFlight) {
+    this(maximumInFlight, Integer.MAX_VALUE);
+  }
+
+  public BoundedConcurrency(int maximumInFlight, int maximumWaiting) {
+    if(maximumInFlight < 1) {
+      throw new IllegalArgumentException(
+        "Maximum operations in flight must be at least 1");
+    }
+
+    if(maximumWaiting < 0) {
+      throw new IllegalArgumentException(
+        "Maximum operations waiting cannot be negative");
+    }
+
+    this.maximumInFlight = maximumInFlight;
+    this.maximumWaiting = maximumWaiting;
+  }
+
+  public <T> CompletableFuture<T> submit(
+    Supplier<CompletableFuture<T>> operation) {
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+
+    if(waitingCount.incrementAndGet() > maximumWaiting
+      && inFlight.get() >= maximumInFlight) {
+
+      waitingCount.decrementAndGet();
+
+      result.completeExceptionally(new RejectedExecutionException(
+        String.format("More than %s operations waiting", maximumWaiting)));
+
+      return result;
+    }
+
+    waiting.add(() -> start(operation, result));
+
+    startWaiting();
+
+    return result;
+  }
+
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  public int waiting() {
+    return waiting.size();
+  }
+
+  private <T> void start(
+    Supplier<CompletableFuture<T>> operation,
+    CompletableFuture<T> result) {
+
+    CompletableFuture<T> started;
+
+    try {
+      started = operation.get();
+    }
+    catch(Exception e) {
+      started = new CompletableFuture<>();
+      started.completeExceptionally(e);
+    }
+
+    started.whenComplete((value, exception) -> {
+      inFlight.decrementAndGet();
+
+      if(exception != null) {
+        result.completeExceptionally(exception);
+      }
+      else {
+        result.complete(value);
+      }
+
+      startWaiting();
+    });
+  }
+
+  /**
+   * Only one thread starts waiting operations at a time, others record that
+   * another pass is needed. This avoids unbounded recursion when operations
+   * complete synchronously (e.g. in memory storage).
+   */
+  private void startWaiting() {
+    if(drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+
+    do {
+      while(inFlight.get() < maximumInFlight) {
+        Runnable next = waiting.poll();
+
+        if(next == null) {
+          break;
+        }
+
+        waitingCount.decrementAndGet();
+
+        inFlight.incrementAndGet();
+        next.run();
+      }
+
+      missed = drainRequests.addAndGet(-missed);
+    } while(missed != 0);
+  }
+}
@@ -0,0 +1,90 @@
+package org.folio.inventory.support;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * For futures which may be completed on another verticle instance's
+ * context (e.g. when shared by the whole process)
+ */
+public class CallersContext {
+  private CallersContext() { }
+
+  /**
+   * Completes on the context of the caller (when there is one), rather than
+   * on the context which completed the original future
+   */
+  public static <T> CompletableFuture<T> onCallersContext(
+    CompletableFuture<T> future) {
+
+    Context context = Vertx.currentContext();
+
+    if(context == null || future.isDone()) {
+      return future;
+    }
+
+    CompletableFuture<T> onContext = new CompletableFuture<>();
+
+    future.whenComplete((result, exception) -> {
+      if(Vertx.currentContext() == context) {
+        complete(onContext, result, exception);
+      }
+      else {
+        context.runOnContext(v -> complete(onContext, result, exception));
+      }
+    });
+
+    return onContext;
+  }
+
+  /**
+   * Starts the operation on the context of the caller (when there is one),
+   * rather than on whichever context starts it (e.g. when it waited for a
+   * limit shared by the whole process)
+   */
+  public static <T> Supplier<CompletableFuture<T>> startOnCallersContext(
+    Supplier<CompletableFuture<T>> operation) {
+
+    Context context = Vertx.currentContext();
+
+    if(context == null) {
+      return operation;
+    }
+
+    return () -> {
+      if(Vertx.currentContext() == context) {
+        return operation.get();
+      }
+
+      CompletableFuture<T> started = new CompletableFuture<>();
+
+      context.runOnContext(v -> {
+        try {
+          operation.get().whenComplete((result, exception) ->
+            complete(started, result, exception));
+        }
+        catch(Exception e) {
+          started.completeExceptionally(e);
+        }
+      });
+
+      return started;
+    };
+  }
+
+  public static <T> void complete(
+    CompletableFuture<T> future,
+    T result,
+    Throwable exception) {
+
+    if(exception != null) {
+      future.completeExceptionally(exception);
+    }
+    else {
+      future.complete(result);
+    }
+  }
+}
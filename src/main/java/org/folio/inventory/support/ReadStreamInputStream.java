@@ -0,0 +1,140 @@
+package org.folio.inventory.support;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adapts a Vert.x read stream (e.g. an AsyncFile) to a blocking input stream,
+ * so that pull based parsers can consume it on a worker thread.
+ *
+ * The read stream is paused when too many buffers are waiting to be read,
+ * and resumed once the reader has caught up, so at most a handful of
+ * buffers are held in memory at once.
+ *
+ * Must not be read from an event loop thread.
+ */
+public class ReadStreamInputStream extends InputStream {
+  public static final int DEFAULT_HIGH_WATERMARK = 16;
+  public static final int DEFAULT_LOW_WATERMARK = 4;
+
+  private static final Buffer END = Buffer.buffer();
+
+  private final ReadStream<Buffer> stream;
+  private final int highWatermark;
+  private final int lowWatermark;
+
+  private final LinkedBlockingQueue<Buffer> buffers = new LinkedBlockingQueue<>();
+  private final AtomicBoolean paused = new AtomicBoolean(false);
+
+  private volatile Throwable failure;
+
+  private Buffer current;
+  private int position;
+  private boolean ended;
+
+  public ReadStreamInputStream(ReadStream<Buffer> stream) {
+    this(stream, DEFAULT_HIGH_WATERMARK, DEFAULT_LOW_WATERMARK);
+  }
+
+  public ReadStreamInputStream(
+    ReadStream<Buffer> stream,
+    int highWatermark,
+    int lowWatermark) {
+
+    this.stream = stream;
+    this.highWatermark = highWatermark;
+    this.lowWatermark = lowWatermark;
+
+    stream.exceptionHandler(exception -> {
+      failure = exception;
+      buffers.add(END);
+    });
+
+    stream.endHandler(v -> buffers.add(END));
+
+    stream.handler(buffer -> {
+      buffers.add(buffer);
+
+      if(buffers.size() >= highWatermark && paused.compareAndSet(false, true)) {
+        stream.pause();
+        //Reader may have drained the queue before the pause took effect
+        resumeIfDrained();
+      }
+    });
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+
+    int read = read(single, 0, 1);
+
+    return read == -1 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] destination, int offset, int length) throws IOException {
+    if(length == 0) {
+      return 0;
+    }
+
+    if(!nextBuffer()) {
+      return -1;
+    }
+
+    int toRead = Math.min(length, current.length() - position);
+
+    current.getBytes(position, position + toRead, destination, offset);
+    position += toRead;
+
+    return toRead;
+  }
+
+  @Override
+  public int available() {
+    return current == null ? 0 : current.length() - position;
+  }
+
+  private boolean nextBuffer() throws IOException {
+    while(current == null || position >= current.length()) {
+      if(ended) {
+        return false;
+      }
+
+      resumeIfDrained();
+
+      try {
+        current = buffers.take();
+        position = 0;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted whilst waiting for stream", e);
+      }
+
+      if(current == END) {
+        ended = true;
+        current = null;
+
+        if(failure != null) {
+          throw new IOException(failure);
+        }
+
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private void resumeIfDrained() {
+    if(buffers.size() <= lowWatermark && paused.compareAndSet(true, false)) {
+      stream.resume();
+    }
+  }
+}
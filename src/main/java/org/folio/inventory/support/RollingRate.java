@@ -0,0 +1,97 @@
+package org.folio.inventory.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Events per second over a rolling window of recent seconds, without locks.
+ *
+ * Each second within the window has a slot holding both the second it
+ * counts and the count, so that a slot for an earlier second is reset and
+ * counted to in a single compare and set.
+ */
+public class RollingRate {
+  private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+  private final int windowSeconds;
+  private final LongSupplier clockMilliseconds;
+  private final AtomicLongArray slots;
+  private final AtomicLong firstSecond = new AtomicLong(-1);
+
+  public RollingRate(int windowSeconds) {
+    this(windowSeconds, System::currentTimeMillis);
+  }
+
+  public RollingRate(int windowSeconds, LongSupplier clockMilliseconds) {
+    if(windowSeconds < 1) {
+      throw new IllegalArgumentException(
+        "Rate window must be at least 1 second");
+    }
+
+    this.windowSeconds = windowSeconds;
+    this.clockMilliseconds = clockMilliseconds;
+    this.slots = new AtomicLongArray(windowSeconds);
+  }
+
+  public void record(long events) {
+    long second = currentSecond();
+
+    firstSecond.compareAndSet(-1, second);
+
+    int slot = (int)(second % windowSeconds);
+
+    while(true) {
+      long current = slots.get(slot);
+
+      long updated = secondOf(current) == second
+        ? pack(second, countOf(current) + events)
+        : pack(second, events);
+
+      if(slots.compareAndSet(slot, current, updated)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Events per second over the window, or since the first event if that
+   * was more recent
+   */
+  public double perSecond() {
+    long second = currentSecond();
+    long first = firstSecond.get();
+
+    if(first == -1) {
+      return 0;
+    }
+
+    long total = 0;
+
+    for(int slot = 0; slot < windowSeconds; slot++) {
+      long current = slots.get(slot);
+
+      if(second - secondOf(current) < windowSeconds) {
+        total += countOf(current);
+      }
+    }
+
+    return (double)total / Math.min(windowSeconds, second - first + 1);
+  }
+
+  private long currentSecond() {
+    return (clockMilliseconds.getAsLong() / 1000) & COUNT_MASK;
+  }
+
+  private static long pack(long second, long count) {
+    return (second << 32) | Math.min(count, COUNT_MASK);
+  }
+
+  private static long secondOf(long slot) {
+    return slot >>> 32;
+  }
+
+  private static long countOf(long slot) {
+    return slot & COUNT_MASK;
+  }
+}
@@ -0,0 +1,96 @@
+package org.folio.inventory.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.folio.inventory.support.CallersContext.complete;
+import static org.folio.inventory.support.CallersContext.onCallersContext;
+
+/**
+ * Coalesces identical concurrent operations (e.g. reads from storage), so
+ * that only one is in flight for each key and every caller shares its
+ * result.
+ *
+ * Nothing is kept once an operation completes, later callers start a new
+ * one. A caller may still share an operation started before it asked, so
+ * after a write the operations which could have read what was there before
+ * it should be forgotten, so that later callers do not share them.
+ *
+ * Callers are only ever added to or removed from the in-flight map with
+ * atomic operations, there are no locks. Callers are called back on their
+ * own context, as the operation may have been started on another one.
+ */
+public class SingleFlight<T> {
+  private final ConcurrentMap<String, CompletableFuture<T>> inFlight =
+    new ConcurrentHashMap<>();
+
+  private final AtomicLong started = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  public CompletableFuture<T> execute(
+    String key,
+    Supplier<CompletableFuture<T>> operation) {
+
+    CompletableFuture<T> shared = new CompletableFuture<>();
+    CompletableFuture<T> existing = inFlight.putIfAbsent(key, shared);
+
+    if(existing != null) {
+      coalesced.incrementAndGet();
+
+      return onCallersContext(existing);
+    }
+
+    started.incrementAndGet();
+
+    CompletableFuture<T> operationFuture;
+
+    try {
+      operationFuture = operation.get();
+    }
+    catch(Exception e) {
+      operationFuture = new CompletableFuture<>();
+      operationFuture.completeExceptionally(e);
+    }
+
+    //Removed before completing, so that a caller arriving afterwards starts
+    //a new operation rather than being given this (possibly stale) result
+    operationFuture.whenComplete((result, exception) -> {
+      inFlight.remove(key, shared);
+
+      complete(shared, result, exception);
+    });
+
+    return onCallersContext(shared);
+  }
+
+  /**
+   * Operations in flight for keys starting with the prefix are no longer
+   * shared, later callers start a new one (callers already sharing them
+   * are still given their results)
+   */
+  public void forget(String keyPrefix) {
+    inFlight.keySet().removeIf(key -> key.startsWith(keyPrefix));
+  }
+
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * @return how many operations have been started
+   */
+  public long started() {
+    return started.get();
+  }
+
+  /**
+   * @return how many callers were given the result of an operation already
+   * in flight, rather than starting their own
+   */
+  public long coalesced() {
+    return coalesced.get();
+  }
+}
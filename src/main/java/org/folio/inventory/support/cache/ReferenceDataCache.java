@@ -0,0 +1,275 @@
+package org.folio.inventory.support.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.folio.inventory.support.CallersContext.onCallersContext;
+
+/**
+ * Caches reference records (e.g. material types and loan types) per tenant.
+ *
+ * The in-flight future is what is cached, so concurrent misses for the same
+ * record share a single fetch. Records which could not be found (or failed
+ * to be fetched) are removed once the fetch completes, so they are
+ * attempted again on the next request.
+ *
+ * A cache can be shared by verticle instances on different event loops
+ * (see shared), so callers are called back on their own context, rather
+ * than on the one the record was fetched on.
+ */
+public class ReferenceDataCache {
+  public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+  public static final long DEFAULT_TIME_TO_LIVE_SECONDS = 300;
+
+  private final long maximumSize;
+  private final long timeToLiveSeconds;
+
+  private static final ConcurrentMap<String, ReferenceDataCache> SHARED =
+    new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Cache<String, CompletableFuture<JsonObject>>>
+    cachesByTenant = new ConcurrentHashMap<>();
+
+  public ReferenceDataCache() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE_SECONDS);
+  }
+
+  public ReferenceDataCache(long maximumSize, long timeToLiveSeconds) {
+    this.maximumSize = maximumSize;
+    this.timeToLiveSeconds = timeToLiveSeconds;
+  }
+
+  public static ReferenceDataCache fromConfig(Map<String, Object> config) {
+    return new ReferenceDataCache(
+      longConfig(config, "reference.data.cache.maximum.size",
+        DEFAULT_MAXIMUM_SIZE),
+      longConfig(config, "reference.data.cache.ttl.seconds",
+        DEFAULT_TIME_TO_LIVE_SECONDS));
+  }
+
+  /**
+   * The cache for the whole process with the configured size and time to
+   * live, so that every verticle instance shares the same records (and
+   * invalidation affects them all)
+   */
+  public static ReferenceDataCache shared(Map<String, Object> config) {
+    long maximumSize = longConfig(config, "reference.data.cache.maximum.size",
+      DEFAULT_MAXIMUM_SIZE);
+
+    long timeToLiveSeconds = longConfig(config,
+      "reference.data.cache.ttl.seconds", DEFAULT_TIME_TO_LIVE_SECONDS);
+
+    return SHARED.computeIfAbsent(
+      String.format("%s/%s", maximumSize, timeToLiveSeconds),
+      key -> new ReferenceDataCache(maximumSize, timeToLiveSeconds));
+  }
+
+  /**
+   * Gets a record from the cache, using the loader to fetch it when it is
+   * not present. The loader should complete with null when the record
+   * cannot be found.
+   */
+  public CompletableFuture<JsonObject> get(
+    String tenantId,
+    String collectionName,
+    String key,
+    Supplier<CompletableFuture<JsonObject>> loader) {
+
+    Cache<String, CompletableFuture<JsonObject>> cache = cacheFor(tenantId);
+
+    String cacheKey = cacheKey(collectionName, key);
+
+    AtomicBoolean loadedByThisRequest = new AtomicBoolean(false);
+
+    try {
+      CompletableFuture<JsonObject> future = cache.get(cacheKey, () -> {
+        loadedByThisRequest.set(true);
+        return loader.get();
+      });
+
+      if(loadedByThisRequest.get()) {
+        future.whenComplete((record, exception) -> {
+          if(record == null || exception != null) {
+            cache.asMap().remove(cacheKey, future);
+          }
+        });
+      }
+
+      return onCallersContext(future);
+    }
+    catch(ExecutionException | UncheckedExecutionException e) {
+      CompletableFuture<JsonObject> failed = new CompletableFuture<>();
+
+      failed.completeExceptionally(e.getCause());
+
+      return failed;
+    }
+  }
+
+  /**
+   * Gets many records from the cache, using the batch loader to fetch all
+   * of those not present in a single request. Records already being
+   * fetched by another request are shared rather than fetched again.
+   */
+  public CompletableFuture<Map<String, JsonObject>> getAll(
+    String tenantId,
+    String collectionName,
+    Collection<String> keys,
+    Function<Collection<String>, CompletableFuture<Map<String, JsonObject>>> batchLoader) {
+
+    ConcurrentMap<String, CompletableFuture<JsonObject>> cache =
+      cacheFor(tenantId).asMap();
+
+    Map<String, CompletableFuture<JsonObject>> futures = new HashMap<>();
+    Map<String, CompletableFuture<JsonObject>> toLoad = new HashMap<>();
+
+    keys.stream().distinct().forEach(key -> {
+      String cacheKey = cacheKey(collectionName, key);
+
+      CompletableFuture<JsonObject> loading = new CompletableFuture<>();
+      CompletableFuture<JsonObject> existing =
+        cache.putIfAbsent(cacheKey, loading);
+
+      if(existing == null) {
+        toLoad.put(key, loading);
+        futures.put(key, loading);
+      }
+      else {
+        futures.put(key, existing);
+      }
+    });
+
+    if(!toLoad.isEmpty()) {
+      loadAll(cache, collectionName, toLoad, batchLoader);
+    }
+
+    return onCallersContext(CompletableFuture.allOf(futures.values()
+      .toArray(new CompletableFuture[futures.size()]))
+      .thenApply(v -> {
+        Map<String, JsonObject> found = new HashMap<>();
+
+        futures.forEach((key, future) -> {
+          JsonObject record = future.join();
+
+          if(record != null) {
+            found.put(key, record);
+          }
+        });
+
+        return found;
+      }));
+  }
+
+  public void invalidate(String tenantId, String collectionName, String key) {
+    Cache<String, CompletableFuture<JsonObject>> cache =
+      cachesByTenant.get(tenantKey(tenantId));
+
+    if(cache != null) {
+      cache.invalidate(cacheKey(collectionName, key));
+    }
+  }
+
+  public void invalidate(String tenantId, String collectionName) {
+    Cache<String, CompletableFuture<JsonObject>> cache =
+      cachesByTenant.get(tenantKey(tenantId));
+
+    if(cache != null) {
+      String prefix = cacheKey(collectionName, "");
+
+      cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+  }
+
+  public void invalidate(String tenantId) {
+    cachesByTenant.remove(tenantKey(tenantId));
+  }
+
+  public void invalidateAll() {
+    cachesByTenant.clear();
+  }
+
+  public long size(String tenantId) {
+    Cache<String, CompletableFuture<JsonObject>> cache =
+      cachesByTenant.get(tenantKey(tenantId));
+
+    return cache == null ? 0 : cache.size();
+  }
+
+  private void loadAll(
+    ConcurrentMap<String, CompletableFuture<JsonObject>> cache,
+    String collectionName,
+    Map<String, CompletableFuture<JsonObject>> toLoad,
+    Function<Collection<String>, CompletableFuture<Map<String, JsonObject>>> batchLoader) {
+
+    CompletableFuture<Map<String, JsonObject>> loaded;
+
+    try {
+      loaded = batchLoader.apply(new ArrayList<>(toLoad.keySet()));
+    }
+    catch(Exception e) {
+      loaded = new CompletableFuture<>();
+      loaded.completeExceptionally(e);
+    }
+
+    loaded.whenComplete((records, exception) ->
+      toLoad.forEach((key, future) -> {
+        JsonObject record = exception == null ? records.get(key) : null;
+
+        if(record == null) {
+          cache.remove(cacheKey(collectionName, key), future);
+        }
+
+        if(exception != null) {
+          future.completeExceptionally(exception);
+        }
+        else {
+          future.complete(record);
+        }
+      }));
+  }
+
+  private Cache<String, CompletableFuture<JsonObject>> cacheFor(
+    String tenantId) {
+
+    return cachesByTenant.computeIfAbsent(tenantKey(tenantId),
+      tenant -> CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+        .build());
+  }
+
+  private static String tenantKey(String tenantId) {
+    return tenantId == null ? "" : tenantId;
+  }
+
+  private static String cacheKey(String collectionName, String key) {
+    return String.format("%s/%s", collectionName, key);
+  }
+
+  private static long longConfig(
+    Map<String, Object> config,
+    String key,
+    long defaultValue) {
+
+    Object value = config.get(key);
+
+    return value == null
+      ? defaultValue
+      : Long.parseLong(value.toString());
+  }
+}
@@ -0,0 +1,211 @@
+package org.folio.inventory.support.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches records (e.g. items and instances) fetched from storage by id, per
+ * tenant, along with the entity tag storage gave for them.
+ *
+ * Entries are used without asking storage for the fresh period after they
+ * were last validated (a few seconds by default, as other modules can change
+ * records in storage), after that they are revalidated using the entity tag,
+ * so an unchanged record costs a 304 response rather than the whole record.
+ * Storage modules which do not give entity tags are asked for the whole
+ * record again, so only reads within the fresh period are saved.
+ *
+ * Entries are invalidated when this module changes or removes the record.
+ * A record fetched whilst any invalidation happened is not cached, as it
+ * may be from before the change.
+ */
+public class StorageRecordCache {
+  public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+  public static final long DEFAULT_FRESH_MILLISECONDS = 5000;
+
+  private static final StorageRecordCache DISABLED =
+    new StorageRecordCache(0, 0);
+
+  private static final ConcurrentMap<String, StorageRecordCache> SHARED =
+    new ConcurrentHashMap<>();
+
+  private final long maximumSize;
+  private final long freshMilliseconds;
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private final ConcurrentMap<String, Cache<String, Entry>> cachesByTenant =
+    new ConcurrentHashMap<>();
+
+  public StorageRecordCache(long maximumSize, long freshMilliseconds) {
+    this.maximumSize = maximumSize;
+    this.freshMilliseconds = freshMilliseconds;
+  }
+
+  public static StorageRecordCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * The cache for the whole process with the configured size and fresh
+   * period, when storage.record.cache.enabled is true, so that every
+   * verticle instance sees invalidations made by the others
+   */
+  public static StorageRecordCache shared(Map<String, Object> config) {
+    Object enabled = config.get("storage.record.cache.enabled");
+
+    if(enabled == null || !Boolean.parseBoolean(enabled.toString())) {
+      return disabled();
+    }
+
+    long maximumSize = longConfig(config, "storage.record.cache.maximum.size",
+      DEFAULT_MAXIMUM_SIZE);
+
+    long freshMilliseconds = longConfig(config,
+      "storage.record.cache.fresh.milliseconds", DEFAULT_FRESH_MILLISECONDS);
+
+    return SHARED.computeIfAbsent(
+      String.format("%s/%s", maximumSize, freshMilliseconds),
+      key -> new StorageRecordCache(maximumSize, freshMilliseconds));
+  }
+
+  public boolean isEnabled() {
+    return maximumSize > 0;
+  }
+
+  /**
+   * @return the entry, whether fresh or not, or null when there is none
+   */
+  public Entry get(String tenantId, String collectionName, String id) {
+    Cache<String, Entry> cache = cachesByTenant.get(tenantKey(tenantId));
+
+    return cache == null
+      ? null
+      : cache.getIfPresent(cacheKey(collectionName, id));
+  }
+
+  public boolean isFresh(Entry entry) {
+    return entry != null && freshMilliseconds > 0
+      && System.currentTimeMillis() - entry.validatedAt < freshMilliseconds;
+  }
+
+  /**
+   * Taken before fetching a record, to be given when putting it
+   */
+  public long generation() {
+    return generation.get();
+  }
+
+  /**
+   * Caches a record which was fetched (or revalidated) from storage, unless
+   * there has been an invalidation since it was requested
+   *
+   * @param entityTag can be null, when the entry cannot be revalidated
+   * @param requestedAtGeneration the generation taken before the request
+   */
+  public void put(
+    String tenantId,
+    String collectionName,
+    String id,
+    JsonObject record,
+    String entityTag,
+    long requestedAtGeneration) {
+
+    if(!isEnabled() || record == null) {
+      return;
+    }
+
+    String cacheKey = cacheKey(collectionName, id);
+    Cache<String, Entry> cache = cacheFor(tenantId);
+
+    cache.put(cacheKey, new Entry(record, entityTag,
+      System.currentTimeMillis()));
+
+    //An invalidation may have happened whilst the record was being fetched
+    //(or put), in which case it may be from before the change
+    if(generation.get() != requestedAtGeneration) {
+      cache.invalidate(cacheKey);
+    }
+  }
+
+  public void invalidate(String tenantId, String collectionName, String id) {
+    generation.incrementAndGet();
+
+    Cache<String, Entry> cache = cachesByTenant.get(tenantKey(tenantId));
+
+    if(cache != null) {
+      cache.invalidate(cacheKey(collectionName, id));
+    }
+  }
+
+  public void invalidate(String tenantId, String collectionName) {
+    generation.incrementAndGet();
+
+    Cache<String, Entry> cache = cachesByTenant.get(tenantKey(tenantId));
+
+    if(cache != null) {
+      String prefix = cacheKey(collectionName, "");
+
+      cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+  }
+
+  public long size(String tenantId) {
+    Cache<String, Entry> cache = cachesByTenant.get(tenantKey(tenantId));
+
+    return cache == null ? 0 : cache.size();
+  }
+
+  private Cache<String, Entry> cacheFor(String tenantId) {
+    return cachesByTenant.computeIfAbsent(tenantKey(tenantId),
+      tenant -> CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .build());
+  }
+
+  private static String tenantKey(String tenantId) {
+    return tenantId == null ? "" : tenantId;
+  }
+
+  private static String cacheKey(String collectionName, String id) {
+    return String.format("%s/%s", collectionName, id);
+  }
+
+  private static long longConfig(
+    Map<String, Object> config,
+    String key,
+    long defaultValue) {
+
+    Object value = config.get(key);
+
+    return value == null
+      ? defaultValue
+      : Long.parseLong(value.toString());
+  }
+
+  public static class Entry {
+    private final JsonObject record;
+    private final String entityTag;
+    private final long validatedAt;
+
+    Entry(JsonObject record, String entityTag, long validatedAt) {
+      this.record = record;
+      this.entityTag = entityTag;
+      this.validatedAt = validatedAt;
+    }
+
+    public JsonObject getRecord() {
+      return record;
+    }
+
+    public String getEntityTag() {
+      return entityTag;
+    }
+  }
+}
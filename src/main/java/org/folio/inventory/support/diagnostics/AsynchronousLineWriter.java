@@ -0,0 +1,80 @@
+package org.folio.inventory.support.diagnostics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writes lines from a single background thread, so that those producing
+ * them never wait for the output.
+ *
+ * Lines are queued up to a limit, beyond which they are dropped (and the
+ * number dropped is written once there is room again). Output is buffered
+ * and flushed whenever the queue has been emptied.
+ */
+public class AsynchronousLineWriter implements Consumer<String> {
+  public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+  private final BlockingQueue<String> queue;
+  private final Writer output;
+  private final AtomicLong dropped = new AtomicLong();
+
+  public AsynchronousLineWriter(OutputStream output) {
+    this(output, DEFAULT_QUEUE_SIZE);
+  }
+
+  public AsynchronousLineWriter(OutputStream output, int queueSize) {
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.output = new BufferedWriter(
+      new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+    Thread writer = new Thread(this::writeLines, "inventory-diagnostics");
+
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void accept(String line) {
+    if(!queue.offer(line)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private void writeLines() {
+    try {
+      while(true) {
+        String line = queue.poll();
+
+        if(line == null) {
+          output.flush();
+          line = queue.take();
+        }
+
+        long droppedLines = dropped.getAndSet(0);
+
+        if(droppedLines > 0) {
+          output.write(String.format(
+            "%s diagnostic lines dropped whilst output was behind%n",
+            droppedLines));
+        }
+
+        output.write(line);
+        output.write(System.lineSeparator());
+      }
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch(IOException e) {
+      //Nowhere left to report this, so stop writing
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package org.folio.inventory.support.diagnostics;
+
+/**
+ * How much diagnostic output is produced, each level includes those before it
+ */
+public enum DiagnosticLevel {
+  OFF,
+  ERROR,
+  INFO,
+  DEBUG,
+  TRACE;
+
+  public boolean includes(DiagnosticLevel level) {
+    return level != OFF && level.ordinal() <= ordinal();
+  }
+}
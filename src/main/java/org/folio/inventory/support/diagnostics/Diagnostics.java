@@ -0,0 +1,248 @@
+package org.folio.inventory.support.diagnostics;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Diagnostic output for the whole process, which can be changed whilst
+ * running (see the /admin/diagnostics resource).
+ *
+ * Checking whether output is enabled is cheap, and messages are only built
+ * once it is, so that disabled diagnostics cost very little. Per request
+ * output is sampled, by the longest configured path prefix matching the
+ * request (or the default rate), except for tenants being traced, for whom
+ * everything (including headers and bodies) is output.
+ */
+public class Diagnostics {
+  public static final DiagnosticLevel DEFAULT_LEVEL = DiagnosticLevel.INFO;
+  public static final double DEFAULT_SAMPLE_RATE = 1.0d;
+
+  private static final Diagnostics GLOBAL = new Diagnostics(
+    new AsynchronousLineWriter(System.out));
+
+  private final Consumer<String> output;
+
+  private volatile DiagnosticLevel level = DEFAULT_LEVEL;
+  private volatile double defaultSampleRate = DEFAULT_SAMPLE_RATE;
+
+  private final ConcurrentMap<String, Double> sampleRatesByPath =
+    new ConcurrentHashMap<>();
+
+  private final Set<String> tracedTenants = ConcurrentHashMap.newKeySet();
+
+  public Diagnostics(Consumer<String> output) {
+    this.output = output;
+  }
+
+  public static Diagnostics global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Replaces the level, default sample rate and traced tenants with those
+   * in the configuration (or the defaults)
+   */
+  public void configure(Map<String, Object> config) {
+    Object configuredLevel = config.get("diagnostics.level");
+    Object configuredRate = config.get("diagnostics.sample.rate");
+    Object configuredTenants = config.get("diagnostics.trace.tenants");
+
+    setLevel(configuredLevel == null
+      ? DEFAULT_LEVEL
+      : DiagnosticLevel.valueOf(configuredLevel.toString().toUpperCase()));
+
+    setDefaultSampleRate(configuredRate == null
+      ? DEFAULT_SAMPLE_RATE
+      : Double.parseDouble(configuredRate.toString()));
+
+    tracedTenants.clear();
+
+    if(configuredTenants != null) {
+      Arrays.stream(configuredTenants.toString().split(","))
+        .map(String::trim)
+        .filter(tenant -> !tenant.isEmpty())
+        .forEach(tracedTenants::add);
+    }
+  }
+
+  public DiagnosticLevel getLevel() {
+    return level;
+  }
+
+  public void setLevel(DiagnosticLevel level) {
+    this.level = level;
+  }
+
+  public void setDefaultSampleRate(double rate) {
+    this.defaultSampleRate = rate;
+  }
+
+  /**
+   * @param rate the proportion of requests to paths starting with the prefix
+   * which have output, null to use the default rate
+   */
+  public void setSampleRate(String pathPrefix, Double rate) {
+    if(rate == null) {
+      sampleRatesByPath.remove(pathPrefix);
+    }
+    else {
+      sampleRatesByPath.put(pathPrefix, rate);
+    }
+  }
+
+  public void startTracing(String tenantId) {
+    tracedTenants.add(tenantId);
+  }
+
+  public void stopTracing(String tenantId) {
+    tracedTenants.remove(tenantId);
+  }
+
+  public boolean isEnabled(DiagnosticLevel level) {
+    return this.level.includes(level);
+  }
+
+  public boolean isTracing(String tenantId) {
+    return tenantId != null
+      && !tracedTenants.isEmpty()
+      && tracedTenants.contains(tenantId);
+  }
+
+  /**
+   * Whether a request should have output, which is always the case for
+   * traced tenants
+   */
+  public boolean sampled(String tenantId, String path) {
+    if(isTracing(tenantId)) {
+      return true;
+    }
+
+    double rate = sampleRateFor(path);
+
+    return rate >= 1.0d
+      || (rate > 0.0d && ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  /**
+   * Whether headers and bodies should be included in the output
+   * for a request that has been sampled
+   */
+  public boolean includeDetail(String tenantId) {
+    return isTracing(tenantId) || isEnabled(DiagnosticLevel.TRACE);
+  }
+
+  public void error(String message) {
+    log(DiagnosticLevel.ERROR, message);
+  }
+
+  public void info(String message) {
+    log(DiagnosticLevel.INFO, message);
+  }
+
+  public void debug(Supplier<String> message) {
+    if(isEnabled(DiagnosticLevel.DEBUG)) {
+      write(DiagnosticLevel.DEBUG, message.get());
+    }
+  }
+
+  public void trace(Supplier<String> message) {
+    if(isEnabled(DiagnosticLevel.TRACE)) {
+      write(DiagnosticLevel.TRACE, message.get());
+    }
+  }
+
+  /**
+   * Output about a request, at debug level, or regardless of level
+   * when the tenant is being traced
+   */
+  public void request(String tenantId, Supplier<String> message) {
+    if(isTracing(tenantId)) {
+      write(DiagnosticLevel.TRACE, message.get());
+    }
+    else if(isEnabled(DiagnosticLevel.DEBUG)) {
+      write(DiagnosticLevel.DEBUG, message.get());
+    }
+  }
+
+  public void log(DiagnosticLevel level, String message) {
+    if(isEnabled(level)) {
+      write(level, message);
+    }
+  }
+
+  public JsonObject toJson() {
+    return new JsonObject()
+      .put("level", level.name())
+      .put("sampleRate", defaultSampleRate)
+      .put("pathSampleRates", new JsonObject(
+        new HashMap<String, Object>(sampleRatesByPath)))
+      .put("tracedTenants", new JsonArray(new ArrayList<>(tracedTenants)));
+  }
+
+  /**
+   * Changes only the settings present in the representation, a path sample
+   * rate of null removes it
+   */
+  public void update(JsonObject representation) {
+    if(representation.containsKey("level")) {
+      setLevel(DiagnosticLevel.valueOf(
+        representation.getString("level").toUpperCase()));
+    }
+
+    if(representation.containsKey("sampleRate")) {
+      setDefaultSampleRate(representation.getDouble("sampleRate"));
+    }
+
+    JsonObject pathRates = representation.getJsonObject("pathSampleRates");
+
+    if(pathRates != null) {
+      pathRates.fieldNames().forEach(path ->
+        setSampleRate(path, pathRates.getDouble(path)));
+    }
+
+    JsonArray tenants = representation.getJsonArray("tracedTenants");
+
+    if(tenants != null) {
+      tracedTenants.clear();
+      tenants.forEach(tenant -> tracedTenants.add(tenant.toString()));
+    }
+  }
+
+  private double sampleRateFor(String path) {
+    if(sampleRatesByPath.isEmpty() || path == null) {
+      return defaultSampleRate;
+    }
+
+    String longestPrefix = null;
+
+    for(String prefix : sampleRatesByPath.keySet()) {
+      if(path.startsWith(prefix)
+        && (longestPrefix == null || prefix.length() > longestPrefix.length())) {
+        longestPrefix = prefix;
+      }
+    }
+
+    Double rate = longestPrefix == null
+      ? null
+      : sampleRatesByPath.get(longestPrefix);
+
+    return rate == null ? defaultSampleRate : rate;
+  }
+
+  private void write(DiagnosticLevel level, String message) {
+    output.accept(String.format("%s %s [%s] %s", Instant.now(), level,
+      Thread.currentThread().getName(), message));
+  }
+}
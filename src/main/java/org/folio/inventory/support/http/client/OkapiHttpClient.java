@@ -5,17 +5,30 @@ import io.vertx.core.json.Json;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import org.folio.inventory.support.diagnostics.DiagnosticLevel;
+import org.folio.inventory.support.diagnostics.Diagnostics;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.function.Consumer;
 
+/**
+ * Makes requests to other modules via Okapi.
+ *
+ * Requests whose response is handed on as a Response (once the whole body
+ * has been received) are limited by the pooled client's resilience policy
+ * (deadlines, bulkheads, circuit breaking and retries), when created with
+ * one. Other requests are made directly, and only POST requests time out.
+ */
 public class OkapiHttpClient {
   private static final String TENANT_HEADER = "X-Okapi-Tenant";
   private static final String TOKEN_HEADER = "X-Okapi-Token";
   private static final String OKAPI_URL_HEADER = "X-Okapi-Url";
+  private static final long POST_TIMEOUT_MILLISECONDS = 5000;
 
   private final HttpClient client;
+  private final PooledHttpClient pooledClient;
   private final URL okapiUrl;
   private final String tenantId;
   private final String token;
@@ -27,42 +40,66 @@ public class OkapiHttpClient {
                          String token,
                          Consumer<Throwable> exceptionHandler) {
 
+    this(httpClient, null, okapiUrl, tenantId, token, exceptionHandler);
+  }
+
+  public OkapiHttpClient(PooledHttpClient pooledClient,
+                         URL okapiUrl,
+                         String tenantId,
+                         String token,
+                         Consumer<Throwable> exceptionHandler) {
+
+    this(pooledClient.getHttpClient(), pooledClient, okapiUrl, tenantId,
+      token, exceptionHandler);
+  }
+
+  private OkapiHttpClient(HttpClient httpClient,
+                          PooledHttpClient pooledClient,
+                          URL okapiUrl,
+                          String tenantId,
+                          String token,
+                          Consumer<Throwable> exceptionHandler) {
+
     this.client = httpClient;
+    this.pooledClient = pooledClient;
     this.okapiUrl = okapiUrl;
     this.tenantId = tenantId;
     this.token = token;
     this.exceptionHandler = exceptionHandler;
   }
 
+  public String getTenantId() {
+    return tenantId;
+  }
+
+  /**
+   * Passes a failure to the client's own exception handler
+   */
+  public void failed(Throwable exception) {
+    exceptionHandler.accept(exception);
+  }
+
   public void post(URL url,
                    Object body,
                    Handler<HttpClientResponse> responseHandler) {
 
-    HttpClientRequest request = client.postAbs(url.toString(), responseHandler);
+    String encodedBody = encodeAndOutput("POST", url.toString(), body);
 
-    request.headers().add("Accept","application/json, text/plain");
-    request.headers().add("Content-type","application/json");
-    request.headers().add(OKAPI_URL_HEADER, okapiUrl.toString());
-
-    addMandatoryHeaders(request);
-
-    request.setTimeout(5000);
-
-    request.exceptionHandler(exception -> {
-      this.exceptionHandler.accept(exception);
-    });
+    send(HttpMethod.POST, url.toString(), POST_TIMEOUT_MILLISECONDS,
+      responseHandler, exceptionHandler,
+      prepare("application/json, text/plain", true, encodedBody));
+  }
 
-    if(body != null) {
-      String encodedBody = Json.encodePrettily(body);
+  public void post(URL url,
+                   Object body,
+                   Consumer<Response> responseHandler,
+                   Consumer<Throwable> exceptionHandler) {
 
-      System.out.println(String.format("POST %s, Request: %s",
-        url.toString(), encodedBody));
+    String encodedBody = encodeAndOutput("POST", url.toString(), body);
 
-      request.end(encodedBody);
-    }
-    else {
-      request.end();
-    }
+    exchange(HttpMethod.POST, url.toString(), POST_TIMEOUT_MILLISECONDS,
+      responseHandler, exceptionHandler,
+      prepare("application/json, text/plain", true, encodedBody));
   }
 
   public void put(URL url,
@@ -76,20 +113,21 @@ public class OkapiHttpClient {
                   Object body,
                   Handler<HttpClientResponse> responseHandler) {
 
-    HttpClientRequest request = client.putAbs(url, responseHandler);
-
-    request.headers().add("Accept","application/json, text/plain");
-    request.headers().add("Content-type","application/json");
-    request.headers().add(OKAPI_URL_HEADER, okapiUrl.toString());
+    String encodedBody = encodeAndOutput("PUT", url, body);
 
-    addMandatoryHeaders(request);
+    send(HttpMethod.PUT, url, 0, responseHandler, exceptionHandler,
+      prepare("application/json, text/plain", true, encodedBody));
+  }
 
-    String encodedBody = Json.encodePrettily(body);
+  public void put(String url,
+                  Object body,
+                  Consumer<Response> responseHandler,
+                  Consumer<Throwable> exceptionHandler) {
 
-    System.out.println(String.format("PUT %s, Request: %s",
-      url.toString(), encodedBody));
+    String encodedBody = encodeAndOutput("PUT", url, body);
 
-    request.end(encodedBody);
+    exchange(HttpMethod.PUT, url, 0, responseHandler, exceptionHandler,
+      prepare("application/json, text/plain", true, encodedBody));
   }
 
   public void get(URL url, Handler<HttpClientResponse> responseHandler) {
@@ -108,16 +146,20 @@ public class OkapiHttpClient {
   }
 
   public void get(String url, Handler<HttpClientResponse> responseHandler) {
+    outputDiagnostics("GET", url, null);
 
-    HttpClientRequest request = client.getAbs(url, responseHandler);
+    send(HttpMethod.GET, url, 0, responseHandler, exceptionHandler,
+      prepare("application/json", false, null));
+  }
 
-    request.headers().add("Accept","application/json");
-    request.headers().add(OKAPI_URL_HEADER, okapiUrl.toString());
+  public void get(String url,
+                  Consumer<Response> responseHandler,
+                  Consumer<Throwable> exceptionHandler) {
 
-    addMandatoryHeaders(request);
+    outputDiagnostics("GET", url, null);
 
-    System.out.println(String.format("GET %s", url));
-    request.end();
+    exchange(HttpMethod.GET, url, 0, responseHandler, exceptionHandler,
+      prepare("application/json", false, null));
   }
 
   public void delete(URL url, Handler<HttpClientResponse> responseHandler) {
@@ -127,14 +169,144 @@ public class OkapiHttpClient {
 
   public void delete(String url, Handler<HttpClientResponse> responseHandler) {
 
-    HttpClientRequest request = client.deleteAbs(url, responseHandler);
+    outputDiagnostics("DELETE", url, null);
 
-    request.headers().add("Accept","application/json, text/plain");
-    request.headers().add(OKAPI_URL_HEADER, okapiUrl.toString());
+    send(HttpMethod.DELETE, url, 0, responseHandler, exceptionHandler,
+      prepare("application/json, text/plain", false, null));
+  }
+
+  public void delete(String url,
+                     Consumer<Response> responseHandler,
+                     Consumer<Throwable> exceptionHandler) {
+
+    outputDiagnostics("DELETE", url, null);
+
+    exchange(HttpMethod.DELETE, url, 0, responseHandler, exceptionHandler,
+      prepare("application/json, text/plain", false, null));
+  }
+
+  private String encodeAndOutput(String method, String url, Object body) {
+    String encodedBody = body != null ? Json.encode(body) : null;
+
+    outputDiagnostics(method, url, encodedBody);
 
-    addMandatoryHeaders(request);
+    return encodedBody;
+  }
+
+  /**
+   * @return adds the headers and ends the request, may be used more than
+   * once when a request is retried
+   */
+  private Handler<HttpClientRequest> prepare(
+    String accept,
+    boolean jsonContent,
+    String encodedBody) {
+
+    return request -> {
+      request.headers().add("Accept", accept);
+
+      if(jsonContent) {
+        request.headers().add("Content-type","application/json");
+      }
+
+      request.headers().add(OKAPI_URL_HEADER, okapiUrl.toString());
+
+      addMandatoryHeaders(request);
+
+      if(encodedBody != null) {
+        request.end(encodedBody);
+      }
+      else {
+        request.end();
+      }
+    };
+  }
 
-    request.end();
+  /**
+   * Responses are only handed on once the whole body has been received,
+   * using the pooled client's policy when there is one
+   *
+   * @param timeoutMilliseconds only used without a pooled client (whose
+   * policy decides the deadline), none when 0
+   * @param exceptionHandler called (rather than the client's own handler)
+   * when no response is received, or the body cannot be read
+   */
+  private void exchange(HttpMethod method,
+                        String url,
+                        long timeoutMilliseconds,
+                        Consumer<Response> responseHandler,
+                        Consumer<Throwable> exceptionHandler,
+                        Handler<HttpClientRequest> prepare) {
+
+    if(pooledClient != null) {
+      pooledClient.request(method, url, tenantId,
+        method.name().toLowerCase(), null,
+        (response, body) ->
+          responseHandler.accept(Response.from(response, body)),
+        exceptionHandler::accept, prepare);
+
+      return;
+    }
+
+    send(method, url, timeoutMilliseconds,
+      response -> {
+        response.exceptionHandler(exceptionHandler::accept);
+
+        response.bodyHandler(body ->
+          responseHandler.accept(Response.from(response, body)));
+      },
+      exceptionHandler, prepare);
+  }
+
+  /**
+   * Made directly on the client, the response handler reads the body
+   *
+   * @param timeoutMilliseconds none when 0
+   */
+  private void send(HttpMethod method,
+                    String url,
+                    long timeoutMilliseconds,
+                    Handler<HttpClientResponse> responseHandler,
+                    Consumer<Throwable> exceptionHandler,
+                    Handler<HttpClientRequest> prepare) {
+
+    HttpClientRequest request = client.requestAbs(method, url,
+      responseHandler);
+
+    if(timeoutMilliseconds > 0) {
+      request.setTimeout(timeoutMilliseconds);
+    }
+
+    request.exceptionHandler(exceptionHandler::accept);
+
+    prepare.handle(request);
+  }
+
+  /**
+   * The body is only output when detail is included (e.g. for a tenant
+   * being traced)
+   */
+  private void outputDiagnostics(String method, String url, String body) {
+    Diagnostics diagnostics = Diagnostics.global();
+
+    if((diagnostics.isTracing(tenantId)
+      || diagnostics.isEnabled(DiagnosticLevel.DEBUG))
+      && diagnostics.sampled(tenantId, pathOf(url))) {
+
+      diagnostics.request(tenantId, () ->
+        body != null && diagnostics.includeDetail(tenantId)
+          ? String.format("%s %s, Request: %s", method, url, body)
+          : String.format("%s %s", method, url));
+    }
+  }
+
+  private static String pathOf(String url) {
+    try {
+      return new URL(url).getPath();
+    }
+    catch(MalformedURLException e) {
+      return url;
+    }
   }
 
   private void addMandatoryHeaders(HttpClientRequest request) {
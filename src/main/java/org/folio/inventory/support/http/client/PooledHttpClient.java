@@ -0,0 +1,625 @@
+package org.folio.inventory.support.http.client;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import org.folio.inventory.support.BoundedConcurrency;
+import org.folio.inventory.support.metrics.Timing;
+import org.folio.inventory.support.resilience.CircuitBreaker;
+import org.folio.inventory.support.resilience.RejectedRequestException;
+import org.folio.inventory.support.resilience.ResiliencePolicy;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Long lived HTTP client shared by all requests made to storage modules.
+ *
+ * Vert.x pools connections per host and port, so requests to the same
+ * storage module reuse a small set of keep-alive connections rather than
+ * opening (and never closing) a new client for every request.
+ *
+ * Requests made using request() are also limited by a resilience policy:
+ * each has a deadline, each tenant can only have so many in flight (and
+ * waiting) at once, requests to a module which keeps failing are refused
+ * until it has had time to recover and idempotent requests are retried.
+ * These limits are per instance (and so per verticle instance).
+ *
+ * Modules are told apart by host and first path segment (e.g.
+ * /item-storage), as every module may be reached via the same Okapi host.
+ */
+public class PooledHttpClient {
+  public static final int DEFAULT_MAX_POOL_SIZE = 20;
+  public static final int DEFAULT_MAX_WAIT_QUEUE_SIZE = 1000;
+  public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+
+  private final Vertx vertx;
+  private final HttpClient client;
+  private final ResiliencePolicy policy;
+  private final int maxPoolSize;
+  private final int maxWaitQueueSize;
+  private final boolean keepAlive;
+  private final boolean pipelining;
+
+  private final ConcurrentMap<String, HostUtilisation> utilisationByHost =
+    new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, CircuitBreaker> breakersByModule =
+    new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, BoundedConcurrency> bulkheadsByTenant =
+    new ConcurrentHashMap<>();
+
+  public PooledHttpClient(Vertx vertx) {
+    this(vertx, DEFAULT_MAX_POOL_SIZE, DEFAULT_MAX_WAIT_QUEUE_SIZE,
+      true, false);
+  }
+
+  public PooledHttpClient(
+    Vertx vertx,
+    int maxPoolSize,
+    int maxWaitQueueSize,
+    boolean keepAlive,
+    boolean pipelining) {
+
+    this(vertx, maxPoolSize, maxWaitQueueSize, keepAlive, pipelining,
+      ResiliencePolicy.defaults());
+  }
+
+  public PooledHttpClient(
+    Vertx vertx,
+    int maxPoolSize,
+    int maxWaitQueueSize,
+    boolean keepAlive,
+    boolean pipelining,
+    ResiliencePolicy policy) {
+
+    this.vertx = vertx;
+    this.policy = policy;
+    this.maxPoolSize = maxPoolSize;
+    this.maxWaitQueueSize = maxWaitQueueSize;
+    this.keepAlive = keepAlive;
+    this.pipelining = pipelining;
+
+    HttpClientOptions options = new HttpClientOptions()
+      .setMaxPoolSize(maxPoolSize)
+      .setMaxWaitQueueSize(maxWaitQueueSize)
+      .setKeepAlive(keepAlive)
+      .setPipelining(keepAlive && pipelining)
+      .setIdleTimeout(DEFAULT_IDLE_TIMEOUT_SECONDS);
+
+    this.client = vertx.createHttpClient(options);
+  }
+
+  public static PooledHttpClient fromConfig(
+    Vertx vertx,
+    Map<String, Object> config) {
+
+    return new PooledHttpClient(vertx,
+      integerConfig(config, "http.client.max.pool.size",
+        DEFAULT_MAX_POOL_SIZE),
+      integerConfig(config, "http.client.max.wait.queue.size",
+        DEFAULT_MAX_WAIT_QUEUE_SIZE),
+      booleanConfig(config, "http.client.keep.alive", true),
+      booleanConfig(config, "http.client.pipelining", false),
+      ResiliencePolicy.fromConfig(config));
+  }
+
+  public HttpClient getHttpClient() {
+    return client;
+  }
+
+  /**
+   * Creates a request on the shared client. The exception handler is
+   * attached here, so that pool utilisation is tracked for requests that
+   * fail as well as those that receive a response.
+   */
+  public HttpClientRequest requestAbs(
+    HttpMethod method,
+    String absoluteUrl,
+    Handler<HttpClientResponse> responseHandler,
+    Handler<Throwable> exceptionHandler) {
+
+    return requestAbs(method, absoluteUrl, null, responseHandler,
+      exceptionHandler);
+  }
+
+  /**
+   * As above, also finishing the timing (when provided) once the response
+   * arrives (before the body has been received) or the request fails
+   */
+  public HttpClientRequest requestAbs(
+    HttpMethod method,
+    String absoluteUrl,
+    Timing timing,
+    Handler<HttpClientResponse> responseHandler,
+    Handler<Throwable> exceptionHandler) {
+
+    HostUtilisation utilisation = utilisationFor(absoluteUrl);
+
+    utilisation.started();
+
+    AtomicBoolean finished = new AtomicBoolean(false);
+
+    HttpClientRequest request;
+
+    try {
+      request = client.requestAbs(method, absoluteUrl,
+        response -> {
+          if(finished.compareAndSet(false, true)) {
+            utilisation.finished(false);
+
+            if(timing != null) {
+              timing.finished(response.statusCode());
+            }
+          }
+
+          responseHandler.handle(response);
+        });
+    }
+    catch(RuntimeException e) {
+      utilisation.finished(true);
+      throw e;
+    }
+
+    request.exceptionHandler(exception -> {
+      if(finished.compareAndSet(false, true)) {
+        utilisation.finished(true);
+
+        if(timing != null) {
+          timing.failed();
+        }
+      }
+
+      exceptionHandler.handle(exception);
+    });
+
+    return request;
+  }
+
+  /**
+   * Makes a request within the resilience policy. The request is only
+   * created once the tenant has a free slot, the send handler is expected
+   * to add any headers and end it (and may be called again for a retry).
+   *
+   * The whole body is read before the response is handed on, so that the
+   * tenant's slot is held until the request has really finished. Only one
+   * of the handlers is called, once, including when reading the body fails.
+   *
+   * Requests which cannot be made (the circuit for the module is open, too
+   * many are waiting for the tenant or the deadline has passed) fail with a
+   * RejectedRequestException. GET and HEAD requests which fail, or get a
+   * 502, 503 or 504 response, are retried (after a jittered backoff) whilst
+   * there are attempts and time left. Only those responses and failures
+   * count towards opening the circuit, as other server errors (e.g. a 500
+   * for a malformed query) may be caused by the request. Requests which
+   * have not been fully received by the deadline fail with a
+   * TimeoutException, and their connection is reset.
+   *
+   * @param operation used to find the deadline (and for messages)
+   * @param timing finished once, for the final response or failure
+   */
+  public void request(
+    HttpMethod method,
+    String absoluteUrl,
+    String tenantId,
+    String operation,
+    Timing timing,
+    BiConsumer<HttpClientResponse, Buffer> responseHandler,
+    Handler<Throwable> exceptionHandler,
+    Handler<HttpClientRequest> send) {
+
+    long deadline = System.currentTimeMillis()
+      + policy.deadlineFor(operation);
+
+    bulkheadFor(tenantId).<Void>submit(() -> {
+      CompletableFuture<Void> released = new CompletableFuture<>();
+
+      new Attempts(method, absoluteUrl, operation, deadline, timing,
+        released, responseHandler, exceptionHandler, send).make(1);
+
+      return released;
+    })
+    .whenComplete((nothing, exception) -> {
+      //Attempts report their own failures, so this is only when the request
+      //was refused or could not be started at all
+      if(exception == null) {
+        return;
+      }
+
+      if(timing != null) {
+        timing.failed();
+      }
+
+      exceptionHandler.handle(exception instanceof RejectedExecutionException
+        ? new RejectedRequestException(
+          String.format("Too many requests waiting for tenant %s: %s",
+            tenantId, exception.getMessage()))
+        : exception);
+    });
+  }
+
+  public JsonObject utilisation() {
+    JsonObject hosts = new JsonObject();
+
+    utilisationByHost.forEach((host, utilisation) ->
+      hosts.put(host, utilisation.toJson(maxPoolSize)));
+
+    JsonObject circuits = new JsonObject();
+
+    breakersByModule.forEach((module, breaker) ->
+      circuits.put(module, breaker.state().name()));
+
+    JsonObject tenants = new JsonObject();
+
+    bulkheadsByTenant.forEach((tenant, bulkhead) ->
+      tenants.put(tenant, new JsonObject()
+        .put("inFlight", bulkhead.inFlight())
+        .put("waiting", bulkhead.waiting())));
+
+    return new JsonObject()
+      .put("maxPoolSize", maxPoolSize)
+      .put("maxWaitQueueSize", maxWaitQueueSize)
+      .put("keepAlive", keepAlive)
+      .put("pipelining", keepAlive && pipelining)
+      .put("hosts", hosts)
+      .put("circuits", circuits)
+      .put("tenants", tenants);
+  }
+
+  public void close() {
+    client.close();
+  }
+
+  private HostUtilisation utilisationFor(String absoluteUrl) {
+    return utilisationByHost.computeIfAbsent(hostOf(absoluteUrl),
+      host -> new HostUtilisation());
+  }
+
+  private CircuitBreaker breakerFor(String absoluteUrl) {
+    return breakersByModule.computeIfAbsent(moduleOf(absoluteUrl),
+      module -> policy.createCircuitBreaker());
+  }
+
+  private BoundedConcurrency bulkheadFor(String tenantId) {
+    return bulkheadsByTenant.computeIfAbsent(
+      tenantId == null ? "" : tenantId,
+      tenant -> new BoundedConcurrency(policy.getTenantMaxInFlight(),
+        policy.getTenantMaxWaiting()));
+  }
+
+  private static boolean isIdempotent(HttpMethod method) {
+    return method == HttpMethod.GET || method == HttpMethod.HEAD;
+  }
+
+  /**
+   * Whether the response means the module (or the proxy in front of it)
+   * is unavailable, rather than that the request could not be handled
+   */
+  private static boolean isUnavailable(int statusCode) {
+    return statusCode == 502 || statusCode == 503 || statusCode == 504;
+  }
+
+  /**
+   * The host and first path segment, e.g. okapi:9130/item-storage
+   */
+  static String moduleOf(String absoluteUrl) {
+    String host = hostOf(absoluteUrl);
+
+    try {
+      String path = URI.create(absoluteUrl).getPath();
+
+      if(path == null || path.length() <= 1) {
+        return host;
+      }
+
+      int end = path.indexOf('/', 1);
+
+      return host + (end == -1 ? path : path.substring(0, end));
+    }
+    catch(IllegalArgumentException e) {
+      return host;
+    }
+  }
+
+  private static String hostOf(String absoluteUrl) {
+    try {
+      URI uri = URI.create(absoluteUrl);
+
+      return uri.getPort() == -1
+        ? uri.getHost()
+        : String.format("%s:%s", uri.getHost(), uri.getPort());
+    }
+    catch(IllegalArgumentException e) {
+      return "unknown";
+    }
+  }
+
+  private static int integerConfig(
+    Map<String, Object> config,
+    String key,
+    int defaultValue) {
+
+    Object value = config.get(key);
+
+    return value == null
+      ? defaultValue
+      : Integer.parseInt(value.toString());
+  }
+
+  private static boolean booleanConfig(
+    Map<String, Object> config,
+    String key,
+    boolean defaultValue) {
+
+    Object value = config.get(key);
+
+    return value == null
+      ? defaultValue
+      : Boolean.parseBoolean(value.toString());
+  }
+
+  /**
+   * The attempts at a single request. The tenant's slot is released, and
+   * the caller told, once: when the final response has been read or the
+   * request has finally failed
+   */
+  private class Attempts {
+    private final HttpMethod method;
+    private final String absoluteUrl;
+    private final String operation;
+    private final long deadline;
+    private final Timing timing;
+    private final CompletableFuture<Void> released;
+    private final BiConsumer<HttpClientResponse, Buffer> responseHandler;
+    private final Handler<Throwable> exceptionHandler;
+    private final Handler<HttpClientRequest> send;
+    private final CircuitBreaker breaker;
+
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+
+    //The timer which ends the current attempt at the deadline
+    private volatile long deadlineTimer = -1;
+
+    Attempts(
+      HttpMethod method,
+      String absoluteUrl,
+      String operation,
+      long deadline,
+      Timing timing,
+      CompletableFuture<Void> released,
+      BiConsumer<HttpClientResponse, Buffer> responseHandler,
+      Handler<Throwable> exceptionHandler,
+      Handler<HttpClientRequest> send) {
+
+      this.method = method;
+      this.absoluteUrl = absoluteUrl;
+      this.operation = operation;
+      this.deadline = deadline;
+      this.timing = timing;
+      this.released = released;
+      this.responseHandler = responseHandler;
+      this.exceptionHandler = exceptionHandler;
+      this.send = send;
+      this.breaker = breakerFor(absoluteUrl);
+    }
+
+    void make(int attempt) {
+      long remaining = deadline - System.currentTimeMillis();
+
+      if(remaining <= 0) {
+        failed(new RejectedRequestException(String.format(
+          "Deadline for %s passed before attempt %s", operation, attempt)));
+        return;
+      }
+
+      if(!breaker.allowRequest()) {
+        failed(new RejectedRequestException(String.format(
+          "Circuit open for %s, %s not attempted", moduleOf(absoluteUrl),
+          operation)));
+        return;
+      }
+
+      //Set once this attempt has been retried, after which nothing more
+      //from it is passed on
+      AtomicBoolean superseded = new AtomicBoolean(false);
+      AtomicBoolean responded = new AtomicBoolean(false);
+
+      try {
+        attempt(attempt, remaining, superseded, responded);
+      }
+      catch(RuntimeException e) {
+        //e.g. a malformed URL, or the request could not be sent
+        failed(e);
+      }
+    }
+
+    private void attempt(
+      int attempt,
+      long remaining,
+      AtomicBoolean superseded,
+      AtomicBoolean responded) {
+
+      HttpClientRequest request = requestAbs(method, absoluteUrl, null,
+        response -> {
+          if(superseded.get() || !responded.compareAndSet(false, true)) {
+            return;
+          }
+
+          int statusCode = response.statusCode();
+
+          if(isUnavailable(statusCode)) {
+            breaker.failed();
+          }
+          else {
+            breaker.succeeded();
+          }
+
+          if(isIdempotent(method) && isUnavailable(statusCode)
+            && retry(attempt, superseded)) {
+
+            //Consumed so that the connection can be reused
+            response.exceptionHandler(exception -> { });
+            response.bodyHandler(body -> { });
+            return;
+          }
+
+          //Reading the body can still fail (e.g. the connection is closed)
+          response.exceptionHandler(this::failed);
+
+          response.bodyHandler(body -> succeeded(response, body));
+        },
+        exception -> {
+          if(superseded.get()) {
+            return;
+          }
+
+          //Failed after the response arrived, whilst reading the body
+          if(responded.get()) {
+            failed(exception);
+            return;
+          }
+
+          breaker.failed();
+
+          if(isIdempotent(method) && retry(attempt, superseded)) {
+            return;
+          }
+
+          failed(exception);
+        });
+
+      //The timeout is only for when nothing is received, a response which
+      //trickles in is ended at the deadline by resetting the connection
+      request.setTimeout(remaining);
+
+      deadlineTimer = vertx.setTimer(remaining, id -> {
+        if(superseded.get() || completed.get()) {
+          return;
+        }
+
+        if(!responded.get()) {
+          breaker.failed();
+        }
+
+        failed(new TimeoutException(String.format(
+          "Deadline for %s passed before the response was received",
+          operation)));
+
+        request.reset();
+      });
+
+      send.handle(request);
+    }
+
+    /**
+     * @return whether another attempt will be made
+     */
+    private boolean retry(int attempt, AtomicBoolean superseded) {
+      if(attempt >= policy.getRetryMaxAttempts()) {
+        return false;
+      }
+
+      long delay = Math.max(1, policy.getBackoff().delayBefore(attempt));
+
+      if(System.currentTimeMillis() + delay >= deadline) {
+        return false;
+      }
+
+      superseded.set(true);
+      cancelDeadlineTimer();
+
+      vertx.setTimer(delay, id -> make(attempt + 1));
+
+      return true;
+    }
+
+    private void succeeded(HttpClientResponse response, Buffer body) {
+      if(!completed.compareAndSet(false, true)) {
+        return;
+      }
+
+      cancelDeadlineTimer();
+
+      if(timing != null) {
+        timing.finished(response.statusCode());
+      }
+
+      released.complete(null);
+      responseHandler.accept(response, body);
+    }
+
+    private void failed(Throwable exception) {
+      if(!completed.compareAndSet(false, true)) {
+        return;
+      }
+
+      cancelDeadlineTimer();
+
+      if(timing != null) {
+        timing.failed();
+      }
+
+      released.complete(null);
+      exceptionHandler.handle(exception);
+    }
+
+    private void cancelDeadlineTimer() {
+      long timer = deadlineTimer;
+
+      if(timer != -1) {
+        vertx.cancelTimer(timer);
+      }
+    }
+  }
+
+  private static class HostUtilisation {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong totalRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+
+    void started() {
+      int current = inFlight.incrementAndGet();
+
+      totalRequests.incrementAndGet();
+      peakInFlight.accumulateAndGet(current, Math::max);
+    }
+
+    void finished(boolean failed) {
+      inFlight.decrementAndGet();
+
+      if(failed) {
+        failedRequests.incrementAndGet();
+      }
+    }
+
+    JsonObject toJson(int maxPoolSize) {
+      int current = inFlight.get();
+
+      return new JsonObject()
+        .put("inFlight", current)
+        .put("queued", Math.max(0, current - maxPoolSize))
+        .put("peakInFlight", peakInFlight.get())
+        .put("totalRequests", totalRequests.get())
+        .put("failedRequests", failedRequests.get())
+        .put("utilisation",
+          (double)Math.min(current, maxPoolSize) / maxPoolSize);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package org.folio.inventory.support.http.client;
 
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpClientResponse;
+import org.folio.inventory.support.diagnostics.Diagnostics;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
@@ -52,10 +53,9 @@ public class ResponseHandler {
 
           Response response = Response.from(vertxResponse, buffer);
 
-          System.out.println(String.format("Received Response: %s: %s",
-            response.getStatusCode(), response.getContentType()));
-          System.out.println(String.format("Received Response Body: %s",
-            response.getBody()));
+          Diagnostics.global().trace(() -> String.format(
+            "Received Response: %s: %s, Body: %s", response.getStatusCode(),
+            response.getContentType(), response.getBody()));
 
           if(expectation.test(response)) {
             completed.complete(response);
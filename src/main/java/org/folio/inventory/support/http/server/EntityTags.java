@@ -0,0 +1,76 @@
+package org.folio.inventory.support.http.server;
+
+import com.google.common.hash.Hashing;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+/**
+ * Weak entity tags, derived from the bytes of a representation, so that
+ * a client which already has a representation is not sent it again.
+ *
+ * Tags are weak as the same tag is given whether or not the response is
+ * compressed, which a strong tag must not be.
+ */
+public class EntityTags {
+  /**
+   * Larger bodies are streamed without an entity tag, rather than held in
+   * memory until complete
+   */
+  public static final int MAXIMUM_TAGGED_BYTES = 1024 * 1024;
+
+  private EntityTags() { }
+
+  public static String of(Buffer body) {
+    return "W/\"" + Hashing.murmur3_128().hashBytes(body.getBytes()) + "\"";
+  }
+
+  /**
+   * Uses the weak comparison required for If-None-Match, so tags match
+   * whether or not either is weak
+   */
+  public static boolean matches(String ifNoneMatch, String entityTag) {
+    if(ifNoneMatch == null) {
+      return false;
+    }
+
+    String opaqueTag = withoutWeakPrefix(entityTag);
+
+    for(String tag : ifNoneMatch.split(",")) {
+      String trimmed = tag.trim();
+
+      if(trimmed.equals("*") || withoutWeakPrefix(trimmed).equals(opaqueTag)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Ends the response with the body and its entity tag, or as 304 Not
+   * Modified (without the body) when the request has a matching tag.
+   * The status and other headers should already be set.
+   */
+  public static void end(
+    HttpServerRequest request,
+    HttpServerResponse response,
+    Buffer body) {
+
+    String entityTag = of(body);
+
+    response.putHeader("ETag", entityTag);
+
+    if(matches(request.getHeader("If-None-Match"), entityTag)) {
+      response.setStatusCode(304);
+      response.end();
+      return;
+    }
+
+    ResponseCompression.end(request, response, body);
+  }
+
+  private static String withoutWeakPrefix(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
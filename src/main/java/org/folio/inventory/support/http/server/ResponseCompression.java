@@ -0,0 +1,177 @@
+package org.folio.inventory.support.http.server;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Responses are compressed (gzip or deflate, as accepted by the client)
+ * when enabled, each response deciding for itself (rather than the server
+ * compressing every response). Small bodies gain little from being
+ * compressed, so are not.
+ */
+public class ResponseCompression {
+  public static final int MINIMUM_COMPRESSED_BYTES = 1024;
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+
+  private static volatile boolean enabled = true;
+
+  private ResponseCompression() { }
+
+  public static void setEnabled(boolean enabled) {
+    ResponseCompression.enabled = enabled;
+  }
+
+  /**
+   * @param length of the body, or -1 when not known (e.g. streamed)
+   * @return the coding to use for the response, or null when it should
+   * not be compressed (including when there is no request to negotiate with)
+   */
+  public static String codingFor(HttpServerRequest request, int length) {
+    if(!enabled || request == null) {
+      return null;
+    }
+
+    if(length >= 0 && length < MINIMUM_COMPRESSED_BYTES) {
+      return null;
+    }
+
+    return accepted(request.getHeader("Accept-Encoding"));
+  }
+
+  /**
+   * The preferred coding which the Accept-Encoding header allows,
+   * gzip before deflate
+   */
+  static String accepted(String acceptEncoding) {
+    if(acceptEncoding == null) {
+      return null;
+    }
+
+    boolean gzip = false;
+    boolean deflate = false;
+
+    for(String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase();
+
+      if(isRefused(parts)) {
+        continue;
+      }
+
+      gzip |= name.equals(GZIP) || name.equals("x-gzip") || name.equals("*");
+      deflate |= name.equals(DEFLATE);
+    }
+
+    return gzip ? GZIP : deflate ? DEFLATE : null;
+  }
+
+  /**
+   * Ends the response with the body, compressed when the client accepts it.
+   * The status and other headers should already be set.
+   */
+  public static void end(
+    HttpServerRequest request,
+    HttpServerResponse response,
+    Buffer body) {
+
+    String coding = codingFor(request, body.length());
+
+    if(enabled && request != null) {
+      response.putHeader("Vary", "Accept-Encoding");
+    }
+
+    Buffer encoded = coding == null ? body : compress(body, coding);
+
+    if(coding != null) {
+      response.putHeader("Content-Encoding", coding);
+    }
+
+    response.putHeader("content-length", Integer.toString(encoded.length()));
+    response.end(encoded);
+  }
+
+  /**
+   * Starts compressing a streamed response (when the client accepts it),
+   * before any of the body has been written
+   *
+   * @return where the body should be written, which must be closed to
+   * write the end of the compressed body
+   */
+  public static OutputStream streamed(
+    HttpServerRequest request,
+    HttpServerResponse response,
+    OutputStream body) {
+
+    String coding = codingFor(request, -1);
+
+    if(enabled && request != null) {
+      response.putHeader("Vary", "Accept-Encoding");
+    }
+
+    if(coding == null) {
+      return body;
+    }
+
+    response.putHeader("Content-Encoding", coding);
+
+    try {
+      return compressing(body, coding);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static Buffer compress(Buffer body, String coding) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(
+      body.length() / 4);
+
+    try(OutputStream output = compressing(compressed, coding)) {
+      output.write(body.getBytes());
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return Buffer.buffer(compressed.toByteArray());
+  }
+
+  /**
+   * Flushing writes everything compressed so far, so that each chunk
+   * written can be decompressed as it arrives
+   */
+  private static OutputStream compressing(OutputStream output, String coding)
+    throws IOException {
+
+    return coding.equals(GZIP)
+      ? new GZIPOutputStream(output, true)
+      : new DeflaterOutputStream(output, true);
+  }
+
+  private static boolean isRefused(String[] parameters) {
+    for(int index = 1; index < parameters.length; index++) {
+      String parameter = parameters[index].trim();
+
+      if(parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2)) <= 0;
+        }
+        catch (NumberFormatException e) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,121 @@
+package org.folio.inventory.support.http.server;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes each block of bytes as a chunk of the response, so that the
+ * response can be written before all of it is known. The response is
+ * only made chunked when the first bytes are written, so that it can still
+ * be replaced by an error response until then.
+ *
+ * Up to a limit, bytes can be held back rather than written, so that a
+ * body which turns out to be small enough can be written whole instead
+ * (e.g. with an entity tag).
+ *
+ * When given the request, a body which is written in chunks is compressed
+ * (see ResponseCompression), one which is held back is not.
+ *
+ * Closing the stream finishes any compression, but does not end the
+ * response.
+ */
+public class ResponseOutputStream extends OutputStream {
+  private final HttpServerRequest request;
+  private final HttpServerResponse response;
+  private final int maximumHeldBackBytes;
+
+  private Buffer heldBack;
+  private OutputStream chunks;
+
+  public ResponseOutputStream(HttpServerResponse response) {
+    this(null, response, 0);
+  }
+
+  public ResponseOutputStream(
+    HttpServerRequest request,
+    HttpServerResponse response,
+    int maximumHeldBackBytes) {
+
+    this.request = request;
+    this.response = response;
+    this.maximumHeldBackBytes = maximumHeldBackBytes;
+    this.heldBack = maximumHeldBackBytes > 0 ? Buffer.buffer() : null;
+  }
+
+  public boolean hasWritten() {
+    return response.isChunked();
+  }
+
+  /**
+   * @return everything written so far, when none of it has been written to
+   * the response, otherwise null
+   */
+  public Buffer heldBack() {
+    return response.isChunked() ? null : heldBack;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] { (byte)b }, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if(length == 0) {
+      return;
+    }
+
+    if(!response.isChunked()) {
+      if(heldBack != null
+        && heldBack.length() + length <= maximumHeldBackBytes) {
+
+        heldBack.appendBytes(bytes, offset, length);
+        return;
+      }
+
+      chunks = ResponseCompression.streamed(request, response,
+        new ChunkOutputStream(response));
+
+      response.setChunked(true);
+
+      if(heldBack != null && heldBack.length() > 0) {
+        chunks.write(heldBack.getBytes());
+      }
+
+      heldBack = null;
+    }
+
+    chunks.write(bytes, offset, length);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(chunks != null) {
+      chunks.close();
+    }
+  }
+
+  private static class ChunkOutputStream extends OutputStream {
+    private final HttpServerResponse response;
+
+    ChunkOutputStream(HttpServerResponse response) {
+      this.response = response;
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      if(length > 0) {
+        response.write(Buffer.buffer(length).appendBytes(bytes, offset, length));
+      }
+    }
+  }
+}
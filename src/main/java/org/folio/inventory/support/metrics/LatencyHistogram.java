@@ -0,0 +1,135 @@
+package org.folio.inventory.support.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of values (e.g. latencies in microseconds) in buckets whose width
+ * grows with the value (in the style of an HDR histogram), so that any
+ * value or quantile is within about 6% whilst the number of buckets stays
+ * small and fixed. Recording does not lock or allocate.
+ *
+ * Values below 16 have a bucket each, above that each power of two is
+ * divided into 16 buckets of equal width.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAXIMUM_EXPONENT = 40;
+
+  static final int BUCKETS =
+    (MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  public void record(long value) {
+    long bounded = Math.max(0, value);
+
+    counts.incrementAndGet(indexOf(bounded));
+    count.increment();
+    sum.add(bounded);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  /**
+   * The number of values at or below the value. Values in the bucket which
+   * holds the value are assumed to be spread evenly across it (only a share
+   * of them is counted), so this may be out by up to that bucket's count.
+   */
+  public long countAtOrBelow(long value) {
+    long total = 0;
+
+    for(int index = 0; index < BUCKETS; index++) {
+      long upperBound = upperBoundOf(index);
+
+      if(upperBound <= value) {
+        total += counts.get(index);
+        continue;
+      }
+
+      long lowerBound = index == 0 ? 0 : upperBoundOf(index - 1) + 1;
+
+      if(lowerBound <= value) {
+        double share = (double)(value - lowerBound + 1)
+          / (upperBound - lowerBound + 1);
+
+        total += (long)(counts.get(index) * share);
+      }
+
+      break;
+    }
+
+    return total;
+  }
+
+  /**
+   * The upper bound of the bucket holding the value at the quantile
+   * (between 0 and 1), or 0 when nothing has been recorded
+   */
+  public long valueAtQuantile(double quantile) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+
+    for(int index = 0; index < BUCKETS; index++) {
+      snapshot[index] = counts.get(index);
+      total += snapshot[index];
+    }
+
+    if(total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long)Math.ceil(quantile * total));
+    long seen = 0;
+
+    for(int index = 0; index < BUCKETS; index++) {
+      seen += snapshot[index];
+
+      if(seen >= rank) {
+        return upperBoundOf(index);
+      }
+    }
+
+    return upperBoundOf(BUCKETS - 1);
+  }
+
+  static int indexOf(long value) {
+    if(value < SUB_BUCKETS) {
+      return (int)value;
+    }
+
+    int exponent = Math.min(63 - Long.numberOfLeadingZeros(value),
+      MAXIMUM_EXPONENT);
+
+    if(exponent == MAXIMUM_EXPONENT
+      && value >= (1L << (MAXIMUM_EXPONENT + 1))) {
+      return BUCKETS - 1;
+    }
+
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int)((value >>> shift) & (SUB_BUCKETS - 1));
+
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBoundOf(int index) {
+    if(index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    int subBucket = index % SUB_BUCKETS;
+    int shift = exponent - SUB_BUCKET_BITS;
+
+    return ((long)(SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,213 @@
+package org.folio.inventory.support.metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for the whole process, one for each distinct set of
+ * labels (e.g. route, tenant and status code) within a metric, which can be
+ * written in the Prometheus text format.
+ *
+ * The number of requests (and how many had each status code) is the count
+ * of each histogram.
+ *
+ * Tenants (which come from request headers) are only given their own
+ * label value up to a limit, later ones are counted together as "other",
+ * so that the number of histograms stays bounded.
+ */
+public class Metrics {
+  public static final String HTTP_REQUESTS =
+    "inventory_http_request_duration_seconds";
+
+  public static final String STORAGE_OPERATIONS =
+    "inventory_storage_operation_duration_seconds";
+
+  public static final String REFERENCE_DATA_REQUESTS =
+    "inventory_reference_data_request_duration_seconds";
+
+  public static final String FAILED_STATUS = "error";
+
+  public static final String TENANT_LABEL = "tenant";
+  public static final String OTHER_TENANTS = "other";
+  public static final int DEFAULT_MAXIMUM_TENANTS = 100;
+
+  private static final String[] BUCKET_BOUNDARIES_SECONDS = {
+    "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1",
+    "0.25", "0.5", "1", "2.5", "5", "10" };
+
+  private static final Map<String, String> DESCRIPTIONS =
+    new ConcurrentHashMap<>();
+
+  static {
+    DESCRIPTIONS.put(HTTP_REQUESTS,
+      "Time taken to respond to requests to this module");
+
+    DESCRIPTIONS.put(STORAGE_OPERATIONS,
+      "Time taken for storage modules to respond to item and instance operations");
+
+    DESCRIPTIONS.put(REFERENCE_DATA_REQUESTS,
+      "Time taken for reference data requests to be responded to");
+  }
+
+  private static final Metrics GLOBAL = new Metrics();
+
+  private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>>
+    histograms = new ConcurrentSkipListMap<>();
+
+  private final int maximumTenants;
+  private final Set<String> tenants = ConcurrentHashMap.newKeySet();
+
+  public Metrics() {
+    this(DEFAULT_MAXIMUM_TENANTS);
+  }
+
+  public Metrics(int maximumTenants) {
+    this.maximumTenants = maximumTenants;
+  }
+
+  public static Metrics global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Starts timing something which will finish with a status code
+   *
+   * @param labels alternating label names and values, the status label
+   * is added when finished
+   */
+  public Timing start(String metric, String... labels) {
+    return new Timing(this, metric, labels, System.nanoTime());
+  }
+
+  public void record(
+    String metric,
+    String[] labels,
+    String status,
+    long elapsedNanoseconds) {
+
+    histogramFor(metric, labels, status)
+      .record(TimeUnit.NANOSECONDS.toMicros(elapsedNanoseconds));
+  }
+
+  public LatencyHistogram histogramFor(
+    String metric,
+    String[] labels,
+    String status) {
+
+    return histograms
+      .computeIfAbsent(metric, name -> new ConcurrentSkipListMap<>())
+      .computeIfAbsent(labelsOf(labels, status), key -> new LatencyHistogram());
+  }
+
+  public String toPrometheus() {
+    StringBuilder output = new StringBuilder();
+
+    histograms.forEach((metric, histogramsByLabels) -> {
+      output.append("# HELP ").append(metric).append(' ')
+        .append(DESCRIPTIONS.getOrDefault(metric, metric)).append('\n');
+
+      output.append("# TYPE ").append(metric).append(" histogram\n");
+
+      histogramsByLabels.forEach((labels, histogram) -> {
+        //Counts are read before the buckets, so that the count is never
+        //less than the last bucket, even when values are being recorded
+        long count = histogram.getCount();
+        long sum = histogram.getSum();
+
+        for(String boundary : BUCKET_BOUNDARIES_SECONDS) {
+          long boundaryMicroseconds = new BigDecimal(boundary)
+            .movePointRight(6).longValueExact();
+
+          appendSample(output, metric + "_bucket", labels,
+            "le=\"" + boundary + "\"",
+            Long.toString(Math.min(count,
+              histogram.countAtOrBelow(boundaryMicroseconds))));
+        }
+
+        appendSample(output, metric + "_bucket", labels, "le=\"+Inf\"",
+          Long.toString(count));
+
+        appendSample(output, metric + "_sum", labels, null,
+          Double.toString(sum / 1000000.0d));
+
+        appendSample(output, metric + "_count", labels, null,
+          Long.toString(count));
+      });
+    });
+
+    return output.toString();
+  }
+
+  private static void appendSample(
+    StringBuilder output,
+    String name,
+    String labels,
+    String additionalLabel,
+    String value) {
+
+    output.append(name).append('{').append(labels);
+
+    if(additionalLabel != null) {
+      output.append(',').append(additionalLabel);
+    }
+
+    output.append("} ").append(value).append('\n');
+  }
+
+  private String labelsOf(String[] labels, String status) {
+    StringBuilder rendered = new StringBuilder();
+
+    for(int index = 0; index + 1 < labels.length; index += 2) {
+      String value = TENANT_LABEL.equals(labels[index])
+        ? tenantLabel(labels[index + 1])
+        : labels[index + 1];
+
+      appendLabel(rendered, labels[index], value);
+    }
+
+    appendLabel(rendered, "status", status);
+
+    return rendered.toString();
+  }
+
+  private String tenantLabel(String tenant) {
+    if(tenant == null || tenants.contains(tenant)) {
+      return tenant;
+    }
+
+    //Checked and added together, so that the limit is never exceeded
+    synchronized (tenants) {
+      if(tenants.contains(tenant) || tenants.size() < maximumTenants) {
+        tenants.add(tenant);
+        return tenant;
+      }
+    }
+
+    return OTHER_TENANTS;
+  }
+
+  private static void appendLabel(
+    StringBuilder rendered,
+    String name,
+    String value) {
+
+    if(rendered.length() > 0) {
+      rendered.append(',');
+    }
+
+    rendered.append(name).append("=\"")
+      .append(escape(value == null ? "" : value))
+      .append('"');
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\")
+      .replace("\"", "\\\"")
+      .replace("\n", "\\n");
+  }
+}
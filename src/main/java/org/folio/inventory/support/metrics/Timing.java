@@ -0,0 +1,38 @@
+package org.folio.inventory.support.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Something being timed, which is recorded once, when it first finishes
+ */
+public class Timing {
+  private final Metrics metrics;
+  private final String metric;
+  private final String[] labels;
+  private final long startedAt;
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+
+  Timing(Metrics metrics, String metric, String[] labels, long startedAt) {
+    this.metrics = metrics;
+    this.metric = metric;
+    this.labels = labels;
+    this.startedAt = startedAt;
+  }
+
+  public void finished(int statusCode) {
+    finished(Integer.toString(statusCode));
+  }
+
+  /**
+   * Finished without a status code (e.g. the connection failed)
+   */
+  public void failed() {
+    finished(Metrics.FAILED_STATUS);
+  }
+
+  private void finished(String status) {
+    if(finished.compareAndSet(false, true)) {
+      metrics.record(metric, labels, status, System.nanoTime() - startedAt);
+    }
+  }
+}
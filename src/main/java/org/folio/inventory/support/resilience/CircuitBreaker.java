@@ -0,0 +1,80 @@
+package org.folio.inventory.support.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Fails fast once a dependency (e.g. a storage module) has failed many
+ * times in a row, rather than waiting on (and adding to the load of)
+ * something which is not responding.
+ *
+ * Once open for long enough, a single trial request is allowed through,
+ * which closes the circuit when it succeeds and opens it again otherwise.
+ */
+public class CircuitBreaker {
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final int failureThreshold;
+  private final long openMilliseconds;
+  private final LongSupplier clock;
+
+  private final AtomicReference<State> state =
+    new AtomicReference<>(State.CLOSED);
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong openedAt = new AtomicLong();
+
+  public CircuitBreaker(int failureThreshold, long openMilliseconds) {
+    this(failureThreshold, openMilliseconds, System::currentTimeMillis);
+  }
+
+  CircuitBreaker(
+    int failureThreshold,
+    long openMilliseconds,
+    LongSupplier clock) {
+
+    this.failureThreshold = failureThreshold;
+    this.openMilliseconds = openMilliseconds;
+    this.clock = clock;
+  }
+
+  /**
+   * @return whether a request can be made, when the circuit has been open
+   * for long enough, only for the first caller (the trial)
+   */
+  public boolean allowRequest() {
+    switch(state.get()) {
+      case CLOSED:
+        return true;
+
+      case OPEN:
+        return clock.getAsLong() - openedAt.get() >= openMilliseconds
+          && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+
+      default:
+        //A trial request is already in flight
+        return false;
+    }
+  }
+
+  public void succeeded() {
+    consecutiveFailures.set(0);
+    state.set(State.CLOSED);
+  }
+
+  public void failed() {
+    if(state.get() == State.HALF_OPEN
+      || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+
+      consecutiveFailures.set(0);
+      openedAt.set(clock.getAsLong());
+      state.set(State.OPEN);
+    }
+  }
+
+  public State state() {
+    return state.get();
+  }
+}
@@ -0,0 +1,29 @@
+package org.folio.inventory.support.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter, so that clients which failed at the
+ * same time do not all retry at the same time
+ */
+public class JitteredBackoff {
+  private final long baseMilliseconds;
+  private final long maximumMilliseconds;
+
+  public JitteredBackoff(long baseMilliseconds, long maximumMilliseconds) {
+    this.baseMilliseconds = baseMilliseconds;
+    this.maximumMilliseconds = maximumMilliseconds;
+  }
+
+  /**
+   * @param retry how many retries there have been, including this one
+   * @return a random delay between zero and the base doubled for each
+   * earlier retry (no more than the maximum)
+   */
+  public long delayBefore(int retry) {
+    long ceiling = Math.min(maximumMilliseconds,
+      baseMilliseconds << Math.min(Math.max(retry - 1, 0), 20));
+
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+}
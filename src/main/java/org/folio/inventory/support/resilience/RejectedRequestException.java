@@ -0,0 +1,12 @@
+package org.folio.inventory.support.resilience;
+
+/**
+ * A request which was not made (or not made again), because the circuit
+ * for the dependency is open, too many requests are waiting or its deadline
+ * has passed
+ */
+public class RejectedRequestException extends RuntimeException {
+  public RejectedRequestException(String message) {
+    super(message);
+  }
+}
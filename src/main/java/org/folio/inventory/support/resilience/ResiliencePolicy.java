@@ -0,0 +1,138 @@
+package org.folio.inventory.support.resilience;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How requests to other modules (e.g. storage) are limited: how long each
+ * operation can take (including any retries), how many requests each tenant
+ * can have in flight (and waiting), when to stop making requests to a host
+ * that keeps failing and how often to retry idempotent requests
+ */
+public class ResiliencePolicy {
+  public static final long DEFAULT_DEADLINE_MILLISECONDS = 10000;
+  public static final int DEFAULT_TENANT_MAX_IN_FLIGHT = 100;
+  public static final int DEFAULT_TENANT_MAX_WAITING = 1000;
+  public static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 20;
+  public static final long DEFAULT_CIRCUIT_OPEN_MILLISECONDS = 5000;
+  public static final int DEFAULT_RETRY_MAX_ATTEMPTS = 3;
+  public static final long DEFAULT_RETRY_BASE_DELAY_MILLISECONDS = 50;
+  public static final long DEFAULT_RETRY_MAX_DELAY_MILLISECONDS = 1000;
+
+  private static final String DEADLINE_PREFIX = "http.client.deadline.";
+  private static final String MILLISECONDS_SUFFIX = ".milliseconds";
+
+  private final long deadlineMilliseconds;
+  private final Map<String, Long> operationDeadlines;
+  private final int tenantMaxInFlight;
+  private final int tenantMaxWaiting;
+  private final int circuitFailureThreshold;
+  private final long circuitOpenMilliseconds;
+  private final int retryMaxAttempts;
+  private final JitteredBackoff backoff;
+
+  public ResiliencePolicy(
+    long deadlineMilliseconds,
+    Map<String, Long> operationDeadlines,
+    int tenantMaxInFlight,
+    int tenantMaxWaiting,
+    int circuitFailureThreshold,
+    long circuitOpenMilliseconds,
+    int retryMaxAttempts,
+    long retryBaseDelayMilliseconds,
+    long retryMaxDelayMilliseconds) {
+
+    this.deadlineMilliseconds = deadlineMilliseconds;
+    this.operationDeadlines = new HashMap<>(operationDeadlines);
+    this.tenantMaxInFlight = tenantMaxInFlight;
+    this.tenantMaxWaiting = tenantMaxWaiting;
+    this.circuitFailureThreshold = circuitFailureThreshold;
+    this.circuitOpenMilliseconds = circuitOpenMilliseconds;
+    this.retryMaxAttempts = Math.max(1, retryMaxAttempts);
+    this.backoff = new JitteredBackoff(retryBaseDelayMilliseconds,
+      retryMaxDelayMilliseconds);
+  }
+
+  public static ResiliencePolicy defaults() {
+    return fromConfig(new HashMap<>());
+  }
+
+  /**
+   * A deadline for a single operation can be given using
+   * http.client.deadline.[operation].milliseconds (e.g. findByCql)
+   */
+  public static ResiliencePolicy fromConfig(Map<String, Object> config) {
+    Map<String, Long> operationDeadlines = new HashMap<>();
+
+    config.forEach((key, value) -> {
+      if(value != null && key.startsWith(DEADLINE_PREFIX)
+        && key.endsWith(MILLISECONDS_SUFFIX)
+        && key.length() > DEADLINE_PREFIX.length()
+          + MILLISECONDS_SUFFIX.length()) {
+
+        operationDeadlines.put(key.substring(DEADLINE_PREFIX.length(),
+          key.length() - MILLISECONDS_SUFFIX.length()),
+          Long.parseLong(value.toString()));
+      }
+    });
+
+    return new ResiliencePolicy(
+      longConfig(config, "http.client.deadline.milliseconds",
+        DEFAULT_DEADLINE_MILLISECONDS),
+      operationDeadlines,
+      (int)longConfig(config, "http.client.tenant.max.in.flight",
+        DEFAULT_TENANT_MAX_IN_FLIGHT),
+      (int)longConfig(config, "http.client.tenant.max.waiting",
+        DEFAULT_TENANT_MAX_WAITING),
+      (int)longConfig(config, "http.client.circuit.failure.threshold",
+        DEFAULT_CIRCUIT_FAILURE_THRESHOLD),
+      longConfig(config, "http.client.circuit.open.milliseconds",
+        DEFAULT_CIRCUIT_OPEN_MILLISECONDS),
+      (int)longConfig(config, "http.client.retry.max.attempts",
+        DEFAULT_RETRY_MAX_ATTEMPTS),
+      longConfig(config, "http.client.retry.base.delay.milliseconds",
+        DEFAULT_RETRY_BASE_DELAY_MILLISECONDS),
+      longConfig(config, "http.client.retry.max.delay.milliseconds",
+        DEFAULT_RETRY_MAX_DELAY_MILLISECONDS));
+  }
+
+  public long deadlineFor(String operation) {
+    Long deadline = operation == null ? null
+      : operationDeadlines.get(operation);
+
+    return deadline == null ? deadlineMilliseconds : deadline;
+  }
+
+  public int getTenantMaxInFlight() {
+    return tenantMaxInFlight;
+  }
+
+  public int getTenantMaxWaiting() {
+    return tenantMaxWaiting;
+  }
+
+  public int getRetryMaxAttempts() {
+    return retryMaxAttempts;
+  }
+
+  public JitteredBackoff getBackoff() {
+    return backoff;
+  }
+
+  public CircuitBreaker createCircuitBreaker() {
+    return new CircuitBreaker(circuitFailureThreshold,
+      circuitOpenMilliseconds);
+  }
+
+  private static long longConfig(
+    Map<String, Object> config,
+    String key,
+    long defaultValue) {
+
+    Object value = config.get(key);
+
+    return value == null
+      ? defaultValue
+      : Long.parseLong(value.toString());
+  }
+}
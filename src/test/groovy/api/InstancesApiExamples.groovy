@@ -282,6 +282,36 @@ class InstancesApiExamples extends Specification {
       hasCollectionProperties(instances)
   }
 
+  void "Can export all instances as newline delimited JSON"() {
+    given:
+      def ids = [UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()]
+        .collect { it.toString() }
+
+      createInstance(smallAngryPlanet(UUID.fromString(ids[0])))
+      createInstance(nod(UUID.fromString(ids[1])))
+      createInstance(temeraire(UUID.fromString(ids[2])))
+
+    when:
+      def exportCompleted = new CompletableFuture<Response>()
+
+      okapiClient.get(ApiRoot.exportInstances(),
+        ResponseHandler.any(exportCompleted))
+
+      Response exportResponse = exportCompleted.get(5, TimeUnit.SECONDS)
+
+    then:
+      assert exportResponse.statusCode == 200
+      assert exportResponse.contentType.startsWith("application/x-ndjson")
+
+      def instances = exportResponse.body.readLines()
+        .findAll { !it.trim().isEmpty() }
+        .collect { new JsonObject(it) }
+
+      assert instances.collect { it.getString("id") } == ids.sort()
+
+      hasCollectionProperties(instances)
+  }
+
   void "Can page all instances"() {
     given:
       createInstance(smallAngryPlanet(UUID.randomUUID()))
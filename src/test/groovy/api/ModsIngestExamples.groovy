@@ -82,6 +82,15 @@ class ModsIngestExamples extends Specification {
 
     assert getResponse.statusCode == 200
     assert getResponse.json.getString("status") == "Completed"
+
+    def progress = getResponse.json.getJsonObject("progress")
+
+    assert progress.getInteger("recordsParsed") == 8
+    assert progress.getInteger("instancesCreated") == 8
+    assert progress.getInteger("itemsCreated") == 8
+    assert progress.getInteger("recordsFailed") == 0
+    assert progress.containsKey("startedAt")
+    assert progress.containsKey("completedAt")
   }
 
   private expectedItemsCreatedFromIngest() {
@@ -22,4 +22,12 @@ class ApiRoot {
   static URL items(String query) {
     new URL("${inventory()}/items?${query}")
   }
+
+  static URL exportInstances() {
+    new URL("${inventory()}/export/instances")
+  }
+
+  static URL exportItems() {
+    new URL("${inventory()}/export/items")
+  }
 }
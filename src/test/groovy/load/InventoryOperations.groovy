@@ -0,0 +1,229 @@
+package load
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpClient
+import io.vertx.core.http.HttpMethod
+import io.vertx.core.json.JsonArray
+import io.vertx.core.json.JsonObject
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Requests made to the inventory module during a load test, each of which
+ * calls back once the whole response has been received (or it has failed)
+ */
+class InventoryOperations {
+  static final List<String> OPERATIONS = ["createItem", "getItem",
+    "updateItem", "searchItems", "createInstance", "getInstance",
+    "searchInstances", "ingestMods"].asImmutable()
+
+  private static final int REQUEST_TIMEOUT_MILLISECONDS = 30000
+  private static final String BOUNDARY = "load-test-boundary"
+
+  private final HttpClient client
+  private final String apiRoot
+  private final String okapiUrl
+  private final String tenantId
+  private final String token
+  private final String materialTypeId
+  private final String loanTypeId
+  private final Buffer modsUpload
+
+  private final KnownIds items = new KnownIds(10000)
+  private final KnownIds instances = new KnownIds(10000)
+
+  InventoryOperations(
+    HttpClient client,
+    String apiRoot,
+    String okapiUrl,
+    String tenantId,
+    String token,
+    String materialTypeId,
+    String loanTypeId,
+    byte[] modsFile) {
+
+    this.client = client
+    this.apiRoot = apiRoot
+    this.okapiUrl = okapiUrl
+    this.tenantId = tenantId
+    this.token = token
+    this.materialTypeId = materialTypeId
+    this.loanTypeId = loanTypeId
+    this.modsUpload = multipart(modsFile)
+  }
+
+  void perform(String operation, Runnable succeeded, Runnable failed) {
+    switch(operation) {
+      case "createItem":
+        createItem(succeeded, failed)
+        break
+
+      case "getItem":
+        withExisting(items, { createItem(succeeded, failed) }) { id ->
+          request(HttpMethod.GET, "/inventory/items/${id}", null, null, 200,
+            succeeded, failed)
+        }
+        break
+
+      case "updateItem":
+        withExisting(items, { createItem(succeeded, failed) }) { id ->
+          request(HttpMethod.PUT, "/inventory/items/${id}",
+            json(item(id)), "application/json", 204, succeeded, failed)
+        }
+        break
+
+      case "searchItems":
+        request(HttpMethod.GET,
+          "/inventory/items?limit=10&query=${encode('title="Load test"')}",
+          null, null, 200, succeeded, failed)
+        break
+
+      case "createInstance":
+        createInstance(succeeded, failed)
+        break
+
+      case "getInstance":
+        withExisting(instances, { createInstance(succeeded, failed) }) { id ->
+          request(HttpMethod.GET, "/inventory/instances/${id}", null, null,
+            200, succeeded, failed)
+        }
+        break
+
+      case "searchInstances":
+        request(HttpMethod.GET,
+          "/inventory/instances?limit=10&query=${encode('title="Load test"')}",
+          null, null, 200, succeeded, failed)
+        break
+
+      case "ingestMods":
+        request(HttpMethod.POST, "/inventory/ingest/mods", modsUpload,
+          "multipart/form-data; boundary=${BOUNDARY}", 202, succeeded, failed)
+        break
+
+      default:
+        throw new IllegalArgumentException("Unknown operation: ${operation}")
+    }
+  }
+
+  private void createItem(Runnable succeeded, Runnable failed) {
+    def id = UUID.randomUUID().toString()
+
+    request(HttpMethod.POST, "/inventory/items", json(item(id)),
+      "application/json", 201, {
+      items.add(id)
+      succeeded.run()
+    }, failed)
+  }
+
+  private void createInstance(Runnable succeeded, Runnable failed) {
+    def id = UUID.randomUUID().toString()
+
+    def instance = new JsonObject()
+      .put("id", id)
+      .put("title", "Load test instance ${id}".toString())
+      .put("identifiers", new JsonArray())
+
+    request(HttpMethod.POST, "/inventory/instances", json(instance),
+      "application/json", 201, {
+      instances.add(id)
+      succeeded.run()
+    }, failed)
+  }
+
+  private JsonObject item(String id) {
+    def item = new JsonObject()
+      .put("id", id)
+      .put("title", "Load test item ${id}".toString())
+      .put("barcode", UUID.randomUUID().toString())
+      .put("status", new JsonObject().put("name", "Available"))
+      .put("materialType", new JsonObject().put("id", materialTypeId))
+      .put("permanentLoanType", new JsonObject().put("id", loanTypeId))
+      .put("location", new JsonObject().put("name", "Main Library"))
+
+    def instanceId = instances.random()
+
+    if(instanceId != null) {
+      item.put("instanceId", instanceId)
+    }
+
+    item
+  }
+
+  private static void withExisting(
+    KnownIds ids,
+    Closure whenNoneExist,
+    Closure action) {
+
+    def id = ids.random()
+
+    if(id == null) {
+      whenNoneExist()
+    }
+    else {
+      action(id)
+    }
+  }
+
+  private void request(
+    HttpMethod method,
+    String path,
+    Buffer body,
+    String contentType,
+    int expectedStatusCode,
+    Runnable succeeded,
+    Runnable failed) {
+
+    //A request can both time out and get a response,
+    //only the first outcome is counted
+    def completed = new AtomicBoolean(false)
+
+    def complete = { Runnable outcome ->
+      if(completed.compareAndSet(false, true)) {
+        outcome.run()
+      }
+    }
+
+    def request = client.requestAbs(method, apiRoot + path, { response ->
+      response.exceptionHandler({ complete(failed) })
+
+      response.bodyHandler({
+        complete(response.statusCode() == expectedStatusCode
+          ? succeeded
+          : failed)
+      })
+    })
+
+    request.setTimeout(REQUEST_TIMEOUT_MILLISECONDS)
+    request.exceptionHandler({ complete(failed) })
+
+    request.putHeader("X-Okapi-Url", okapiUrl)
+    request.putHeader("X-Okapi-Tenant", tenantId)
+    request.putHeader("X-Okapi-Token", token)
+    request.putHeader("Accept", "application/json, text/plain")
+
+    if(body != null) {
+      request.putHeader("Content-Type", contentType)
+      request.end(body)
+    }
+    else {
+      request.end()
+    }
+  }
+
+  private static Buffer json(JsonObject representation) {
+    Buffer.buffer(representation.encode())
+  }
+
+  private static String encode(String value) {
+    URLEncoder.encode(value, "UTF-8")
+  }
+
+  private static Buffer multipart(byte[] file) {
+    Buffer.buffer()
+      .appendString("--${BOUNDARY}\r\n")
+      .appendString("Content-Disposition: form-data; name=\"record\"; filename=\"mods.xml\"\r\n")
+      .appendString("Content-Type: application/xml\r\n\r\n")
+      .appendBytes(file)
+      .appendString("\r\n--${BOUNDARY}--\r\n")
+  }
+}
@@ -0,0 +1,33 @@
+package load
+
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * The most recently created records, for operations which need an
+ * existing record to work on
+ */
+class KnownIds {
+  private final AtomicReferenceArray<String> ids
+  private final AtomicLong added = new AtomicLong()
+
+  KnownIds(int capacity) {
+    ids = new AtomicReferenceArray<>(capacity)
+  }
+
+  void add(String id) {
+    ids.set((int)(added.getAndIncrement() % ids.length()), id)
+  }
+
+  /**
+   * @return null when no records have been created yet
+   */
+  String random() {
+    def available = Math.min(added.get(), (long)ids.length())
+
+    available == 0
+      ? null
+      : ids.get(ThreadLocalRandom.current().nextInt((int)available))
+  }
+}
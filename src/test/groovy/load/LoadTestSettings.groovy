@@ -0,0 +1,60 @@
+package load
+
+/**
+ * Settings for a load test run, taken from system properties
+ * (see the loadTest task in the build)
+ */
+class LoadTestSettings {
+  static final String DEFAULT_MIX =
+    "createItem=10,getItem=30,updateItem=10,searchItems=15," +
+      "createInstance=5,getInstance=15,searchInstances=10,ingestMods=1"
+
+  final int concurrency
+  final int instances
+  final int durationSeconds
+  final int warmupSeconds
+  final String mix
+  final long storageLatencyMilliseconds
+  final long storageJitterMilliseconds
+  final double storageErrorRate
+  final String resultsFile
+
+  LoadTestSettings(Properties properties) {
+    concurrency = integer(properties, "load.concurrency", 20)
+    instances = integer(properties, "load.instances",
+      Runtime.runtime.availableProcessors())
+    durationSeconds = integer(properties, "load.duration", 60)
+    warmupSeconds = integer(properties, "load.warmup", 10)
+    mix = properties.getProperty("load.mix") ?: DEFAULT_MIX
+    storageLatencyMilliseconds = integer(properties, "load.storage.latency", 0)
+    storageJitterMilliseconds = integer(properties, "load.storage.jitter", 0)
+    storageErrorRate = Double.parseDouble(
+      properties.getProperty("load.storage.error.rate") ?: "0")
+    resultsFile = properties.getProperty("load.results") ?:
+      "build/reports/load/results.json"
+  }
+
+  Map<String, Object> fakeStorageConfig() {
+    ["storage.latency.milliseconds": storageLatencyMilliseconds,
+     "storage.jitter.milliseconds" : storageJitterMilliseconds,
+     "storage.error.rate"          : storageErrorRate]
+  }
+
+  String toString() {
+    "concurrency: ${concurrency}, instances: ${instances}, duration: ${durationSeconds}s, " +
+      "warmup: ${warmupSeconds}s, mix: ${mix}, " +
+      "storage latency: ${storageLatencyMilliseconds}ms " +
+      "(+ up to ${storageJitterMilliseconds}ms), " +
+      "storage error rate: ${storageErrorRate}"
+  }
+
+  private static int integer(
+    Properties properties,
+    String name,
+    int defaultValue) {
+
+    def value = properties.getProperty(name)
+
+    value ? Integer.parseInt(value) : defaultValue
+  }
+}
@@ -0,0 +1,55 @@
+package load
+
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Weighted choice of operations, parsed from e.g. "getItem=3,createItem=1"
+ */
+class OperationMix {
+  final List<String> operations
+  private final int[] cumulativeWeights
+  private final int totalWeight
+
+  OperationMix(String mix, Collection<String> knownOperations) {
+    def names = []
+    def weights = []
+    def total = 0
+
+    mix.split(",").collect { it.trim() }.findAll { it }.each { entry ->
+      def parts = entry.split("=")
+      def name = parts[0].trim()
+      def weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1
+
+      if(!knownOperations.contains(name)) {
+        throw new IllegalArgumentException(
+          "Unknown operation: ${name}, expected one of ${knownOperations}")
+      }
+
+      if(weight > 0) {
+        total += weight
+        names.add(name)
+        weights.add(total)
+      }
+    }
+
+    if(total == 0) {
+      throw new IllegalArgumentException("No operations in mix: ${mix}")
+    }
+
+    operations = names.asImmutable()
+    cumulativeWeights = weights as int[]
+    totalWeight = total
+  }
+
+  String next() {
+    def chosen = ThreadLocalRandom.current().nextInt(totalWeight)
+
+    for(int index = 0; index < cumulativeWeights.length; index++) {
+      if(chosen < cumulativeWeights[index]) {
+        return operations[index]
+      }
+    }
+
+    operations.last()
+  }
+}
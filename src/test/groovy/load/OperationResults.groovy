@@ -0,0 +1,76 @@
+package load
+
+import io.vertx.core.json.JsonObject
+import org.folio.inventory.support.metrics.LatencyHistogram
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Latency (in microseconds) of successful operations and the number that
+ * failed, for each kind of operation
+ */
+class OperationResults {
+  private final ConcurrentMap<String, LatencyHistogram> latencies =
+    new ConcurrentHashMap<>()
+
+  private final ConcurrentMap<String, LongAdder> failures =
+    new ConcurrentHashMap<>()
+
+  private final LatencyHistogram allLatencies = new LatencyHistogram()
+  private final LongAdder allFailures = new LongAdder()
+
+  void succeeded(String operation, long elapsedMicroseconds) {
+    latencies.computeIfAbsent(operation, { new LatencyHistogram() })
+      .record(elapsedMicroseconds)
+
+    allLatencies.record(elapsedMicroseconds)
+  }
+
+  void failed(String operation) {
+    failures.computeIfAbsent(operation, { new LongAdder() }).increment()
+
+    allFailures.increment()
+  }
+
+  JsonObject summarise(Collection<String> operations, double elapsedSeconds) {
+    def summary = new JsonObject()
+
+    operations.each { operation ->
+      summary.put(operation, describe(
+        latencies.getOrDefault(operation, new LatencyHistogram()),
+        failures.getOrDefault(operation, new LongAdder()).sum(),
+        elapsedSeconds))
+    }
+
+    summary.put("all", describe(allLatencies, allFailures.sum(), elapsedSeconds))
+  }
+
+  private static JsonObject describe(
+    LatencyHistogram histogram,
+    long failed,
+    double elapsedSeconds) {
+
+    def succeeded = histogram.count
+
+    new JsonObject()
+      .put("succeeded", succeeded)
+      .put("failed", failed)
+      .put("throughput", round((succeeded + failed) / elapsedSeconds))
+      .put("p50", milliseconds(histogram, 0.5d))
+      .put("p99", milliseconds(histogram, 0.99d))
+      .put("p999", milliseconds(histogram, 0.999d))
+      .put("mean", succeeded == 0 ? 0.0d
+        : round(histogram.sum / succeeded / 1000.0d))
+  }
+
+  private static double milliseconds(LatencyHistogram histogram, double quantile) {
+    histogram.count == 0 ? 0.0d
+      : round(histogram.valueAtQuantile(quantile) / 1000.0d)
+  }
+
+  private static double round(double value) {
+    Math.round(value * 100.0d) / 100.0d
+  }
+}
@@ -0,0 +1,138 @@
+package org.folio.inventory.common.cql
+
+import org.junit.Test
+
+class CqlFilterExamples {
+  private final records = [
+    [id: "1", title: "Long Way to a Small Angry Planet", barcode: "036000291452"],
+    [id: "2", title: "Nod", barcode: "565578437802"],
+    [id: "3", title: "Uprooted", barcode: "657670342075"],
+    [id: "4", title: "Small Gods", barcode: null]
+  ]
+
+  private final filter = new CqlFilter<Map>()
+
+  @Test
+  void exactMatch() {
+    assert matching("barcode==565578437802") == ["2"]
+    assert matching("title==\"Small Gods\"") == ["4"]
+    assert matching("title==small") == []
+  }
+
+  @Test
+  void notEqual() {
+    assert matching("id<>1") == ["2", "3", "4"]
+    assert matching("barcode<>036000291452") == ["2", "3", "4"]
+  }
+
+  @Test
+  void allWordsMatchIgnoringCase() {
+    assert matching("title=small") == ["1", "4"]
+    assert matching("title=\"angry small\"") == ["1"]
+    assert matching("title=sma") == []
+  }
+
+  @Test
+  void wildcardsMatchTheWholeValue() {
+    assert matching("title=\"*Small Angry*\"") == ["1"]
+    assert matching("title=Up*") == ["3"]
+    assert matching("title=N?d") == ["2"]
+  }
+
+  @Test
+  void escapedWildcardsAreLiteral() {
+    assert matching("title==\"N?d\"") == ["2"]
+    assert matching("title==\"N\\?d\"") == []
+  }
+
+  @Test
+  void booleansAreEvaluatedLeftToRight() {
+    assert matching("barcode=036000291452 and id<>2") == ["1"]
+    assert matching("title=nod or title=uprooted") == ["2", "3"]
+    assert matching("title=small not title=gods") == ["1"]
+    assert matching("title=nod or title=uprooted and id==3") == ["3"]
+    assert matching("title=nod or (title=uprooted and id==3)") == ["2", "3"]
+  }
+
+  @Test
+  void relationCanBeAppliedToAGroupOfTerms() {
+    assert matching("id==(1 or 3)") == ["1", "3"]
+  }
+
+  @Test
+  void allRecordsCanBeMatched() {
+    assert matching("cql.allRecords=1") == ["1", "2", "3", "4"]
+  }
+
+  @Test
+  void identicalQueriesAreOnlyCompiledOnce() {
+    assert filter.compile("title=nod").is(filter.compile("title=nod"))
+  }
+
+  @Test
+  void equalityRequiredByEveryMatchCanBeUsedToNarrowTheSearch() {
+    def equality = filter.compile("barcode==123 and id<>1")
+      .requiredEqualityOn(["barcode"])
+
+    assert equality.first == "barcode"
+    assert equality.second == "123"
+
+    assert filter.compile("barcode==123 or id<>1")
+      .requiredEqualityOn(["barcode"]) == null
+  }
+
+  @Test
+  void orderingRelationsCompareAsStrings() {
+    assert matching("id>2") == ["3", "4"]
+    assert matching("id>=2") == ["2", "3", "4"]
+    assert matching("id<\"2\"") == ["1"]
+    assert matching("id<=2") == ["1", "2"]
+    assert matching("barcode>6") == ["3"]
+  }
+
+  @Test
+  void recordsCanBeSortedByIndexes() {
+    assert sorted("cql.allRecords=1 sortBy title") == ["1", "2", "4", "3"]
+    assert sorted("cql.allRecords=1 sortBy title/sort.descending") == ["3", "4", "2", "1"]
+    assert sorted("id<>2 sortBy barcode id") == ["1", "3", "4"]
+  }
+
+  @Test
+  void queryWithoutSortKeysHasNoComparator() {
+    assert filter.compile("title=nod").comparator == null
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void unknownRelationIsRefused() {
+    filter.compile("barcode adj 123")
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void unsupportedSortModifierIsRefused() {
+    filter.compile("title=nod sortBy title/sort.ignoreCase")
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void termWithoutRelationIsRefused() {
+    filter.compile("barcode")
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void unbalancedParenthesesAreRefused() {
+    filter.compile("(title=nod or title=uprooted")
+  }
+
+  private List<String> sorted(String query) {
+    def compiled = filter.compile(query)
+
+    records.findAll { compiled.predicate.test(it) }
+      .sort(false, compiled.comparator)
+      .collect { it.id }
+  }
+
+  private List<String> matching(String query) {
+    def predicate = filter.compile(query).predicate
+
+    records.findAll { predicate.test(it) }.collect { it.id }
+  }
+}
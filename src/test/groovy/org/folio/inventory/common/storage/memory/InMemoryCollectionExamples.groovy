@@ -0,0 +1,93 @@
+package org.folio.inventory.common.storage.memory
+
+import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.Success
+import org.junit.Test
+
+class InMemoryCollectionExamples {
+
+  private final collection = new InMemoryCollection<Map>([
+    "id"     : { Map record -> record.id },
+    "barcode": { Map record -> record.barcode }
+  ], ["barcode"])
+
+  @Test
+  void recordsCanBeFoundById() {
+    collection.add([id: "1", barcode: "123"], { })
+    collection.add([id: "2", barcode: "456"], { })
+
+    assert findById("2").barcode == "456"
+    assert findById("3") == null
+  }
+
+  @Test
+  void recordsAreFoundByIndexedProperty() {
+    collection.add([id: "1", barcode: "123"], { })
+    collection.add([id: "2", barcode: "456"], { })
+    collection.add([id: "3", barcode: "123"], { })
+
+    assert collection.findByIndex("barcode", "123").collect { it.id } == ["1", "3"]
+    assert collection.findByIndex("barcode", "789").isEmpty()
+  }
+
+  @Test
+  void indexesAreMaintainedWhenRecordsChange() {
+    collection.add([id: "1", barcode: "123"], { })
+    collection.add([id: "2", barcode: "456"], { })
+
+    collection.replace([id: "1", barcode: "789"], { })
+    collection.remove("2", { })
+
+    assert collection.findByIndex("barcode", "123").isEmpty()
+    assert collection.findByIndex("barcode", "456").isEmpty()
+    assert collection.findByIndex("barcode", "789").collect { it.id } == ["1"]
+  }
+
+  @Test
+  void equalityQueriesUseIndexedProperties() {
+    collection.add([id: "1", barcode: "123"], { })
+    collection.add([id: "2", barcode: "1234"], { })
+
+    Map found = null
+
+    collection.find("barcode==\"123\"", new PagingParameters(10, 0), "records",
+      { Success<Map> success -> found = success.result })
+
+    assert found.totalRecords == 1
+    assert found.records.collect { it.id } == ["1"]
+  }
+
+  @Test
+  void indexedEqualityCanBeCombinedWithOtherConditions() {
+    collection.add([id: "1", barcode: "123"], { })
+    collection.add([id: "2", barcode: "123"], { })
+
+    Map found = null
+
+    collection.find("barcode==123 and id<>1", new PagingParameters(10, 0),
+      "records", { Success<Map> success -> found = success.result })
+
+    assert found.records.collect { it.id } == ["2"]
+  }
+
+  @Test
+  void recordsArePagedInTheOrderTheyWereAdded() {
+    (1..5).each { collection.add([id: "${it}".toString()], { }) }
+
+    Map page = null
+
+    collection.some(new PagingParameters(2, 2), "records",
+      { Success<Map> success -> page = success.result })
+
+    assert page.totalRecords == 5
+    assert page.records.collect { it.id } == ["3", "4"]
+  }
+
+  private Map findById(String id) {
+    Map found = null
+
+    collection.findById(id, { Success<Map> success -> found = success.result })
+
+    found
+  }
+}
@@ -0,0 +1,84 @@
+package org.folio.inventory.domain.ingest
+
+import io.vertx.core.buffer.Buffer
+import org.junit.Test
+
+class IngestBatchCodecExamples {
+  private final IngestBatchCodec codec = new IngestBatchCodec()
+
+  @Test
+  void batchIsPassedByReferenceLocally() {
+    def batch = exampleBatch()
+
+    assert codec.transform(batch).is(batch)
+  }
+
+  @Test
+  void batchCannotBeChanged() {
+    def batch = exampleBatch()
+
+    assertUnsupported { batch.records.add(batch.records[0]) }
+    assertUnsupported { batch.materialTypes.put("Book", "other") }
+    assertUnsupported { batch.records[0].identifiers[0].put("value", "other") }
+  }
+
+  @Test
+  void batchIsTheSameOnceSentOverTheWire() {
+    def batch = exampleBatch()
+
+    def buffer = Buffer.buffer()
+
+    codec.encodeToWire(buffer, batch)
+
+    assertSameBatch(codec.decodeFromWire(0, buffer), batch)
+  }
+
+  @Test
+  void batchCanBeDecodedFromAfterOtherContent() {
+    def batch = exampleBatch()
+
+    def buffer = Buffer.buffer().appendInt(12345).appendByte((byte)7)
+
+    codec.encodeToWire(buffer, batch)
+
+    assert buffer.getInt(5) == buffer.length() - 9
+
+    assertSameBatch(codec.decodeFromWire(5, buffer), batch)
+  }
+
+  private static IngestBatch exampleBatch() {
+    new IngestBatch([
+      new IngestRecord("99d5a7a9-2d84-4d9d-a8c8-bf1e4dd8a0e7",
+        "Long Way to a Small Angry Planet", "6543256",
+        [["namespace": "isbn", "value": "9781473619777"]]),
+      new IngestRecord("e0f4d6e6-81f8-4fdc-9e6a-83d1b8ee5c59",
+        "Nod den Ära º", null, [])
+    ],
+    ["Book": "bc0ddb9e-4c7d-4b4a-8b87-a4ea62a1bd8a"],
+    ["Can Circulate": "d2c6eb0b-4e5b-4b2c-b1f5-47d6cb8a0c41"])
+  }
+
+  private static void assertSameBatch(IngestBatch decoded, IngestBatch batch) {
+    assert decoded.materialTypes == batch.materialTypes
+    assert decoded.loanTypes == batch.loanTypes
+    assert decoded.records.size() == batch.records.size()
+
+    decoded.records.eachWithIndex { IngestRecord record, int index ->
+      def expected = batch.records[index]
+
+      assert record.instanceId == expected.instanceId
+      assert record.title == expected.title
+      assert record.barcode == expected.barcode
+      assert record.identifiers == expected.identifiers
+    }
+  }
+
+  private static void assertUnsupported(Closure change) {
+    try {
+      change()
+      assert false : "Should not be able to change the batch"
+    }
+    catch(UnsupportedOperationException e) {
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package org.folio.inventory.domain.ingest
+
+import org.junit.Test
+
+class IngestProgressExamples {
+  private final IngestProgress progress = new IngestProgress()
+
+  @Test
+  void batchIsOnlySettledOnce() {
+    assert progress.settle("1")
+    assert !progress.settle("1")
+  }
+
+  @Test
+  void batchesAreSettledSeparately() {
+    assert progress.settle("1")
+    assert progress.settle("2")
+  }
+}
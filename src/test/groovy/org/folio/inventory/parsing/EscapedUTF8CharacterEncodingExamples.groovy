@@ -0,0 +1,55 @@
+package org.folio.inventory.parsing
+
+import org.junit.Test
+
+class EscapedUTF8CharacterEncodingExamples {
+
+  private final encoding = new EscapedUTF8CharacterEncoding()
+
+  @Test
+  void inputWithoutEscapesIsReturnedAsItIs() {
+    def input = "California: its gold and its inhabitants"
+
+    assert encoding.decode(input).is(input)
+  }
+
+  @Test
+  void anyEscapedSequenceIsDecoded() {
+    assert encoding.decode('Dell\\xE2\\x80\\x99Emulazione') == 'Dell’Emulazione'
+    assert encoding.decode('compar\\xC3\\xA9e') == 'comparée'
+    assert encoding.decode('etc. 1833. 12\\xC2\\xBA.') == 'etc. 1833. 12º.'
+    assert encoding.decode('(8\\xE2\\x81\\xB0)') == '(8⁰)'
+    assert encoding.decode('\\xF0\\x9F\\x93\\x9A books') == '📚 books'
+  }
+
+  @Test
+  void hexadecimalDigitsCanBeLowerCase() {
+    assert encoding.decode('compar\\xc3\\xa9e') == 'comparée'
+  }
+
+  @Test
+  void combiningMarksAreComposedWithPrecedingCharacter() {
+    assert encoding.decode('Nikitovic\\xCC\\x81') == 'Nikitovi\u0107'
+    assert encoding.decode('Boz\\xCC\\x8Covic\\xCC\\x81') == 'Bo\u017Eovi\u0107'
+  }
+
+  @Test
+  void combiningMarksWithNoComposedFormAreKept() {
+    assert encoding.decode('q\\xCC\\x81') == 'q\u0301'
+  }
+
+  @Test
+  void invalidSequencesAreLeftEscaped() {
+    assert encoding.decode('truncated \\xE2\\x80') == 'truncated \\xE2\\x80'
+    assert encoding.decode('overlong \\xC0\\xAF') == 'overlong \\xC0\\xAF'
+    assert encoding.decode('not hex \\xZZ') == 'not hex \\xZZ'
+    assert encoding.decode('lone continuation \\x99 then \\xC3\\xA9') ==
+      'lone continuation \\x99 then é'
+  }
+
+  @Test
+  void escapeAtEndOfInputIsLeftAsItIs() {
+    assert encoding.decode('ends with \\x') == 'ends with \\x'
+    assert encoding.decode('ends with \\xC') == 'ends with \\xC'
+  }
+}
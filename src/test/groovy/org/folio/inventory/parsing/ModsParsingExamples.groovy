@@ -102,6 +102,25 @@ class ModsParsingExamples {
     assert hasIdentifier(grammar, "UkMaC", "69250051")
   }
 
+  @Test
+  void streamedRecordsAreTheSameAsThoseParsedFromAString() {
+
+    def modsXml = this.getClass()
+      .getResourceAsStream('/mods/multiple-example-mods-records.xml')
+      .getText("UTF-8")
+
+    def parser = new ModsParser(new UTF8LiteralCharacterEncoding())
+
+    def streamedRecords = []
+
+    parser.parseRecords(
+      this.getClass().getResourceAsStream('/mods/multiple-example-mods-records.xml'),
+      { streamedRecords.add(it) })
+
+    assert streamedRecords.size() == 8
+    assert streamedRecords == parser.parseRecords(modsXml)
+  }
+
   private void NoTitlesContainEscapedCharacters(records) {
 
     assert !records.any {
@@ -2,6 +2,7 @@ package org.folio.inventory.storage
 
 import org.folio.inventory.common.WaitForAllFutures
 import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.domain.CollectionProvider
 import org.folio.inventory.domain.Instance
@@ -127,6 +128,32 @@ abstract class InstanceCollectionExamples {
     assert added.id == instanceId
   }
 
+  @Test
+  void manyInstancesCanBeAddedInABatch() {
+    def collection = collectionProvider.getInstanceCollection(firstTenantId, firstTenantToken)
+
+    def addFinished = new CompletableFuture<List<BatchResult<Instance>>>()
+
+    collection.addAll([smallAngryPlanet(), nod(), uprooted()],
+      succeed(addFinished), fail(addFinished))
+
+    def results = getOnCompletion(addFinished)
+
+    assert results.size() == 3
+    assert results.every { it.succeeded() }
+    assert results.every { it.record.id != null }
+
+    assert results.collect { it.record.title } ==
+      ["Long Way to a Small Angry Planet", "Nod", "Uprooted"]
+
+    def findFuture = new CompletableFuture<Map>()
+
+    collection.findAll(PagingParameters.defaults(), succeed(findFuture),
+      fail(findFuture))
+
+    assert getOnCompletion(findFuture).totalRecords == 3
+  }
+
   @Test
   void anInstanceCanBeFoundById() {
     def collection = collectionProvider.getInstanceCollection(firstTenantId, firstTenantToken)
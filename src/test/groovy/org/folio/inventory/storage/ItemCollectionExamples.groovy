@@ -2,6 +2,7 @@ package org.folio.inventory.storage
 
 import org.folio.inventory.common.WaitForAllFutures
 import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.common.domain.BatchResult
 import org.folio.inventory.common.domain.Success
 import org.folio.inventory.domain.CollectionProvider
 import org.folio.inventory.domain.Item
@@ -66,6 +67,32 @@ abstract class ItemCollectionExamples {
     assert wrappedItems.totalRecords == 0
   }
 
+  @Test
+  void manyItemsCanBeAddedInABatch() {
+    def collection = collectionProvider.getItemCollection(firstTenantId, firstTenantToken)
+
+    def addFinished = new CompletableFuture<List<BatchResult<Item>>>()
+
+    collection.addAll([smallAngryPlanet, nod, uprooted],
+      succeed(addFinished), fail(addFinished))
+
+    def results = getOnCompletion(addFinished)
+
+    assert results.size() == 3
+    assert results.every { it.succeeded() }
+    assert results.every { it.record.id != null }
+
+    assert results.collect { it.record.barcode } ==
+      ["036000291452", "565578437802", "657670342075"]
+
+    def findFuture = new CompletableFuture<Map>()
+
+    collection.findAll(PagingParameters.defaults(), succeed(findFuture),
+      fail(findFuture))
+
+    assert getOnCompletion(findFuture).totalRecords == 3
+  }
+
   @Test
   void anItemCanBeAdded() {
     def collection = collectionProvider.getItemCollection(firstTenantId, firstTenantToken)
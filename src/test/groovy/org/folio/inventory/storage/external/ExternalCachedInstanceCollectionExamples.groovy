@@ -0,0 +1,15 @@
+package org.folio.inventory.storage.external
+
+import org.folio.inventory.storage.InstanceCollectionExamples
+import org.folio.inventory.support.cache.StorageRecordCache
+
+class ExternalCachedInstanceCollectionExamples extends InstanceCollectionExamples {
+
+  ExternalCachedInstanceCollectionExamples() {
+    super(new ExternalStorageCollections(ExternalStorageSuite.client,
+      ExternalStorageSuite.instanceStorageAddress,
+      ExternalStorageCollections.inMemoryIngestJobCollections(),
+      CoalescedReads.global(),
+      new StorageRecordCache(100, 60000)))
+  }
+}
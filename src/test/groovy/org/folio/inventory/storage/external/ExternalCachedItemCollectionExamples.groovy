@@ -0,0 +1,15 @@
+package org.folio.inventory.storage.external
+
+import org.folio.inventory.storage.ItemCollectionExamples
+import org.folio.inventory.support.cache.StorageRecordCache
+
+class ExternalCachedItemCollectionExamples extends ItemCollectionExamples {
+
+  ExternalCachedItemCollectionExamples() {
+    super(new ExternalStorageCollections(ExternalStorageSuite.client,
+      ExternalStorageSuite.itemStorageAddress,
+      ExternalStorageCollections.inMemoryIngestJobCollections(),
+      CoalescedReads.global(),
+      new StorageRecordCache(100, 60000)))
+  }
+}
@@ -5,9 +5,7 @@ import org.folio.inventory.storage.InstanceCollectionExamples
 class ExternalInstanceCollectionExamples extends InstanceCollectionExamples {
 
   ExternalInstanceCollectionExamples() {
-    super(ExternalStorageSuite.useVertx {
-      new ExternalStorageCollections(it,
-        ExternalStorageSuite.instanceStorageAddress)
-    })
+    super(new ExternalStorageCollections(ExternalStorageSuite.client,
+      ExternalStorageSuite.instanceStorageAddress))
   }
 }
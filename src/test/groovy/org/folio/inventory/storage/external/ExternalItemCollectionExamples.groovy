@@ -5,9 +5,7 @@ import org.folio.inventory.storage.ItemCollectionExamples
 class ExternalItemCollectionExamples extends ItemCollectionExamples {
 
   ExternalItemCollectionExamples() {
-    super(ExternalStorageSuite.useVertx {
-      new ExternalStorageCollections(it,
-          ExternalStorageSuite.itemStorageAddress)
-    })
+    super(new ExternalStorageCollections(ExternalStorageSuite.client,
+      ExternalStorageSuite.itemStorageAddress))
   }
 }
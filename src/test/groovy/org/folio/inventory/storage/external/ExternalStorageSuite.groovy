@@ -2,6 +2,7 @@ package org.folio.inventory.storage.external
 
 import org.folio.inventory.common.VertxAssistant
 import org.folio.inventory.storage.external.support.FakeInventoryStorageModule
+import org.folio.inventory.support.http.client.PooledHttpClient
 import org.junit.AfterClass
 import org.junit.BeforeClass
 import org.junit.runner.RunWith
@@ -14,17 +15,27 @@ import java.util.concurrent.TimeUnit
 
 @Suite.SuiteClasses([
   ExternalItemCollectionExamples.class,
-  ExternalInstanceCollectionExamples.class
+  ExternalInstanceCollectionExamples.class,
+  ExternalCachedItemCollectionExamples.class,
+  ExternalCachedInstanceCollectionExamples.class
 ])
 
 public class ExternalStorageSuite {
   private static final VertxAssistant vertxAssistant = new VertxAssistant();
   private static String storageModuleDeploymentId
+  private static PooledHttpClient client
 
   public static useVertx(Closure action) {
     vertxAssistant.useVertx(action)
   }
 
+  /**
+   * Shared by the examples, closed once they have all run
+   */
+  static PooledHttpClient getClient() {
+    client
+  }
+
   static String getItemStorageAddress() {
     if(!useFakeStorageModule()) {
       System.getProperty("inventory.storage.address")
@@ -51,6 +62,8 @@ public class ExternalStorageSuite {
   static void beforeAll() {
     vertxAssistant.start()
 
+    client = vertxAssistant.useVertx { new PooledHttpClient(it) }
+
     if(useFakeStorageModule()) {
       println("Starting Fake Storage Module")
 
@@ -80,6 +93,8 @@ public class ExternalStorageSuite {
       undeployed.get(20000, TimeUnit.MILLISECONDS)
     }
 
+    client.close()
+
     vertxAssistant.stop()
   }
 }
@@ -10,9 +10,9 @@ class ExternalInstanceCollectionBadRequestExamples
   extends ExternalInstanceCollectionFailureExamples {
 
   ExternalInstanceCollectionBadRequestExamples() {
-    super(ExternalStorageFailureSuite.useVertx(
-      { new ExternalStorageCollections(it,
-        ExternalStorageFailureSuite.badRequestStorageAddress)}))
+    super(new ExternalStorageCollections(
+      ExternalStorageFailureSuite.client,
+      ExternalStorageFailureSuite.badRequestStorageAddress))
   }
 
   @Override
@@ -10,9 +10,9 @@ class ExternalInstanceCollectionServerErrorExamples
   extends ExternalInstanceCollectionFailureExamples {
 
   ExternalInstanceCollectionServerErrorExamples() {
-    super(ExternalStorageFailureSuite.useVertx(
-      { new ExternalStorageCollections(it,
-        ExternalStorageFailureSuite.serverErrorStorageAddress)}))
+    super(new ExternalStorageCollections(
+      ExternalStorageFailureSuite.client,
+      ExternalStorageFailureSuite.serverErrorStorageAddress))
   }
 
   @Override
@@ -10,9 +10,9 @@ class ExternalItemCollectionBadRequestExamples
   extends ExternalItemCollectionFailureExamples {
 
   ExternalItemCollectionBadRequestExamples() {
-    super(ExternalStorageFailureSuite.useVertx(
-      { new ExternalStorageCollections(it,
-        ExternalStorageFailureSuite.badRequestStorageAddress)}))
+    super(new ExternalStorageCollections(
+      ExternalStorageFailureSuite.client,
+      ExternalStorageFailureSuite.badRequestStorageAddress))
   }
 
   @Override
@@ -10,9 +10,9 @@ class ExternalItemCollectionServerErrorExamples
   extends ExternalItemCollectionFailureExamples {
 
   def ExternalItemCollectionServerErrorExamples() {
-    super(ExternalStorageFailureSuite.useVertx(
-      { new ExternalStorageCollections(it,
-        ExternalStorageFailureSuite.serverErrorStorageAddress)}))
+    super(new ExternalStorageCollections(
+      ExternalStorageFailureSuite.client,
+      ExternalStorageFailureSuite.serverErrorStorageAddress))
   }
 
   @Override
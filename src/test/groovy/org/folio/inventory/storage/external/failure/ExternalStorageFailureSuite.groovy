@@ -2,6 +2,7 @@ package org.folio.inventory.storage.external.failure
 
 import org.folio.inventory.common.VertxAssistant
 import org.folio.inventory.storage.external.support.FailureInventoryStorageModule
+import org.folio.inventory.support.http.client.PooledHttpClient
 import org.junit.AfterClass
 import org.junit.BeforeClass
 import org.junit.runner.RunWith
@@ -22,11 +23,19 @@ import java.util.concurrent.TimeUnit
 public class ExternalStorageFailureSuite {
   private static final VertxAssistant vertxAssistant = new VertxAssistant();
   private static String storageModuleDeploymentId
+  private static PooledHttpClient client
 
   public static useVertx(Closure action) {
     vertxAssistant.useVertx(action)
   }
 
+  /**
+   * Shared by the examples, closed once they have all run
+   */
+  static PooledHttpClient getClient() {
+    client
+  }
+
   static String getServerErrorStorageAddress() {
       FailureInventoryStorageModule.serverErrorAddress
   }
@@ -39,6 +48,8 @@ public class ExternalStorageFailureSuite {
   static void beforeAll() {
     vertxAssistant.start()
 
+    client = vertxAssistant.useVertx { new PooledHttpClient(it) }
+
     println("Starting Failing Storage Module")
 
     def deployed = new CompletableFuture()
@@ -59,6 +70,8 @@ public class ExternalStorageFailureSuite {
 
     undeployed.get(20000, TimeUnit.MILLISECONDS)
 
+    client.close()
+
     vertxAssistant.stop()
   }
 }
@@ -0,0 +1,173 @@
+package org.folio.inventory.storage.file
+
+import org.folio.inventory.common.api.request.PagingParameters
+import org.folio.inventory.resources.ingest.IngestJob
+import org.folio.inventory.resources.ingest.IngestJobState
+import org.junit.Test
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+
+import static org.folio.inventory.common.FutureAssistance.*
+
+class FileIngestJobCollectionExamples {
+
+  private final Path logFile = Files.createTempDirectory("ingest-jobs")
+    .resolve("test_tenant.ingest-jobs.log")
+
+  @Test
+  void jobsCanBeFoundByIdAfterUpdate() {
+    def collection = new FileIngestJobCollection(logFile)
+
+    def added = addJob(collection)
+
+    update(collection, added.complete())
+
+    def found = findById(collection, added.id)
+
+    assert found.id == added.id
+    assert found.state == IngestJobState.COMPLETED
+  }
+
+  @Test
+  void jobsAreKeptWhenLogIsReopened() {
+    def collection = new FileIngestJobCollection(logFile)
+
+    def completed = addJob(collection)
+    update(collection, completed.complete())
+
+    def requested = addJob(collection)
+
+    def reopened = new FileIngestJobCollection(logFile)
+
+    assert findById(reopened, completed.id).state == IngestJobState.COMPLETED
+    assert findById(reopened, requested.id).state == IngestJobState.REQUESTED
+
+    assert findAll(reopened).collect { it.id } == [completed.id, requested.id]
+  }
+
+  @Test
+  void deletedJobsAreNotFoundWhenLogIsReopened() {
+    def collection = new FileIngestJobCollection(logFile)
+
+    def deleted = addJob(collection)
+    def kept = addJob(collection)
+
+    def deleteFuture = new CompletableFuture()
+    collection.delete(deleted.id, succeed(deleteFuture), fail(deleteFuture))
+    waitForCompletion(deleteFuture)
+
+    def reopened = new FileIngestJobCollection(logFile)
+
+    assert findById(reopened, deleted.id) == null
+    assert findAll(reopened).collect { it.id } == [kept.id]
+  }
+
+  @Test
+  void compactionOnlyKeepsLatestVersionOfEachJob() {
+    def collection = new FileIngestJobCollection(logFile, 10)
+
+    def jobs = (1..5).collect { addJob(collection) }
+
+    (1..20).each {
+      jobs.each { job -> update(collection, job) }
+    }
+
+    jobs.each { update(collection, it.complete()) }
+
+    collection.compact()
+
+    def reopened = new FileIngestJobCollection(logFile)
+
+    assert findAll(reopened).collect { it.id } == jobs.collect { it.id }
+    assert findAll(reopened).every { it.state == IngestJobState.COMPLETED }
+  }
+
+  @Test
+  void logGrowsBeyondInitialCapacity() {
+    def collection = new FileIngestJobCollection(logFile)
+
+    def jobs = (1..2000).collect { addJob(collection) }
+
+    def reopened = new FileIngestJobCollection(logFile)
+
+    assert findAll(reopened, 0, 3000).size() == 2000
+    assert findById(reopened, jobs.last().id) != null
+  }
+
+  @Test
+  void emptiedLogHasNoJobs() {
+    def collection = new FileIngestJobCollection(logFile)
+
+    addJob(collection)
+
+    def emptied = new CompletableFuture()
+    collection.empty(succeed(emptied), fail(emptied))
+    waitForCompletion(emptied)
+
+    assert findAll(collection).isEmpty()
+    assert findAll(new FileIngestJobCollection(logFile)).isEmpty()
+  }
+
+  @Test
+  void eachTenantHasOwnJobs() {
+    def collections = new FileIngestJobCollections(logFile.parent)
+
+    def added = addJob(collections.apply("tenant_one"))
+
+    assert findById(collections.apply("tenant_one"), added.id) != null
+    assert findById(collections.apply("tenant_two"), added.id) == null
+  }
+
+  @Test
+  void directoryIsSharedByWholeProcess() {
+    def directory = logFile.parent
+
+    def collections = FileIngestJobCollections.forDirectory(directory.toString())
+
+    assert collections.is(FileIngestJobCollections.forDirectory(
+      directory.resolve("..").resolve(directory.fileName).toString()))
+
+    assert !collections.is(FileIngestJobCollections.forDirectory(
+      directory.resolveSibling("other-jobs").toString()))
+  }
+
+  private static IngestJob addJob(collection) {
+    def addFuture = new CompletableFuture<IngestJob>()
+
+    collection.add(new IngestJob(IngestJobState.REQUESTED),
+      succeed(addFuture), fail(addFuture))
+
+    getOnCompletion(addFuture)
+  }
+
+  private static void update(collection, IngestJob job) {
+    def updateFuture = new CompletableFuture()
+
+    collection.update(job, succeed(updateFuture), fail(updateFuture))
+
+    waitForCompletion(updateFuture)
+  }
+
+  private static IngestJob findById(collection, String id) {
+    def findFuture = new CompletableFuture<IngestJob>()
+
+    collection.findById(id, succeed(findFuture), fail(findFuture))
+
+    getOnCompletion(findFuture)
+  }
+
+  private static List<IngestJob> findAll(
+    collection,
+    int offset = 0,
+    int limit = 10) {
+
+    def findFuture = new CompletableFuture<Map>()
+
+    collection.findAll(new PagingParameters(limit, offset), succeed(findFuture),
+      fail(findFuture))
+
+    getOnCompletion(findFuture).jobs
+  }
+}
@@ -122,4 +122,15 @@ class InMemoryIngestJobCollectionExamples {
 
     assert allJobs.count({ it.id == added.id }) == 1
   }
+
+  @Test
+  void requestsWithoutTenantShareCollection() {
+    def collections = new InMemoryCollections()
+
+    assert collections.getIngestJobCollection(null, null)
+      .is(collections.getIngestJobCollection(null, null))
+
+    assert collections.getItemCollection(null, null) != null
+    assert collections.getInstanceCollection(null, null) != null
+  }
 }
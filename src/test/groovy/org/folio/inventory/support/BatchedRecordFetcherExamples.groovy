@@ -0,0 +1,64 @@
+package org.folio.inventory.support
+
+import org.folio.inventory.CollectionResourceClient
+import org.folio.inventory.support.http.client.Response
+import org.junit.Test
+
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.function.Consumer
+
+class BatchedRecordFetcherExamples {
+
+  @Test
+  void idsAreCombinedIntoASingleQuery() {
+    def query = BatchedRecordFetcher.idQuery(["1", "2", "3"])
+
+    assert query == "id==(1 or 2 or 3)"
+  }
+
+  @Test
+  void idsAreSplitWhenTheQueryWouldBeTooLong() {
+    def ids = (1..100).collect { UUID.randomUUID().toString() }
+
+    def chunks = BatchedRecordFetcher.partition(ids, 400)
+
+    assert chunks.size() == 10
+    assert chunks.every { it.size() == 10 }
+    assert chunks.flatten() == ids
+  }
+
+  @Test
+  void idLongerThanMaximumIsStillFetched() {
+    def chunks = BatchedRecordFetcher.partition(["a-very-long-id"], 5)
+
+    assert chunks == [["a-very-long-id"]]
+  }
+
+  @Test
+  void fetchFailsWhenNoResponseIsReceived() {
+    def client = new CollectionResourceClient(null,
+      new URL("http://localhost:9130/material-types")) {
+      @Override
+      void getMany(
+        String query,
+        Consumer<Response> responseHandler,
+        Consumer<Throwable> failureHandler) {
+
+        failureHandler.accept(new TimeoutException("Request timed out"))
+      }
+    }
+
+    def fetched = new BatchedRecordFetcher(client, "mtypes")
+      .fetchByIds(["1", "2"])
+
+    try {
+      fetched.get(1, TimeUnit.SECONDS)
+      assert false : "Should have failed"
+    }
+    catch(ExecutionException e) {
+      assert e.cause instanceof TimeoutException
+    }
+  }
+}
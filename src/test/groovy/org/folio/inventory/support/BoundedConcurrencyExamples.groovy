@@ -0,0 +1,89 @@
+package org.folio.inventory.support
+
+import org.junit.Test
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+
+import static org.folio.inventory.common.FutureAssistance.getOnCompletion
+
+class BoundedConcurrencyExamples {
+
+  @Test
+  void operationsBeyondTheLimitWaitForEarlierOnesToComplete() {
+    def concurrency = new BoundedConcurrency(2)
+
+    def operations = (1..5).collect { new CompletableFuture<Integer>() }
+
+    def results = operations.collect { operation ->
+      concurrency.submit({ operation })
+    }
+
+    assert concurrency.inFlight() == 2
+    assert concurrency.waiting() == 3
+
+    operations[0].complete(1)
+
+    assert concurrency.inFlight() == 2
+    assert concurrency.waiting() == 2
+
+    operations.eachWithIndex { operation, index -> operation.complete(index + 1) }
+
+    assert results.collect { getOnCompletion(it) } == [1, 2, 3, 4, 5]
+    assert concurrency.inFlight() == 0
+    assert concurrency.waiting() == 0
+  }
+
+  @Test
+  void operationsAreRefusedWhenTooManyAreWaiting() {
+    def concurrency = new BoundedConcurrency(1, 2)
+
+    def operation = new CompletableFuture<Integer>()
+
+    def results = (1..4).collect { concurrency.submit({ operation }) }
+
+    assert concurrency.inFlight() == 1
+    assert concurrency.waiting() == 2
+
+    try {
+      results[3].get()
+      assert false : "Should have been refused"
+    }
+    catch(ExecutionException e) {
+      assert e.cause instanceof RejectedExecutionException
+    }
+
+    operation.complete(1)
+
+    assert results.take(3).collect { getOnCompletion(it) } == [1, 1, 1]
+    assert getOnCompletion(concurrency.submit({ operation })) == 1
+  }
+
+  @Test
+  void failedOperationsDoNotStopLaterOnesFromStarting() {
+    def concurrency = new BoundedConcurrency(1)
+
+    def failed = new CompletableFuture<String>()
+
+    def first = concurrency.submit({ failed })
+    def second = concurrency.submit({
+      CompletableFuture.completedFuture("second") })
+
+    failed.completeExceptionally(new Exception("Storage unavailable"))
+
+    assert first.isCompletedExceptionally()
+    assert getOnCompletion(second) == "second"
+  }
+
+  @Test
+  void manySynchronouslyCompletingOperationsCanBeSubmitted() {
+    def concurrency = new BoundedConcurrency(1)
+
+    def results = (1..100000).collect { index ->
+      concurrency.submit({ CompletableFuture.completedFuture(index) })
+    }
+
+    assert results.every { it.isDone() }
+  }
+}
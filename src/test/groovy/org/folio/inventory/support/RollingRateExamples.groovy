@@ -0,0 +1,52 @@
+package org.folio.inventory.support
+
+import org.junit.Test
+
+import java.util.function.LongSupplier
+
+class RollingRateExamples {
+  private long now = 1500000000000
+
+  private final RollingRate rate = new RollingRate(10,
+    { now } as LongSupplier)
+
+  @Test
+  void noEventsIsNoRate() {
+    assert rate.perSecond() == 0
+  }
+
+  @Test
+  void rateIsSinceFirstEventWhenWithinWindow() {
+    rate.record(10)
+
+    now += 1000
+    rate.record(20)
+
+    now += 1000
+
+    assert rate.perSecond() == 10
+  }
+
+  @Test
+  void eventsOutsideOfWindowAreNotCounted() {
+    rate.record(1000)
+
+    now += 10000
+    rate.record(50)
+
+    now += 4000
+    rate.record(50)
+
+    assert rate.perSecond() == 10
+  }
+
+  @Test
+  void slotForEarlierSecondIsReset() {
+    rate.record(1000)
+
+    now += 20000
+    rate.record(30)
+
+    assert rate.perSecond() == 3
+  }
+}
@@ -0,0 +1,110 @@
+package org.folio.inventory.support
+
+import org.junit.Test
+
+import java.util.concurrent.CompletableFuture
+
+import static org.folio.inventory.common.FutureAssistance.getOnCompletion
+
+class SingleFlightExamples {
+
+  @Test
+  void concurrentOperationsWithSameKeyShareOneInFlight() {
+    def singleFlight = new SingleFlight<String>()
+
+    def operation = new CompletableFuture<String>()
+    def started = 0
+
+    def results = (1..3).collect {
+      singleFlight.execute("diku /items/1234", {
+        started++
+        operation
+      })
+    }
+
+    assert started == 1
+    assert singleFlight.inFlight() == 1
+
+    operation.complete("item")
+
+    assert results.collect { getOnCompletion(it) } == ["item", "item", "item"]
+    assert singleFlight.started() == 1
+    assert singleFlight.coalesced() == 2
+    assert singleFlight.inFlight() == 0
+  }
+
+  @Test
+  void operationsWithDifferentKeysAreNotShared() {
+    def singleFlight = new SingleFlight<String>()
+
+    def first = singleFlight.execute("diku /items/1234",
+      { new CompletableFuture<String>() })
+
+    def second = singleFlight.execute("other /items/1234",
+      { CompletableFuture.completedFuture("other") })
+
+    assert !first.isDone()
+    assert getOnCompletion(second) == "other"
+    assert singleFlight.started() == 2
+  }
+
+  @Test
+  void resultIsNotKeptOnceCompleted() {
+    def singleFlight = new SingleFlight<String>()
+
+    def first = singleFlight.execute("diku /items/1234",
+      { CompletableFuture.completedFuture("first") })
+
+    def second = singleFlight.execute("diku /items/1234",
+      { CompletableFuture.completedFuture("second") })
+
+    assert getOnCompletion(first) == "first"
+    assert getOnCompletion(second) == "second"
+    assert singleFlight.coalesced() == 0
+  }
+
+  @Test
+  void failuresAreSharedAndNotKept() {
+    def singleFlight = new SingleFlight<String>()
+
+    def operation = new CompletableFuture<String>()
+
+    def first = singleFlight.execute("diku /items/1234", { operation })
+    def second = singleFlight.execute("diku /items/1234", { operation })
+
+    operation.completeExceptionally(new Exception("Storage unavailable"))
+
+    assert first.isCompletedExceptionally()
+    assert second.isCompletedExceptionally()
+
+    def retried = singleFlight.execute("diku /items/1234",
+      { throw new IllegalStateException("Could not start") })
+
+    assert retried.isCompletedExceptionally()
+    assert singleFlight.inFlight() == 0
+  }
+
+  @Test
+  void forgottenOperationsAreNotSharedWithLaterCallers() {
+    def singleFlight = new SingleFlight<String>()
+
+    def beforeWrite = new CompletableFuture<String>()
+    def otherTenant = new CompletableFuture<String>()
+
+    def first = singleFlight.execute("diku /items/1234", { beforeWrite })
+    singleFlight.execute("other /items/1234", { otherTenant })
+
+    singleFlight.forget("diku /items")
+
+    def second = singleFlight.execute("diku /items/1234",
+      { CompletableFuture.completedFuture("after write") })
+
+    beforeWrite.complete("before write")
+
+    assert getOnCompletion(first) == "before write"
+    assert getOnCompletion(second) == "after write"
+    assert singleFlight.started() == 3
+    assert singleFlight.coalesced() == 0
+    assert singleFlight.inFlight() == 1
+  }
+}
@@ -0,0 +1,98 @@
+package org.folio.inventory.support.cache
+
+import io.vertx.core.json.JsonObject
+import org.junit.Test
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.folio.inventory.common.FutureAssistance.getOnCompletion
+
+class ReferenceDataCacheExamples {
+
+  private final cache = new ReferenceDataCache(10, 60)
+
+  @Test
+  void concurrentRequestsShareASingleFetch() {
+    def fetches = new AtomicInteger()
+    def fetched = new CompletableFuture<JsonObject>()
+
+    def loader = {
+      fetches.incrementAndGet()
+      fetched
+    }
+
+    def first = cache.get("tenant", "material-types", "1", loader)
+    def second = cache.get("tenant", "material-types", "1", loader)
+
+    fetched.complete(new JsonObject().put("id", "1"))
+
+    assert getOnCompletion(first).getString("id") == "1"
+    assert getOnCompletion(second).getString("id") == "1"
+    assert fetches.get() == 1
+  }
+
+  @Test
+  void recordsAreNotSharedBetweenTenants() {
+    def fetches = new AtomicInteger()
+
+    def loader = {
+      fetches.incrementAndGet()
+      CompletableFuture.completedFuture(new JsonObject().put("id", "1"))
+    }
+
+    getOnCompletion(cache.get("first", "loan-types", "1", loader))
+    getOnCompletion(cache.get("second", "loan-types", "1", loader))
+
+    assert fetches.get() == 2
+  }
+
+  @Test
+  void missingRecordsAreFetchedAgain() {
+    def fetches = new AtomicInteger()
+
+    def loader = {
+      fetches.incrementAndGet()
+      CompletableFuture.completedFuture(null)
+    }
+
+    assert getOnCompletion(cache.get("tenant", "loan-types", "1", loader)) == null
+    assert getOnCompletion(cache.get("tenant", "loan-types", "1", loader)) == null
+
+    assert fetches.get() == 2
+  }
+
+  @Test
+  void recordsCanBeInvalidated() {
+    def fetches = new AtomicInteger()
+
+    def loader = {
+      fetches.incrementAndGet()
+      CompletableFuture.completedFuture(new JsonObject().put("id", "1"))
+    }
+
+    getOnCompletion(cache.get("tenant", "material-types", "1", loader))
+
+    cache.invalidate("tenant", "material-types")
+
+    getOnCompletion(cache.get("tenant", "material-types", "1", loader))
+
+    cache.invalidate("tenant")
+
+    getOnCompletion(cache.get("tenant", "material-types", "1", loader))
+
+    assert fetches.get() == 3
+  }
+
+  @Test
+  void sameConfigurationSharesCache() {
+    def config = ["reference.data.cache.maximum.size": 50,
+                  "reference.data.cache.ttl.seconds" : 30]
+
+    assert ReferenceDataCache.shared(config).is(
+      ReferenceDataCache.shared(new HashMap(config)))
+
+    assert !ReferenceDataCache.shared(config).is(
+      ReferenceDataCache.shared(["reference.data.cache.maximum.size": 51]))
+  }
+}
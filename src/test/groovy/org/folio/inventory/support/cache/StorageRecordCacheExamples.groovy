@@ -0,0 +1,100 @@
+package org.folio.inventory.support.cache
+
+import io.vertx.core.json.JsonObject
+import org.junit.Test
+
+class StorageRecordCacheExamples {
+
+  private final cache = new StorageRecordCache(10, 0)
+
+  @Test
+  void recordIsKeptWithEntityTag() {
+    cache.put("tenant", "items", "1", item("1"), '"abc"', cache.generation())
+
+    def entry = cache.get("tenant", "items", "1")
+
+    assert entry.record.getString("id") == "1"
+    assert entry.entityTag == '"abc"'
+    assert cache.get("other", "items", "1") == null
+  }
+
+  @Test
+  void recordsAreNotFreshWithoutAFreshPeriod() {
+    cache.put("tenant", "items", "1", item("1"), '"abc"', cache.generation())
+
+    assert !cache.isFresh(cache.get("tenant", "items", "1"))
+  }
+
+  @Test
+  void recordsAreFreshWithinFreshPeriod() {
+    def freshCache = new StorageRecordCache(10, 60000)
+
+    freshCache.put("tenant", "items", "1", item("1"), null,
+      freshCache.generation())
+
+    assert freshCache.isFresh(freshCache.get("tenant", "items", "1"))
+  }
+
+  @Test
+  void recordsAreFreshForAWhileByDefaultWhenEnabled() {
+    def enabled = StorageRecordCache.shared(
+      ["storage.record.cache.enabled": "true"])
+
+    enabled.put("tenant", "items", "1", item("1"), null, enabled.generation())
+
+    assert enabled.isFresh(enabled.get("tenant", "items", "1"))
+  }
+
+  @Test
+  void changedRecordsAreInvalidated() {
+    cache.put("tenant", "items", "1", item("1"), '"abc"', cache.generation())
+    cache.put("tenant", "items", "2", item("2"), '"def"', cache.generation())
+    cache.put("tenant", "instances", "3", item("3"), '"ghi"', cache.generation())
+
+    cache.invalidate("tenant", "items", "1")
+
+    assert cache.get("tenant", "items", "1") == null
+    assert cache.get("tenant", "items", "2") != null
+
+    cache.invalidate("tenant", "items")
+
+    assert cache.get("tenant", "items", "2") == null
+    assert cache.get("tenant", "instances", "3") != null
+  }
+
+  @Test
+  void recordFetchedDuringInvalidationIsNotCached() {
+    def generation = cache.generation()
+
+    cache.invalidate("tenant", "items", "1")
+
+    cache.put("tenant", "items", "1", item("1"), '"abc"', generation)
+
+    assert cache.get("tenant", "items", "1") == null
+  }
+
+  @Test
+  void disabledCacheKeepsNothing() {
+    def disabled = StorageRecordCache.shared([:])
+
+    assert !disabled.isEnabled()
+
+    disabled.put("tenant", "items", "1", item("1"), '"abc"',
+      disabled.generation())
+
+    assert disabled.get("tenant", "items", "1") == null
+  }
+
+  @Test
+  void sameConfigurationSharesCache() {
+    def config = ["storage.record.cache.enabled": "true",
+                  "storage.record.cache.maximum.size": 50]
+
+    assert StorageRecordCache.shared(config).is(
+      StorageRecordCache.shared(config))
+  }
+
+  private static JsonObject item(String id) {
+    new JsonObject().put("id", id)
+  }
+}
@@ -0,0 +1,105 @@
+package org.folio.inventory.support.diagnostics
+
+import io.vertx.core.json.JsonArray
+import io.vertx.core.json.JsonObject
+import org.junit.Test
+
+import java.util.function.Consumer
+
+class DiagnosticsExamples {
+  private final List<String> output = []
+
+  private final Diagnostics diagnostics = new Diagnostics(
+    { output.add(it) } as Consumer<String>)
+
+  @Test
+  void outputBelowLevelIsNotBuilt() {
+    diagnostics.setLevel(DiagnosticLevel.INFO)
+
+    diagnostics.debug({ throw new AssertionError("Should not be built") })
+
+    diagnostics.info("included")
+
+    assert output.size() == 1
+    assert output[0].contains("INFO")
+    assert output[0].endsWith("included")
+  }
+
+  @Test
+  void nothingIsOutputWhenOff() {
+    diagnostics.setLevel(DiagnosticLevel.OFF)
+
+    diagnostics.error("excluded")
+
+    assert output.isEmpty()
+  }
+
+  @Test
+  void requestsForTracedTenantAreOutputRegardlessOfLevel() {
+    diagnostics.setLevel(DiagnosticLevel.ERROR)
+    diagnostics.startTracing("traced")
+
+    diagnostics.request("traced", { "traced request" })
+    diagnostics.request("other", { "other request" })
+
+    assert output.size() == 1
+    assert output[0].endsWith("traced request")
+    assert diagnostics.includeDetail("traced")
+    assert !diagnostics.includeDetail("other")
+  }
+
+  @Test
+  void longestMatchingPathPrefixDecidesSampling() {
+    diagnostics.setDefaultSampleRate(1.0d)
+    diagnostics.setSampleRate("/inventory", 0.0d)
+    diagnostics.setSampleRate("/inventory/items", 1.0d)
+
+    assert diagnostics.sampled("tenant", "/inventory/items/1234")
+    assert !diagnostics.sampled("tenant", "/inventory/instances")
+    assert diagnostics.sampled("tenant", "/admin/storage-client")
+  }
+
+  @Test
+  void tracedTenantsAreAlwaysSampled() {
+    diagnostics.setDefaultSampleRate(0.0d)
+    diagnostics.startTracing("traced")
+
+    assert diagnostics.sampled("traced", "/inventory/items")
+    assert !diagnostics.sampled("other", "/inventory/items")
+  }
+
+  @Test
+  void canBeChangedFromRepresentation() {
+    diagnostics.setSampleRate("/inventory/items", 0.5d)
+
+    diagnostics.update(new JsonObject()
+      .put("level", "debug")
+      .put("pathSampleRates", new JsonObject()
+        .putNull("/inventory/items")
+        .put("/inventory/instances", 0.1d))
+      .put("tracedTenants", new JsonArray().add("diku")))
+
+    def representation = diagnostics.toJson()
+
+    assert representation.getString("level") == "DEBUG"
+    assert representation.getDouble("sampleRate") == 1.0d
+    assert representation.getJsonObject("pathSampleRates").map ==
+      ["/inventory/instances": 0.1d]
+    assert representation.getJsonArray("tracedTenants").list == ["diku"]
+  }
+
+  @Test
+  void configurationReplacesSettings() {
+    diagnostics.startTracing("previous")
+
+    diagnostics.configure([
+      "diagnostics.level"        : "trace",
+      "diagnostics.sample.rate"  : "0.25",
+      "diagnostics.trace.tenants": "diku, other"])
+
+    assert diagnostics.level == DiagnosticLevel.TRACE
+    assert diagnostics.isTracing("diku")
+    assert diagnostics.isTracing("other")
+    assert !diagnostics.isTracing("previous")
+  }
+}
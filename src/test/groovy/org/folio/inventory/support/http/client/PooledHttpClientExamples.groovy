@@ -0,0 +1,23 @@
+package org.folio.inventory.support.http.client
+
+import org.junit.Test
+
+class PooledHttpClientExamples {
+
+  @Test
+  void modulesBehindTheSameHostAreToldApartByTheirPath() {
+    assert PooledHttpClient.moduleOf(
+      "http://okapi:9130/item-storage/items/1234?lang=en") ==
+      "okapi:9130/item-storage"
+
+    assert PooledHttpClient.moduleOf(
+      "http://okapi:9130/instance-storage/instances") ==
+      "okapi:9130/instance-storage"
+  }
+
+  @Test
+  void hostIsUsedWhenThereIsNoPath() {
+    assert PooledHttpClient.moduleOf("http://okapi:9130") == "okapi:9130"
+    assert PooledHttpClient.moduleOf("http://okapi:9130/") == "okapi:9130"
+  }
+}
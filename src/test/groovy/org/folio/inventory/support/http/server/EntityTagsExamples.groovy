@@ -0,0 +1,56 @@
+package org.folio.inventory.support.http.server
+
+import io.vertx.core.buffer.Buffer
+import org.junit.Test
+
+class EntityTagsExamples {
+
+  @Test
+  void sameBodyHasSameTag() {
+    def first = EntityTags.of(Buffer.buffer('{"id":"1"}'))
+    def second = EntityTags.of(Buffer.buffer('{"id":"1"}'))
+
+    assert first == second
+  }
+
+  @Test
+  void tagsAreWeakAsTheyDoNotDependOnCompression() {
+    def tag = EntityTags.of(Buffer.buffer('{"id":"1"}'))
+
+    assert tag.startsWith('W/"') && tag.endsWith('"')
+  }
+
+  @Test
+  void differentBodiesHaveDifferentTags() {
+    assert EntityTags.of(Buffer.buffer('{"id":"1"}')) !=
+      EntityTags.of(Buffer.buffer('{"id":"2"}'))
+  }
+
+  @Test
+  void matchesAnyTagInList() {
+    assert EntityTags.matches('"abc", "def"', '"def"')
+    assert !EntityTags.matches('"abc", "def"', '"ghi"')
+  }
+
+  @Test
+  void weakTagsFromClientMatch() {
+    assert EntityTags.matches('W/"abc"', '"abc"')
+    assert EntityTags.matches('W/"abc"', 'W/"abc"')
+  }
+
+  @Test
+  void strongTagsFromClientMatchWeakTags() {
+    assert EntityTags.matches('"abc"', 'W/"abc"')
+    assert !EntityTags.matches('"abc"', 'W/"def"')
+  }
+
+  @Test
+  void wildcardMatchesAnyTag() {
+    assert EntityTags.matches('*', '"abc"')
+  }
+
+  @Test
+  void nothingMatchesWithoutCondition() {
+    assert !EntityTags.matches(null, '"abc"')
+  }
+}
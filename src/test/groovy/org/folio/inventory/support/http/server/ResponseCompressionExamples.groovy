@@ -0,0 +1,45 @@
+package org.folio.inventory.support.http.server
+
+import io.vertx.core.buffer.Buffer
+import org.junit.Test
+
+import java.util.zip.GZIPInputStream
+import java.util.zip.InflaterInputStream
+
+class ResponseCompressionExamples {
+
+  @Test
+  void gzipIsPreferredOverDeflate() {
+    assert ResponseCompression.accepted("deflate, gzip") == "gzip"
+    assert ResponseCompression.accepted("gzip;q=0.5, deflate") == "gzip"
+  }
+
+  @Test
+  void refusedCodingsAreNotUsed() {
+    assert ResponseCompression.accepted("gzip;q=0, deflate") == "deflate"
+    assert ResponseCompression.accepted("gzip;q=0") == null
+    assert ResponseCompression.accepted("identity") == null
+    assert ResponseCompression.accepted(null) == null
+  }
+
+  @Test
+  void anyCodingAllowsGzip() {
+    assert ResponseCompression.accepted("*") == "gzip"
+  }
+
+  @Test
+  void compressedBodiesCanBeDecompressed() {
+    def body = '{"id":"1"}' * 200
+
+    def gzipped = ResponseCompression.compress(Buffer.buffer(body), "gzip")
+    def deflated = ResponseCompression.compress(Buffer.buffer(body), "deflate")
+
+    assert gzipped.length() < body.length()
+
+    assert new GZIPInputStream(new ByteArrayInputStream(gzipped.getBytes()))
+      .getText("UTF-8") == body
+
+    assert new InflaterInputStream(new ByteArrayInputStream(deflated.getBytes()))
+      .getText("UTF-8") == body
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.inventory.support.metrics
+
+import org.junit.Test
+
+class LatencyHistogramExamples {
+  private final LatencyHistogram histogram = new LatencyHistogram()
+
+  @Test
+  void emptyHistogramHasNoValues() {
+    assert histogram.count == 0
+    assert histogram.valueAtQuantile(0.99d) == 0
+  }
+
+  @Test
+  void smallValuesAreExact() {
+    (1..10).each { histogram.record(it) }
+
+    assert histogram.valueAtQuantile(0.5d) == 5
+    assert histogram.valueAtQuantile(1.0d) == 10
+    assert histogram.countAtOrBelow(3) == 3
+  }
+
+  @Test
+  void quantilesAreWithinBucketPrecision() {
+    (1..100000).each { histogram.record(it) }
+
+    assertWithin(histogram.valueAtQuantile(0.5d), 50000)
+    assertWithin(histogram.valueAtQuantile(0.99d), 99000)
+    assertWithin(histogram.valueAtQuantile(0.999d), 99900)
+
+    assert histogram.count == 100000
+    assert histogram.sum == 5000050000L
+  }
+
+  @Test
+  void countsAtOrBelowIncludeShareOfBucketHoldingTheValue() {
+    (1..100000).each { histogram.record(it) }
+
+    assertWithin(histogram.countAtOrBelow(50000), 50000)
+    assertWithin(histogram.countAtOrBelow(99999), 99999)
+    assert histogram.countAtOrBelow(100000) <= 100000
+  }
+
+  @Test
+  void everyValueFallsWithinItsBucket() {
+    [0L, 15L, 16L, 17L, 31L, 32L, 1000L, 123456789L, Long.MAX_VALUE].each {
+      def index = LatencyHistogram.indexOf(it)
+
+      assert index < LatencyHistogram.BUCKETS
+
+      if(it < 1L << 41) {
+        assert LatencyHistogram.upperBoundOf(index) >= it
+        assert index == 0 || LatencyHistogram.upperBoundOf(index - 1) < it
+      }
+    }
+  }
+
+  @Test
+  void negativeValuesAreRecordedAsZero() {
+    histogram.record(-5)
+
+    assert histogram.countAtOrBelow(0) == 1
+  }
+
+  private static void assertWithin(long actual, long expected) {
+    assert Math.abs(actual - expected) <= expected / 16
+  }
+}
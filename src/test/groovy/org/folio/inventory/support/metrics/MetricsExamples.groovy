@@ -0,0 +1,109 @@
+package org.folio.inventory.support.metrics
+
+import org.junit.Test
+
+import java.util.concurrent.TimeUnit
+
+class MetricsExamples {
+  private final Metrics metrics = new Metrics()
+
+  @Test
+  void histogramsAreSeparatedByLabelsAndStatus() {
+    record(200, 2)
+    record(200, 3)
+    record(500, 2)
+
+    assert histogramFor("200").count == 2
+    assert histogramFor("500").count == 1
+  }
+
+  @Test
+  void timingIsOnlyRecordedOnce() {
+    def timing = metrics.start(Metrics.STORAGE_OPERATIONS,
+      "collection", "items", "operation", "add", "tenant", "diku")
+
+    timing.finished(201)
+    timing.failed()
+
+    assert metrics.histogramFor(Metrics.STORAGE_OPERATIONS,
+      ["collection", "items", "operation", "add", "tenant", "diku"] as String[],
+      "201").count == 1
+
+    assert metrics.histogramFor(Metrics.STORAGE_OPERATIONS,
+      ["collection", "items", "operation", "add", "tenant", "diku"] as String[],
+      Metrics.FAILED_STATUS).count == 0
+  }
+
+  @Test
+  void writtenInPrometheusTextFormat() {
+    record(200, 2)
+    record(200, 30)
+
+    def lines = metrics.toPrometheus().readLines()
+
+    def series = 'route="/inventory/items",tenant="diku",status="200"'
+
+    assert lines.contains(
+      "# TYPE ${Metrics.HTTP_REQUESTS} histogram".toString())
+
+    assert lines.contains(
+      "${Metrics.HTTP_REQUESTS}_bucket{${series},le=\"0.0025\"} 1".toString())
+
+    assert lines.contains(
+      "${Metrics.HTTP_REQUESTS}_bucket{${series},le=\"0.05\"} 2".toString())
+
+    assert lines.contains(
+      "${Metrics.HTTP_REQUESTS}_bucket{${series},le=\"+Inf\"} 2".toString())
+
+    assert lines.contains(
+      "${Metrics.HTTP_REQUESTS}_sum{${series}} 0.032".toString())
+
+    assert lines.contains(
+      "${Metrics.HTTP_REQUESTS}_count{${series}} 2".toString())
+  }
+
+  @Test
+  void labelValuesAreEscaped() {
+    metrics.record(Metrics.HTTP_REQUESTS,
+      ["route", "/a\"b\\c", "tenant", null] as String[], "200", 1000)
+
+    assert metrics.toPrometheus().contains(
+      'route="/a\\"b\\\\c",tenant="",status="200"')
+  }
+
+  @Test
+  void tenantsBeyondTheLimitAreCountedTogether() {
+    def limited = new Metrics(2)
+
+    ["diku", "other-library", "third", "fourth", "diku"].each {
+      limited.record(Metrics.HTTP_REQUESTS,
+        ["route", "/inventory/items", "tenant", it] as String[], "200", 1000)
+    }
+
+    def rendered = limited.toPrometheus()
+
+    assert limited.histogramFor(Metrics.HTTP_REQUESTS,
+      ["route", "/inventory/items", "tenant", "diku"] as String[], "200")
+      .count == 2
+
+    assert rendered.contains('tenant="other-library"')
+    assert rendered.contains('tenant="other"')
+    assert !rendered.contains('tenant="third"')
+    assert !rendered.contains('tenant="fourth"')
+
+    assert limited.histogramFor(Metrics.HTTP_REQUESTS,
+      ["route", "/inventory/items", "tenant", "fifth"] as String[], "200")
+      .count == 2
+  }
+
+  private void record(int status, long milliseconds) {
+    metrics.record(Metrics.HTTP_REQUESTS,
+      ["route", "/inventory/items", "tenant", "diku"] as String[],
+      Integer.toString(status), TimeUnit.MILLISECONDS.toNanos(milliseconds))
+  }
+
+  private LatencyHistogram histogramFor(String status) {
+    metrics.histogramFor(Metrics.HTTP_REQUESTS,
+      ["route", "/inventory/items", "tenant", "diku"] as String[], status)
+  }
+}
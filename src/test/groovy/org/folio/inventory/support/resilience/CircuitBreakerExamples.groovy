@@ -0,0 +1,85 @@
+package org.folio.inventory.support.resilience
+
+import org.junit.Test
+
+import java.util.function.LongSupplier
+
+class CircuitBreakerExamples {
+  private long now = 0
+
+  private final LongSupplier clock = { now } as LongSupplier
+
+  @Test
+  void opensAfterConsecutiveFailures() {
+    def breaker = new CircuitBreaker(3, 1000, clock)
+
+    2.times { breaker.failed() }
+
+    assert breaker.allowRequest()
+
+    breaker.failed()
+
+    assert breaker.state() == CircuitBreaker.State.OPEN
+    assert !breaker.allowRequest()
+  }
+
+  @Test
+  void successResetsConsecutiveFailures() {
+    def breaker = new CircuitBreaker(3, 1000, clock)
+
+    2.times { breaker.failed() }
+    breaker.succeeded()
+    2.times { breaker.failed() }
+
+    assert breaker.state() == CircuitBreaker.State.CLOSED
+  }
+
+  @Test
+  void allowsOnlyOneTrialOnceOpenForLongEnough() {
+    def breaker = new CircuitBreaker(1, 1000, clock)
+
+    breaker.failed()
+
+    now = 999
+
+    assert !breaker.allowRequest()
+
+    now = 1000
+
+    assert breaker.allowRequest()
+    assert breaker.state() == CircuitBreaker.State.HALF_OPEN
+    assert !breaker.allowRequest()
+  }
+
+  @Test
+  void successfulTrialClosesCircuit() {
+    def breaker = new CircuitBreaker(1, 1000, clock)
+
+    breaker.failed()
+    now = 1000
+    breaker.allowRequest()
+
+    breaker.succeeded()
+
+    assert breaker.state() == CircuitBreaker.State.CLOSED
+    assert breaker.allowRequest()
+  }
+
+  @Test
+  void failedTrialOpensCircuitAgain() {
+    def breaker = new CircuitBreaker(5, 1000, clock)
+
+    5.times { breaker.failed() }
+    now = 1000
+    breaker.allowRequest()
+
+    breaker.failed()
+
+    assert breaker.state() == CircuitBreaker.State.OPEN
+    assert !breaker.allowRequest()
+
+    now = 2000
+
+    assert breaker.allowRequest()
+  }
+}
@@ -0,0 +1,45 @@
+package org.folio.inventory.support.resilience
+
+import org.junit.Test
+
+class ResiliencePolicyExamples {
+
+  @Test
+  void operationsWithoutTheirOwnDeadlineUseTheDefault() {
+    def policy = ResiliencePolicy.fromConfig([
+      "http.client.deadline.milliseconds" : 2000,
+      "http.client.deadline.findByCql.milliseconds" : "30000"
+    ])
+
+    assert policy.deadlineFor("findByCql") == 30000
+    assert policy.deadlineFor("findById") == 2000
+    assert policy.deadlineFor(null) == 2000
+  }
+
+  @Test
+  void defaultsAreUsedWhenNotConfigured() {
+    def policy = ResiliencePolicy.defaults()
+
+    assert policy.deadlineFor("findById") ==
+      ResiliencePolicy.DEFAULT_DEADLINE_MILLISECONDS
+    assert policy.tenantMaxInFlight ==
+      ResiliencePolicy.DEFAULT_TENANT_MAX_IN_FLIGHT
+    assert policy.retryMaxAttempts ==
+      ResiliencePolicy.DEFAULT_RETRY_MAX_ATTEMPTS
+  }
+
+  @Test
+  void backoffIsJitteredWithinAnExponentialCeiling() {
+    def backoff = new JitteredBackoff(50, 300)
+
+    def first = (1..1000).collect { backoff.delayBefore(1) }
+    def third = (1..1000).collect { backoff.delayBefore(3) }
+    def tenth = (1..1000).collect { backoff.delayBefore(10) }
+
+    assert first.every { it >= 0 && it <= 50 }
+    assert third.every { it >= 0 && it <= 200 }
+    assert tenth.every { it >= 0 && it <= 300 }
+
+    assert third.unique().size() > 1
+  }
+}
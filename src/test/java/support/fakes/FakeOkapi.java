@@ -15,6 +15,7 @@ public class FakeOkapi extends AbstractVerticle {
     String.format("http://localhost:%s", PORT_TO_USE);
 
   private HttpServer server;
+  private InjectedFaults faults;
 
   public static String getAddress() {
     return address;
@@ -25,6 +26,8 @@ public class FakeOkapi extends AbstractVerticle {
 
     Router router = Router.router(vertx);
 
+    faults = InjectedFaults.fromConfig(config());
+
     this.server = vertx.createHttpServer();
 
     RegisterFakeInstanceStorageModule(router);
@@ -61,7 +64,9 @@ public class FakeOkapi extends AbstractVerticle {
   }
 
   private void RegisterFakeInstanceStorageModule(Router router) {
-    registerFakeModule(router, "/instance-storage/instances", "instances");
+    new FakeStorageModule("/instance-storage/instances",
+      "/instance-storage/batch/instances", "instances", TENANT_ID,
+      new ArrayList<>(), faults).register(router);
   }
 
   private void registerFakeItemsModule(Router router) {
@@ -70,8 +75,8 @@ public class FakeOkapi extends AbstractVerticle {
     requiredProperties.add("materialTypeId");
     requiredProperties.add("permanentLoanTypeId");
 
-    new FakeStorageModule("/item-storage/items", "items",
-      TENANT_ID, requiredProperties).register(router);
+    new FakeStorageModule("/item-storage/items", "/item-storage/batch/items",
+      "items", TENANT_ID, requiredProperties, faults).register(router);
   }
 
   private void registerFakeMaterialTypesModule(Router router) {
@@ -11,11 +11,18 @@ import support.fakes.http.server.*;
 
 import java.util.*;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class FakeStorageModule extends AbstractVerticle {
+  private static final Pattern comparison =
+    Pattern.compile("^(.+?)(==|<>|>=|<=|=|>|<)(.*)$");
+
   private final String rootPath;
+  private final String batchPath;
   private final Collection<String> requiredProperties;
+  private final InjectedFaults faults;
 
   private final Map<String, Map<String, JsonObject>> storedResourcesByTenant;
   private final String collectionPropertyName;
@@ -34,9 +41,33 @@ public class FakeStorageModule extends AbstractVerticle {
     String tenantId,
     Collection<String> requiredProperties) {
 
+    this(rootPath, null, collectionPropertyName, tenantId, requiredProperties);
+  }
+
+  public FakeStorageModule(
+    String rootPath,
+    String batchPath,
+    String collectionPropertyName,
+    String tenantId,
+    Collection<String> requiredProperties) {
+
+    this(rootPath, batchPath, collectionPropertyName, tenantId,
+      requiredProperties, InjectedFaults.none());
+  }
+
+  public FakeStorageModule(
+    String rootPath,
+    String batchPath,
+    String collectionPropertyName,
+    String tenantId,
+    Collection<String> requiredProperties,
+    InjectedFaults faults) {
+
     this.rootPath = rootPath;
+    this.batchPath = batchPath;
     this.collectionPropertyName = collectionPropertyName;
     this.requiredProperties = requiredProperties;
+    this.faults = faults;
 
     storedResourcesByTenant = new HashMap<>();
     storedResourcesByTenant.put(tenantId, new HashMap<>());
@@ -49,6 +80,9 @@ public class FakeStorageModule extends AbstractVerticle {
     router.post(rootPath + "*").handler(BodyHandler.create());
     router.put(rootPath + "*").handler(BodyHandler.create());
 
+    //Applied after the body has been read, so that none of it is missed
+    router.route(rootPath + "*").handler(faults::apply);
+
     router.post(rootPath).handler(this::checkRequiredProperties);
     router.post(rootPath).handler(this::create);
 
@@ -60,6 +94,12 @@ public class FakeStorageModule extends AbstractVerticle {
 
     router.get(rootPath + "/:id").handler(this::get);
     router.delete(rootPath + "/:id").handler(this::delete);
+
+    if(batchPath != null) {
+      router.post(batchPath).handler(BodyHandler.create());
+      router.post(batchPath).handler(faults::apply);
+      router.post(batchPath).handler(this::createBatch);
+    }
   }
 
   private void create(RoutingContext routingContext) {
@@ -77,6 +117,39 @@ public class FakeStorageModule extends AbstractVerticle {
     JsonResponse.created(routingContext.response(), body);
   }
 
+  private void createBatch(RoutingContext routingContext) {
+    WebContext context = new WebContext(routingContext);
+
+    JsonArray records = getJsonFromBody(routingContext)
+      .getJsonArray(collectionPropertyName, new JsonArray());
+
+    JsonArray created = new JsonArray();
+    JsonArray errorMessages = new JsonArray();
+
+    records.stream()
+      .map(record -> (JsonObject)record)
+      .forEach(record -> {
+        if(hasRequiredProperties(record)) {
+          String id = record.getString("id", UUID.randomUUID().toString());
+
+          record.put("id", id);
+
+          getResourcesForTenant(context).put(id, record);
+
+          created.add(record);
+        }
+        else {
+          errorMessages.add(String.format(
+            "Record %s is missing required properties", record.getString("id")));
+        }
+      });
+
+    JsonResponse.created(routingContext.response(), new JsonObject()
+      .put(collectionPropertyName, created)
+      .put("errorMessages", errorMessages)
+      .put("totalRecords", created.size()));
+  }
+
   private void replace(RoutingContext routingContext) {
     WebContext context = new WebContext(routingContext);
 
@@ -104,14 +177,31 @@ public class FakeStorageModule extends AbstractVerticle {
     Map<String, JsonObject> resourcesForTenant = getResourcesForTenant(context);
 
     if(resourcesForTenant.containsKey(id)) {
-      JsonResponse.success(routingContext.response(),
-        resourcesForTenant.get(id));
+      JsonObject resource = resourcesForTenant.get(id);
+
+      String entityTag = entityTag(resource);
+
+      if(entityTag.equals(routingContext.request().getHeader("If-None-Match"))) {
+        routingContext.response().setStatusCode(304)
+          .putHeader("ETag", entityTag)
+          .end();
+      }
+      else {
+        routingContext.response().putHeader("ETag", entityTag);
+
+        JsonResponse.success(routingContext.response(), resource);
+      }
     }
     else {
       ClientErrorResponse.notFound(routingContext.response());
     }
   }
 
+  private static String entityTag(JsonObject resource) {
+    return String.format("\"%s\"",
+      Integer.toHexString(resource.encode().hashCode()));
+  }
+
   private void getMany(RoutingContext routingContext) {
     WebContext context = new WebContext(routingContext);
 
@@ -119,6 +209,13 @@ public class FakeStorageModule extends AbstractVerticle {
     Integer offset = context.getIntegerParameter("offset", 0);
     String query = context.getStringParameter("query", null);
 
+    String sortBy = null;
+
+    if(query != null && query.contains(" sortBy ")) {
+      sortBy = query.substring(query.indexOf(" sortBy ") + 8).trim();
+      query = query.substring(0, query.indexOf(" sortBy "));
+    }
+
     Map<String, JsonObject> resourcesForTenant = getResourcesForTenant(context);
 
     List<Predicate<JsonObject>> predicates = filterFromQuery(query);
@@ -127,6 +224,14 @@ public class FakeStorageModule extends AbstractVerticle {
       .filter(predicates.stream().reduce(Predicate::and).orElse(t -> false))
       .collect(Collectors.toList());
 
+    if(sortBy != null) {
+      String sortField = sortBy;
+
+      filteredItems.sort(Comparator.comparing(
+        record -> record.getString(sortField),
+        Comparator.nullsLast(Comparator.naturalOrder())));
+    }
+
     List<JsonObject> pagedItems = filteredItems.stream()
       .skip(offset)
       .limit(limit)
@@ -195,19 +300,20 @@ public class FakeStorageModule extends AbstractVerticle {
     List<ImmutableTriple<String, String, String>> pairs =
       Arrays.stream(query.split(" and "))
         .map( pairText -> {
-          String[] split = pairText.split("=|<>");
-          String searchField = split[0];
+          Matcher matcher = comparison.matcher(pairText.trim());
+
+          if(!matcher.matches()) {
+            throw new IllegalArgumentException(
+              String.format("Cannot parse query: %s", pairText));
+          }
 
-          String searchTerm = split[1]
+          String searchField = matcher.group(1);
+
+          String searchTerm = matcher.group(3)
             .replaceAll("\"", "")
             .replaceAll("\\*", "");
 
-          if(pairText.contains("=")) {
-            return new ImmutableTriple<>(searchField, searchTerm, "=");
-          }
-          else {
-            return new ImmutableTriple<>(searchField, searchTerm, "<>");
-          }
+          return new ImmutableTriple<>(searchField, searchTerm, matcher.group(2));
         })
         .collect(Collectors.toList());
 
@@ -218,7 +324,7 @@ public class FakeStorageModule extends AbstractVerticle {
 
   private Predicate<JsonObject> filterByField(String field, String term, String operator) {
     return loan -> {
-      if (term == null || field == null) {
+      if (term == null || field == null || field.equals("cql.allRecords")) {
         return true;
       } else {
 
@@ -236,10 +342,20 @@ public class FakeStorageModule extends AbstractVerticle {
         }
 
         switch(operator) {
+          case "==":
+            return exactMatchesAny(propertyValue, term);
           case "=":
             return propertyValue.contains(term);
           case "<>":
             return !propertyValue.contains(term);
+          case ">":
+            return propertyValue != null && propertyValue.compareTo(term) > 0;
+          case "<":
+            return propertyValue != null && propertyValue.compareTo(term) < 0;
+          case ">=":
+            return propertyValue != null && propertyValue.compareTo(term) >= 0;
+          case "<=":
+            return propertyValue != null && propertyValue.compareTo(term) <= 0;
           default:
             return false;
         }
@@ -247,6 +363,16 @@ public class FakeStorageModule extends AbstractVerticle {
     };
   }
 
+  private static boolean exactMatchesAny(String propertyValue, String term) {
+    if(term.startsWith("(") && term.endsWith(")")) {
+      return Arrays.stream(term.substring(1, term.length() - 1).split(" or "))
+        .anyMatch(value -> value.trim().equals(propertyValue));
+    }
+    else {
+      return term.equals(propertyValue);
+    }
+  }
+
   private void checkTokenHeader(RoutingContext routingContext) {
     WebContext context = new WebContext(routingContext);
 
@@ -258,6 +384,11 @@ public class FakeStorageModule extends AbstractVerticle {
     }
   }
 
+  private boolean hasRequiredProperties(JsonObject record) {
+    return requiredProperties.stream()
+      .allMatch(requiredProperty -> record.getMap().containsKey(requiredProperty));
+  }
+
   private void checkRequiredProperties(RoutingContext routingContext) {
     JsonObject body = getJsonFromBody(routingContext);
 
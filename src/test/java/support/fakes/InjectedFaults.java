@@ -0,0 +1,62 @@
+package support.fakes;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import support.fakes.http.server.ServerErrorResponse;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Artificial latency and failures for fake storage modules, used to see how
+ * the inventory module behaves when storage is slow or unreliable
+ */
+public class InjectedFaults {
+  private final long latencyMilliseconds;
+  private final long jitterMilliseconds;
+  private final double errorRate;
+
+  public InjectedFaults(
+    long latencyMilliseconds,
+    long jitterMilliseconds,
+    double errorRate) {
+
+    this.latencyMilliseconds = latencyMilliseconds;
+    this.jitterMilliseconds = jitterMilliseconds;
+    this.errorRate = errorRate;
+  }
+
+  public static InjectedFaults none() {
+    return new InjectedFaults(0, 0, 0.0d);
+  }
+
+  public static InjectedFaults fromConfig(JsonObject config) {
+    return new InjectedFaults(
+      Long.parseLong(config.getValue("storage.latency.milliseconds", 0).toString()),
+      Long.parseLong(config.getValue("storage.jitter.milliseconds", 0).toString()),
+      Double.parseDouble(config.getValue("storage.error.rate", 0.0d).toString()));
+  }
+
+  /**
+   * Fails the request (at the configured rate) or delays it, before
+   * passing it on to the next handler
+   */
+  public void apply(RoutingContext routingContext) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    if(errorRate > 0.0d && random.nextDouble() < errorRate) {
+      ServerErrorResponse.internalError(routingContext.response(),
+        "Injected storage failure");
+      return;
+    }
+
+    long delay = latencyMilliseconds
+      + (jitterMilliseconds > 0 ? random.nextLong(jitterMilliseconds + 1) : 0);
+
+    if(delay > 0) {
+      routingContext.vertx().setTimer(delay, timerId -> routingContext.next());
+    }
+    else {
+      routingContext.next();
+    }
+  }
+}